@@ -6,6 +6,7 @@ import org.example.digital_banking.entities.Customer;
 import org.example.digital_banking.entities.SavingAccount;
 import org.example.digital_banking.enums.AccountStatus;
 import org.example.digital_banking.enums.Operation_type;
+import org.example.digital_banking.money.Money;
 import org.example.digital_banking.repositories.BankAccountRepo;
 import org.example.digital_banking.repositories.CustomerRepo;
 import org.example.digital_banking.repositories.OperationRepo;
@@ -13,11 +14,13 @@ import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 import java.util.Random;
 import java.util.UUID;
 
 @SpringBootApplication
+@EnableScheduling
 public class DigitalBankingApplication {
 
     public static void main(String[] args) {
@@ -43,7 +46,7 @@ public class DigitalBankingApplication {
                             .status(AccountStatus.ACTIVE)
                             .customer(customer)
                             .interestRate(2.5 * i)
-                            .balance(Math.random() * 10000)
+                            .balance(Money.ofMinor((long) (Math.random() * 1_000_000)))
                             .build();
                     bankAccountRepo.save(savingAccount);
 
@@ -54,8 +57,8 @@ public class DigitalBankingApplication {
                             .currency("MAD")
                             .status(AccountStatus.ACTIVE)
                             .customer(customer)
-                            .overdraft(5000.0 * i)
-                            .balance(Math.random() * 10000)
+                            .overdraft(Money.ofUnits(5000L * i))
+                            .balance(Money.ofMinor((long) (Math.random() * 1_000_000)))
                             .build();
                     bankAccountRepo.save(currentAccount);
                 }
@@ -0,0 +1,320 @@
+package org.example.digital_banking.analytics;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.function.IntPredicate;
+
+/**
+ * Operations held column by column (timestamp, account, amount in minor units, type) in
+ * append-only segments of fixed capacity, for dashboard scans that never touch the database.
+ * Rows are appended to an open segment in arrival order; when it is full it is sealed: replaced by
+ * a copy sorted by timestamp. Every segment keeps the range of its timestamps, so scans skip the
+ * segments outside a date range and sum the ones inside it without testing a row; in a sealed
+ * segment that straddles a bound, the rows of the range are found by binary search. The open
+ * segment is scanned with branch-free loops over primitive arrays, which the JIT unrolls and
+ * vectorizes.
+ * <p>
+ * One writer at a time (appends and removals are synchronized); scans run concurrently and see
+ * every row appended before they read a segment's size. Sealing and removals never modify the
+ * rows of a segment in place: they publish a new segment, so a scan reading the old one still
+ * sees consistent columns.
+ */
+public final class ColumnarOperationStore {
+
+    public static final byte DEBIT = 0;
+    public static final byte CREDIT = 1;
+    private static final long DAY_MILLIS = 86_400_000L;
+    private static final int MAX_DAYS = 1_000_000;
+
+    /**
+     * Sums of the operations of a range; recent counts those after a given date
+     */
+    public record Totals(long credits, long debits, long operations, long recent) {
+    }
+
+    /**
+     * Sums per day of a range, index 0 being firstDay (an epoch day)
+     */
+    public record DailyTotals(long firstDay, long[] credits, long[] debits, long[] operations) {
+    }
+
+    private static final class Segment {
+        final long[] timestamps;
+        final long[] accounts;
+        final long[] amounts;
+        final byte[] types;
+        // Sealed segments are sorted by timestamp and take no more rows
+        final boolean sealed;
+        // Written before size, so a reader that saw a size sees the range of those rows (or wider)
+        volatile long minTimestamp = Long.MAX_VALUE;
+        volatile long maxTimestamp = Long.MIN_VALUE;
+        volatile int size;
+
+        Segment(int capacity, boolean sealed) {
+            timestamps = new long[capacity];
+            accounts = new long[capacity];
+            amounts = new long[capacity];
+            types = new byte[capacity];
+            this.sealed = sealed;
+        }
+
+        /**
+         * A sealed copy of some rows, in the given order
+         */
+        Segment copy(int[] rows, int count) {
+            Segment copy = new Segment(count, true);
+            for (int i = 0; i < count; i++) {
+                int row = rows[i];
+                copy.timestamps[i] = timestamps[row];
+                copy.accounts[i] = accounts[row];
+                copy.amounts[i] = amounts[row];
+                copy.types[i] = types[row];
+            }
+            if (count > 0) {
+                copy.minTimestamp = copy.timestamps[0];
+                copy.maxTimestamp = copy.timestamps[count - 1];
+            }
+            copy.size = count;
+            return copy;
+        }
+    }
+
+    private final int segmentCapacity;
+    private volatile Segment[] segments = new Segment[0];
+    private long rows;
+
+    public ColumnarOperationStore(int segmentCapacity) {
+        this.segmentCapacity = Math.max(1, segmentCapacity);
+    }
+
+    public synchronized void append(long timestamp, long accountId, long amount, byte type) {
+        Segment[] current = segments;
+        Segment segment = current.length > 0 ? current[current.length - 1] : null;
+        if (segment == null || segment.sealed) {
+            segment = new Segment(segmentCapacity, false);
+            Segment[] grown = Arrays.copyOf(current, current.length + 1);
+            grown[current.length] = segment;
+            segments = grown;
+            current = grown;
+        }
+        int row = segment.size;
+        segment.timestamps[row] = timestamp;
+        segment.accounts[row] = accountId;
+        segment.amounts[row] = amount;
+        segment.types[row] = type;
+        if (timestamp < segment.minTimestamp) {
+            segment.minTimestamp = timestamp;
+        }
+        if (timestamp > segment.maxTimestamp) {
+            segment.maxTimestamp = timestamp;
+        }
+        segment.size = row + 1;
+        rows++;
+
+        if (segment.size == segmentCapacity) {
+            Segment[] sealed = current.clone();
+            sealed[sealed.length - 1] = sorted(segment, segment.size, i -> true);
+            segments = sealed;
+        }
+    }
+
+    /**
+     * Drop the rows of an account (a full pass, for account deletions); the segments holding some
+     * are replaced by sealed copies without them
+     *
+     * @return Number of rows removed
+     */
+    public synchronized long removeAccount(long accountId) {
+        Segment[] current = segments.clone();
+        long removed = 0;
+        for (int s = 0; s < current.length; s++) {
+            Segment segment = current[s];
+            int size = segment.size;
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (segment.accounts[i] != accountId) {
+                    kept++;
+                }
+            }
+            if (kept < size) {
+                current[s] = sorted(segment, size, i -> segment.accounts[i] != accountId);
+                removed += size - kept;
+            }
+        }
+        if (removed > 0) {
+            segments = current;
+            rows -= removed;
+        }
+        return removed;
+    }
+
+    public synchronized long size() {
+        return rows;
+    }
+
+    /**
+     * Credits, debits and number of operations dated in (from, to), and the number of those after recentAfter
+     */
+    public Totals totals(long from, long to, long recentAfter) {
+        long credits = 0;
+        long debits = 0;
+        long operations = 0;
+        long recent = 0;
+        for (Segment segment : segments) {
+            int size = segment.size;
+            long min = segment.minTimestamp;
+            long max = segment.maxTimestamp;
+            if (size == 0 || max <= from || min >= to) {
+                continue;
+            }
+            long[] timestamps = segment.timestamps;
+            long[] amounts = segment.amounts;
+            byte[] types = segment.types;
+            if (segment.sealed || (min > from && max < to)) {
+                // Every row of [first, last) is in the range
+                int first = segment.sealed ? after(timestamps, size, from) : 0;
+                int last = segment.sealed ? after(timestamps, size, to - 1) : size;
+                for (int i = first; i < last; i++) {
+                    long credit = types[i];
+                    credits += amounts[i] * credit;
+                    debits += amounts[i] * (1 - credit);
+                }
+                operations += last - first;
+                recent += segment.sealed
+                        ? Math.max(0, last - Math.max(first, after(timestamps, size, recentAfter)))
+                        : countAfter(timestamps, size, recentAfter);
+            } else {
+                for (int i = 0; i < size; i++) {
+                    long timestamp = timestamps[i];
+                    // 1 when from < timestamp < to: both differences are negative
+                    long in = ((from - timestamp) & (timestamp - to)) >>> 63;
+                    long credit = types[i];
+                    credits += amounts[i] * credit * in;
+                    debits += amounts[i] * (1 - credit) * in;
+                    operations += in;
+                    recent += in & ((recentAfter - timestamp) >>> 63);
+                }
+            }
+        }
+        return new Totals(credits, debits, operations, recent);
+    }
+
+    /**
+     * Credits, debits and number of operations per day of a zone, for the operations dated in (from, to)
+     */
+    public DailyTotals dailyTotals(long from, long to, ZoneId zone) {
+        ZoneRules rules = zone.getRules();
+        long firstDay = epochDay(from + 1, rules);
+        long lastDay = epochDay(to - 1, rules);
+        long days = Math.max(0, lastDay - firstDay + 1);
+        if (days > MAX_DAYS) {
+            throw new IllegalArgumentException("Time range too long");
+        }
+        long[] credits = new long[(int) days];
+        long[] debits = new long[(int) days];
+        long[] operations = new long[(int) days];
+        if (days == 0) {
+            return new DailyTotals(firstDay, credits, debits, operations);
+        }
+
+        for (Segment segment : segments) {
+            int size = segment.size;
+            long min = Math.max(segment.minTimestamp, from + 1);
+            long max = Math.min(segment.maxTimestamp, to - 1);
+            if (size == 0 || min > max) {
+                continue;
+            }
+            long[] timestamps = segment.timestamps;
+            long[] amounts = segment.amounts;
+            byte[] types = segment.types;
+            // Rows outside [first, last) are masked out below
+            int first = segment.sealed ? after(timestamps, size, from) : 0;
+            int last = segment.sealed ? after(timestamps, size, to - 1) : size;
+            ZoneOffset offset = rules.getOffset(Instant.ofEpochMilli(min));
+            ZoneOffsetTransition transition = rules.nextTransition(Instant.ofEpochMilli(min));
+            if (transition == null || transition.toEpochSecond() * 1000 > max) {
+                // One offset for the whole segment: the day is plain arithmetic
+                long offsetMillis = offset.getTotalSeconds() * 1000L;
+                for (int i = first; i < last; i++) {
+                    long timestamp = timestamps[i];
+                    long in = ((from - timestamp) & (timestamp - to)) >>> 63;
+                    // Rows outside the range add zeros to day 0
+                    int day = (int) ((Math.floorDiv(timestamp + offsetMillis, DAY_MILLIS) - firstDay) * in);
+                    long credit = types[i];
+                    credits[day] += amounts[i] * credit * in;
+                    debits[day] += amounts[i] * (1 - credit) * in;
+                    operations[day] += in;
+                }
+            } else {
+                // The segment spans an offset change (twice a year at most in most zones)
+                for (int i = first; i < last; i++) {
+                    long timestamp = timestamps[i];
+                    if (timestamp > from && timestamp < to) {
+                        int day = (int) (epochDay(timestamp, rules) - firstDay);
+                        if (types[i] == CREDIT) {
+                            credits[day] += amounts[i];
+                        } else {
+                            debits[day] += amounts[i];
+                        }
+                        operations[day]++;
+                    }
+                }
+            }
+        }
+        return new DailyTotals(firstDay, credits, debits, operations);
+    }
+
+    /**
+     * A sealed copy of the kept rows of a segment, sorted by timestamp
+     */
+    private static Segment sorted(Segment segment, int size, IntPredicate keep) {
+        Integer[] order = new Integer[size];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (keep.test(i)) {
+                order[count++] = i;
+            }
+        }
+        Arrays.sort(order, 0, count, Comparator.comparingLong(row -> segment.timestamps[row]));
+        int[] rows = new int[count];
+        for (int i = 0; i < count; i++) {
+            rows[i] = order[i];
+        }
+        return segment.copy(rows, count);
+    }
+
+    /**
+     * Index of the first of the sorted timestamps after a date
+     */
+    private static int after(long[] timestamps, int size, long date) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (timestamps[middle] <= date) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static long countAfter(long[] timestamps, int size, long date) {
+        long count = 0;
+        for (int i = 0; i < size; i++) {
+            count += (date - timestamps[i]) >>> 63;
+        }
+        return count;
+    }
+
+    private static long epochDay(long epochMillis, ZoneRules rules) {
+        long offsetMillis = rules.getOffset(Instant.ofEpochMilli(epochMillis)).getTotalSeconds() * 1000L;
+        return Math.floorDiv(epochMillis + offsetMillis, DAY_MILLIS);
+    }
+}
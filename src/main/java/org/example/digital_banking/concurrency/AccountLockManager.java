@@ -0,0 +1,139 @@
+package org.example.digital_banking.concurrency;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.example.digital_banking.exceptions.AccountLockTimeoutException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Striped in-process locks keyed by account id.
+ * Every balance mutation on an account runs under the stripe that owns that id, so two
+ * concurrent debits on the same account can no longer interleave their read-modify-write,
+ * while mutations on accounts that hash to different stripes still run in parallel.
+ * Multi-account operations (transfers) acquire their stripes in ascending stripe order,
+ * which gives a single global lock order and rules out deadlocks.
+ */
+@Component
+public class AccountLockManager {
+
+    private final ReentrantLock[] stripes;
+    private final int mask;
+    private final long timeoutMillis;
+    private final Timer lockWaitTimer;
+    private final Counter lockTimeoutCounter;
+
+    public AccountLockManager(@Value("${banking.locks.stripes:1024}") int stripeCount,
+                              @Value("${banking.locks.timeout-ms:5000}") long timeoutMillis,
+                              MeterRegistry meterRegistry) {
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1) << 1);
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+        this.timeoutMillis = timeoutMillis;
+        this.lockWaitTimer = Timer.builder("banking.account.lock.wait")
+                .description("Time spent waiting for per-account stripe locks")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.lockTimeoutCounter = Counter.builder("banking.account.lock.timeouts")
+                .description("Stripe lock acquisitions that gave up after the configured timeout")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Run an action while holding the lock of a single account
+     */
+    public <T> T withLock(Long accountId, Supplier<T> action) {
+        int stripe = stripeOf(accountId);
+        acquire(stripe);
+        try {
+            return action.get();
+        } finally {
+            stripes[stripe].unlock();
+        }
+    }
+
+    public void withLock(Long accountId, Runnable action) {
+        withLock(accountId, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Run an action while holding the locks of several accounts.
+     * Stripes are taken in ascending order and each stripe only once, so two transfers
+     * A->B and B->A (or two accounts sharing a stripe) cannot deadlock.
+     */
+    public <T> T withLocks(Collection<Long> accountIds, Supplier<T> action) {
+        int[] ordered = accountIds.stream()
+                .mapToInt(this::stripeOf)
+                .distinct()
+                .sorted()
+                .toArray();
+
+        int acquired = 0;
+        try {
+            for (int stripe : ordered) {
+                acquire(stripe);
+                acquired++;
+            }
+            return action.get();
+        } finally {
+            for (int i = acquired - 1; i >= 0; i--) {
+                stripes[ordered[i]].unlock();
+            }
+        }
+    }
+
+    public void withLocks(Collection<Long> accountIds, Runnable action) {
+        withLocks(accountIds, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    public int getStripeCount() {
+        return stripes.length;
+    }
+
+    int stripeOf(Long accountId) {
+        if (accountId == null) {
+            throw new IllegalArgumentException("Account id is required");
+        }
+        long h = accountId * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private void acquire(int stripe) {
+        ReentrantLock lock = stripes[stripe];
+        if (lock.tryLock()) {
+            lockWaitTimer.record(0, TimeUnit.NANOSECONDS);
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean locked;
+        try {
+            locked = lock.tryLock(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AccountLockTimeoutException("Interrupted while waiting for account lock");
+        } finally {
+            lockWaitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+
+        if (!locked) {
+            lockTimeoutCounter.increment();
+            throw new AccountLockTimeoutException("Timed out waiting for account lock after " + timeoutMillis + " ms");
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package org.example.digital_banking.concurrency;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.OptimisticLockException;
+import org.example.digital_banking.exceptions.ConcurrentUpdateException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Retries a unit of work that failed on an optimistic version check.
+ * The action must open its own transaction, so every attempt re-reads the account
+ * at its latest version. Backoff is exponential, capped, with full jitter so that
+ * colliding writers spread out instead of retrying in lock-step.
+ */
+@Component
+public class OptimisticRetryExecutor {
+
+    private final MeterRegistry meterRegistry;
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+
+    public OptimisticRetryExecutor(MeterRegistry meterRegistry,
+                                   @Value("${banking.retry.max-attempts:5}") int maxAttempts,
+                                   @Value("${banking.retry.initial-backoff-ms:5}") long initialBackoffMillis,
+                                   @Value("${banking.retry.max-backoff-ms:200}") long maxBackoffMillis) {
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoffMillis = Math.max(1, initialBackoffMillis);
+        this.maxBackoffMillis = Math.max(this.initialBackoffMillis, maxBackoffMillis);
+    }
+
+    /**
+     * Run the action, retrying on optimistic lock conflicts
+     *
+     * @param endpoint Logical endpoint name used to tag the conflict metrics
+     * @param action The transactional unit of work
+     * @return The action result
+     */
+    public <T> T execute(String endpoint, Supplier<T> action) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return action.get();
+            } catch (OptimisticLockingFailureException | OptimisticLockException e) {
+                conflicts(endpoint).increment();
+                if (attempt >= maxAttempts) {
+                    exhausted(endpoint).increment();
+                    throw new ConcurrentUpdateException(
+                            "Account was modified concurrently, gave up after " + attempt + " attempts");
+                }
+                retries(endpoint).increment();
+                sleep(backoffMillis(attempt));
+            }
+        }
+    }
+
+    public void execute(String endpoint, Runnable action) {
+        execute(endpoint, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    long backoffMillis(int attempt) {
+        long ceiling = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private Counter conflicts(String endpoint) {
+        return Counter.builder("banking.optimistic.conflicts")
+                .description("Optimistic version conflicts on balance mutations")
+                .tag("endpoint", endpoint)
+                .register(meterRegistry);
+    }
+
+    private Counter retries(String endpoint) {
+        return Counter.builder("banking.optimistic.retries")
+                .description("Attempts re-run after an optimistic version conflict")
+                .tag("endpoint", endpoint)
+                .register(meterRegistry);
+    }
+
+    private Counter exhausted(String endpoint) {
+        return Counter.builder("banking.optimistic.exhausted")
+                .description("Mutations rejected after running out of retry attempts")
+                .tag("endpoint", endpoint)
+                .register(meterRegistry);
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConcurrentUpdateException("Interrupted while backing off after a concurrent update");
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package org.example.digital_banking.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+
+/**
+ * Moves the pooled id generator tables past the ids already in use.
+ * Customer, BankAccount and Operation used to be IDENTITY columns; on MySQL the
+ * sequence generators that replaced them are emulated with one-row tables
+ * (next_val) that start at 1, so on an existing database they would hand out ids
+ * that are already taken. Runs before anything can insert rows: ahead of the ledger recovery and
+ * the balance engine, and before the web server accepts requests.
+ */
+@Component
+public class IdSequenceAligner implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(IdSequenceAligner.class);
+
+    // Must match the allocationSize of the @SequenceGenerator mappings
+    private static final int ALLOCATION_SIZE = 50;
+
+    private static final String[][] SEQUENCES = {
+            {"customer_seq", "customer", "customer_id"},
+            {"bank_account_seq", "bank_account", "id_bank_account"},
+            {"operation_seq", "operation", "id"},
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile boolean running;
+
+    public IdSequenceAligner(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void start() {
+        for (String[] sequence : SEQUENCES) {
+            String sequenceTable = sequence[0];
+            if (!isTable(sequenceTable)) {
+                // Native sequences (or no schema yet): nothing to align
+                continue;
+            }
+            // The pooled optimizer hands out the block below next_val, so keep a full block of headroom
+            String nextFreeId = "(SELECT COALESCE(MAX(" + sequence[2] + "), 0) + " + (ALLOCATION_SIZE + 1)
+                    + " FROM " + sequence[1] + ")";
+            int updated = jdbcTemplate.update(
+                    "UPDATE " + sequenceTable + " SET next_val = " + nextFreeId + " WHERE next_val < " + nextFreeId);
+            if (updated > 0) {
+                log.info("Moved id generator {} past the existing ids of {}", sequenceTable, sequence[1]);
+            }
+        }
+        running = true;
+    }
+
+    private boolean isTable(String name) {
+        Boolean found = jdbcTemplate.execute((Connection connection) -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            try (ResultSet tables = metaData.getTables(connection.getCatalog(), null, name, new String[]{"TABLE"})) {
+                return tables.next();
+            }
+        });
+        return Boolean.TRUE.equals(found);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // After the money column migration, ahead of the ledger recovery
+        return SmartLifecycle.DEFAULT_PHASE - 12288;
+    }
+}
@@ -0,0 +1,32 @@
+package org.example.digital_banking.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+
+/**
+ * JDBC templates. Besides the default one, streamingJdbcTemplate carries the fetch size hint of
+ * the long reads (exports, index builds, chain verification) so that it does not leak into the
+ * other queries. Declaring a JdbcTemplate bean switches off Spring Boot's, hence the primary one.
+ */
+@Configuration
+public class JdbcConfig {
+
+    @Bean
+    @Primary
+    public JdbcTemplate jdbcTemplate(DataSource dataSource) {
+        return new JdbcTemplate(dataSource);
+    }
+
+    @Bean
+    public JdbcTemplate streamingJdbcTemplate(DataSource dataSource,
+                                              @Value("${banking.jdbc.streaming-fetch-size:-2147483648}") int fetchSize) {
+        JdbcTemplate template = new JdbcTemplate(dataSource);
+        template.setFetchSize(fetchSize);
+        return template;
+    }
+}
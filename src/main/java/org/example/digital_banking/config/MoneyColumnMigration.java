@@ -0,0 +1,101 @@
+package org.example.digital_banking.config;
+
+import org.example.digital_banking.money.Money;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.Types;
+import java.util.Set;
+
+/**
+ * Converts the amount columns from floating point units to BIGINT minor units.
+ * Amounts used to be mapped as double; they are now {@link Money} values stored by MoneyConverter
+ * as a count of cents, and ddl-auto=update never changes the type of an existing column. Each
+ * column is copied into a staging column and then swapped in with a single ALTER TABLE, so an
+ * interrupted migration simply resumes on the next start. Runs before anything reads balances,
+ * including the ledger recovery.
+ */
+@Component
+public class MoneyColumnMigration implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(MoneyColumnMigration.class);
+
+    private static final String[][] COLUMNS = {
+            {"bank_account", "balance"},
+            {"bank_account", "overdraft"},
+            {"operation", "amount"},
+    };
+    private static final Set<Integer> DECIMAL_TYPES =
+            Set.of(Types.DOUBLE, Types.FLOAT, Types.REAL, Types.DECIMAL, Types.NUMERIC);
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile boolean running;
+
+    public MoneyColumnMigration(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void start() {
+        for (String[] column : COLUMNS) {
+            migrate(column[0], column[1]);
+        }
+        running = true;
+    }
+
+    private void migrate(String table, String column) {
+        ColumnInfo info = columnInfo(table, column);
+        if (info == null || !DECIMAL_TYPES.contains(info.sqlType)) {
+            // No schema yet, or already migrated
+            return;
+        }
+
+        String staging = column + "_minor";
+        if (columnInfo(table, staging) == null) {
+            jdbcTemplate.execute("ALTER TABLE " + table + " ADD COLUMN " + staging + " BIGINT");
+        }
+        int rows = jdbcTemplate.update("UPDATE " + table + " SET " + staging + " = ROUND(" + column + " * "
+                + Money.MINOR_PER_UNIT + ")");
+        jdbcTemplate.execute("ALTER TABLE " + table + " DROP COLUMN " + column + ", CHANGE COLUMN "
+                + staging + " " + column + " BIGINT" + (info.nullable ? "" : " NOT NULL"));
+        log.info("Converted {}.{} to minor units ({} rows)", table, column, rows);
+    }
+
+    private ColumnInfo columnInfo(String table, String column) {
+        return jdbcTemplate.execute((Connection connection) -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            try (ResultSet columns = metaData.getColumns(connection.getCatalog(), null, table, column)) {
+                if (!columns.next()) {
+                    return null;
+                }
+                return new ColumnInfo(columns.getInt("DATA_TYPE"),
+                        "YES".equalsIgnoreCase(columns.getString("IS_NULLABLE")));
+            }
+        });
+    }
+
+    private record ColumnInfo(int sqlType, boolean nullable) {
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // Ahead of the ledger recovery
+        return SmartLifecycle.DEFAULT_PHASE - 16384;
+    }
+}
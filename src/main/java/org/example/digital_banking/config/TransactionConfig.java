@@ -0,0 +1,33 @@
+package org.example.digital_banking.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Transaction templates. readCommittedTransactionTemplate runs the INSERT ... SELECT aggregates of
+ * the background jobs (daily rollup, balance checkpoints): under MySQL's default REPEATABLE READ they take shared
+ * next-key locks on every row they scan, blocking the inserts and updates of live operations for
+ * the whole statement, while READ COMMITTED reads a snapshot without locking (the row-based binary
+ * log, MySQL 8's default, is required). Declaring a TransactionTemplate bean switches off Spring
+ * Boot's, hence the primary one.
+ */
+@Configuration
+public class TransactionConfig {
+
+    @Bean
+    @Primary
+    public TransactionTemplate transactionTemplate(PlatformTransactionManager transactionManager) {
+        return new TransactionTemplate(transactionManager);
+    }
+
+    @Bean
+    public TransactionTemplate readCommittedTransactionTemplate(PlatformTransactionManager transactionManager) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+        return template;
+    }
+}
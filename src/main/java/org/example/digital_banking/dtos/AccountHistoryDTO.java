@@ -3,6 +3,7 @@ package org.example.digital_banking.dtos;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.example.digital_banking.money.Money;
 
 import java.util.List;
 @AllArgsConstructor
@@ -10,9 +11,10 @@ import java.util.List;
 @Data
 public class AccountHistoryDTO {
     private String accountId;
-    private double balance;
+    private Money balance;
     private int currentPage;
-    private int totalPages;
+    private Integer totalPages; // first page only (null when a cursor is passed)
     private int pageSize;
     private List<AccountOperationDTO> accountOperationDTOS;
+    private String nextCursor; // pass as ?cursor= to get the next page, null on the last page
 }
\ No newline at end of file
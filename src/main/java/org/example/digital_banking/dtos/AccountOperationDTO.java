@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.example.digital_banking.enums.Operation_type;
+import org.example.digital_banking.money.Money;
 
 import java.util.Date;
 @AllArgsConstructor
@@ -12,7 +13,8 @@ import java.util.Date;
 public class AccountOperationDTO {
     private Long id;
     private Date operationDate;
-    private double amount;
+    private Money amount;
     private Operation_type operationType;
     private String description;
+    private Money balanceAfter;
 }
\ No newline at end of file
@@ -3,6 +3,7 @@ package org.example.digital_banking.dtos;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.example.digital_banking.money.Money;
 
 @Data
 @AllArgsConstructor
@@ -10,5 +11,5 @@ import lombok.NoArgsConstructor;
 public class AccountStatsDTO {
     private String type;
     private int count;
-    private double totalBalance;
+    private Money totalBalance;
 }
\ No newline at end of file
@@ -0,0 +1,16 @@
+package org.example.digital_banking.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class AccountStatusChangeDTO {
+    private List<Long> accountIds;
+    private String status; // new status, e.g. "BLOCKED"
+    private String fromStatus; // optional: only change accounts currently in this status
+}
@@ -0,0 +1,13 @@
+package org.example.digital_banking.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class AccountStatusChangeResultDTO {
+    private int requested;
+    private int updated; // accounts missing, already in the target status or not in fromStatus are not counted
+}
@@ -0,0 +1,20 @@
+package org.example.digital_banking.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.digital_banking.money.Money;
+
+import java.util.Date;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BalanceAsOfDTO {
+    private Long accountId;
+    // Balance after every operation dated at or before this instant
+    private Date at;
+    private Money balance;
+    // Checkpoint the balance was derived from (null: derived from the current balance)
+    private Date checkpoint;
+}
@@ -2,16 +2,17 @@ package org.example.digital_banking.dtos;
 
 import lombok.*;
 import lombok.experimental.SuperBuilder;
+import org.example.digital_banking.money.Money;
 
 import java.util.Date;
 
 @Data
-@SuperBuilder
+@SuperBuilder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class BankAccountDTO {
     private Long id;
-    private double balance;
+    private Money balance;
     private Date createdAt;
     private String status;
     private CustomerDTO customerDTO;
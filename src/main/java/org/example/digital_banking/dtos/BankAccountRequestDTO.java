@@ -3,14 +3,15 @@ package org.example.digital_banking.dtos;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.example.digital_banking.money.Money;
 
 @AllArgsConstructor
 @NoArgsConstructor
 @Data
 public class BankAccountRequestDTO {
     private String type; // "SAV" or "CUR"
-    private double initialBalance;
+    private Money initialBalance;
     private Long customerId;
     private Double interestRate; // for saving account
-    private Double overdraft; // for current account
+    private Money overdraft; // for current account
 }
\ No newline at end of file
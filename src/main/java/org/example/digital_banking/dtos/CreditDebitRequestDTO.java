@@ -3,12 +3,13 @@ package org.example.digital_banking.dtos;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.example.digital_banking.money.Money;
 
 @AllArgsConstructor
 @NoArgsConstructor
 @Data
 public class CreditDebitRequestDTO {
     private Long accountId;
-    private double amount;
+    private Money amount;
     private String description;
 }
\ No newline at end of file
@@ -2,12 +2,13 @@ package org.example.digital_banking.dtos;
 
 import lombok.*;
 import lombok.experimental.SuperBuilder;
+import org.example.digital_banking.money.Money;
 
 @Data
 @EqualsAndHashCode(callSuper = true)
-@SuperBuilder
+@SuperBuilder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class CurrentAccountDTO extends BankAccountDTO {
-    private double overdraft;
+    private Money overdraft;
 }
\ No newline at end of file
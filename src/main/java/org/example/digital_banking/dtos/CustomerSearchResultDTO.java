@@ -0,0 +1,17 @@
+package org.example.digital_banking.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class CustomerSearchResultDTO {
+    private Long customer_id;
+    private String name;
+    private String email;
+    private String phone;
+    private String city;
+    private double score; // share of the query trigrams found, 0 to 1
+}
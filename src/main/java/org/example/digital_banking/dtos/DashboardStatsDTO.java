@@ -3,13 +3,14 @@ package org.example.digital_banking.dtos;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.example.digital_banking.money.Money;
 
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 public class DashboardStatsDTO {
-    private double totalBalance;
-    private double balanceChange;
+    private Money totalBalance;
+    private Money balanceChange;
     private int activeAccounts;
     private int newAccounts;
     private int recentTransactions;
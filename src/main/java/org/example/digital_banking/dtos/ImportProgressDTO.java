@@ -0,0 +1,16 @@
+package org.example.digital_banking.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class ImportProgressDTO {
+    private long rows; // data rows read so far
+    private long customersCreated;
+    private long accountsCreated;
+    private long rejected;
+    private boolean done;
+}
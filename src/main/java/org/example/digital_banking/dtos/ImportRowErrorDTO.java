@@ -0,0 +1,13 @@
+package org.example.digital_banking.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class ImportRowErrorDTO {
+    private long line; // line of the CSV file the row starts on
+    private String error;
+}
@@ -0,0 +1,22 @@
+package org.example.digital_banking.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class OperationChainReportDTO {
+    private Long accountId;
+    // Window checked, from inclusive and to exclusive (null: unbounded)
+    private Date from;
+    private Date to;
+    private long operationsChecked;
+    private long breaks;
+    // Operations whose balanceAfter does not follow from the previous one (the first ones only)
+    private List<Long> brokenOperationIds;
+}
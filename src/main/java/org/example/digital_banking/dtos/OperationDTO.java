@@ -4,12 +4,13 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.example.digital_banking.enums.Operation_type;
+import org.example.digital_banking.money.Money;
 @AllArgsConstructor
 @NoArgsConstructor
 @Data
 public class OperationDTO {
     private Long id;
     private Operation_type operationType;
-    private double amount;
+    private Money amount;
     private Long accountId;
 }
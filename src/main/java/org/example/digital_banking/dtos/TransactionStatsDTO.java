@@ -3,6 +3,7 @@ package org.example.digital_banking.dtos;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.example.digital_banking.money.Money;
 
 import java.util.List;
 
@@ -11,7 +12,7 @@ import java.util.List;
 @NoArgsConstructor
 public class TransactionStatsDTO {
     private List<String> dates;
-    private List<Double> deposits;
-    private List<Double> withdrawals;
-    private List<Double> netChange;
+    private List<Money> deposits;
+    private List<Money> withdrawals;
+    private List<Money> netChange;
 }
\ No newline at end of file
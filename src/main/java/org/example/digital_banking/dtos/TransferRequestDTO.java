@@ -3,6 +3,7 @@ package org.example.digital_banking.dtos;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.example.digital_banking.money.Money;
 
 @AllArgsConstructor
 @NoArgsConstructor
@@ -10,6 +11,6 @@ import lombok.NoArgsConstructor;
 public class TransferRequestDTO {
     private String accountSource;
     private String accountDestination;
-    private double amount;
+    private Money amount;
     private String description;
 }
\ No newline at end of file
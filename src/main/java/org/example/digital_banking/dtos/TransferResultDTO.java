@@ -0,0 +1,18 @@
+package org.example.digital_banking.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.digital_banking.money.Money;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class TransferResultDTO {
+    private int index; // position of the transfer in the submitted batch
+    private String accountSource;
+    private String accountDestination;
+    private Money amount;
+    private String status; // "ACCEPTED" or "REJECTED"
+    private String message;
+}
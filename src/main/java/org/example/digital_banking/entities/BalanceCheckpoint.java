@@ -0,0 +1,31 @@
+package org.example.digital_banking.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.digital_banking.money.Money;
+
+import java.util.Date;
+
+/**
+ * Balance of an account after every operation dated before asOf.
+ * Written at each day boundary for the accounts that moved (and when an administrator sets a
+ * balance), so a balance at any date is a checkpoint plus at most about a day of operations.
+ */
+@Entity
+// The unique key doubles as the index of the nearest-checkpoint lookups
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_balance_checkpoint_account_as_of",
+        columnNames = {"account_id", "as_of"}))
+@Data
+@AllArgsConstructor @NoArgsConstructor
+public class BalanceCheckpoint {
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(name = "account_id", nullable = false)
+    private Long accountId;
+    @Column(name = "as_of", nullable = false)
+    private Date asOf;
+    @Column(nullable = false)
+    private Money balance;
+}
@@ -0,0 +1,26 @@
+package org.example.digital_banking.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.digital_banking.money.Money;
+
+/**
+ * One sub-balance of a hot account. The balance of an account that has slots is
+ * bank_account.balance plus the sum of its slots; credits land on a random slot so
+ * concurrent credits lock different rows.
+ */
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(columnNames = {"account_id", "slot"}))
+@Data
+@AllArgsConstructor @NoArgsConstructor
+public class BalanceSlot {
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(name = "account_id", nullable = false)
+    private Long accountId;
+    private int slot;
+    @Column(nullable = false)
+    private Money balance;
+}
@@ -10,6 +10,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.example.digital_banking.enums.AccountStatus;
 import lombok.experimental.SuperBuilder;
+import org.example.digital_banking.money.Money;
 
 import java.util.Date;
 
@@ -18,6 +19,10 @@ import java.util.Date;
 @Data
 @Inheritance(strategy = InheritanceType.SINGLE_TABLE)
 @DiscriminatorColumn(name = "type",length = 4)
+// Serves the dormancy sweep: WHERE status = ? AND last_activity_at < ?
+@Table(indexes = @Index(name = "idx_bank_account_status_activity", columnList = "status, last_activity_at"))
+// Endpoints that serialize the owner fetch it in the same select
+@NamedEntityGraph(name = "BankAccount.customer", attributeNodes = @NamedAttributeNode("customer"))
 
 @JsonTypeInfo(
         use = JsonTypeInfo.Id.NAME,
@@ -31,13 +36,22 @@ import java.util.Date;
 @AllArgsConstructor
 @NoArgsConstructor
 public abstract class BankAccount {
-    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bank_account_seq")
+    @SequenceGenerator(name = "bank_account_seq", sequenceName = "bank_account_seq", allocationSize = 50)
     private Long idBankAccount;
-    private double balance;
+    @Version
+    private long version;
+    @Builder.Default
+    private Money balance = Money.ZERO;
     private AccountStatus status;
     private String currency;
     private Date createdAt;
-    @ManyToOne(fetch = FetchType.EAGER)
+    // Last debit or credit (interest accruals do not count)
+    private Date lastActivityAt;
+    // Id of the last operation already included in balance (only maintained by the in-memory ledger)
+    private Long ledgerWatermark;
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "customer_id")
     private Customer customer;
 }
@@ -9,6 +9,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.experimental.SuperBuilder;
+import org.example.digital_banking.money.Money;
 
 @SuperBuilder
 @Entity
@@ -18,6 +19,6 @@ import lombok.experimental.SuperBuilder;
 @AllArgsConstructor
 @NoArgsConstructor
 public class CurrentAccount extends BankAccount {
-    private double overdraft;
+    private Money overdraft;
 
 }
@@ -13,7 +13,9 @@ import org.example.digital_banking.entities.security.User;
 @AllArgsConstructor
 @NoArgsConstructor
 public class Customer {
-    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "customer_seq")
+    @SequenceGenerator(name = "customer_seq", sequenceName = "customer_seq", allocationSize = 50)
     private Long customer_id;
     private String name;
     private String email;
@@ -22,7 +24,7 @@ public class Customer {
     private String address;
     private String city;
 
-    @OneToOne
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private User user;
 }
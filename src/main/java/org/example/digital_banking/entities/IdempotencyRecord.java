@@ -0,0 +1,34 @@
+package org.example.digital_banking.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+/**
+ * Durable copy of the response returned for an Idempotency-Key,
+ * so that a replayed request is answered without touching the ledger again.
+ * The row is reserved (statusCode 0) before the request runs and completed once it has answered.
+ * Keys are scoped to the caller: scopedKey is the SHA-256 of the principal and the key.
+ */
+@Entity
+@Table(name = "idempotency_key", indexes = @Index(name = "idx_idempotency_key_expires_at", columnList = "expiresAt"))
+@Data
+@AllArgsConstructor @NoArgsConstructor
+public class IdempotencyRecord {
+    @Id
+    @Column(length = 64)
+    private String scopedKey;
+    @Column(length = 100)
+    private String caller;
+    @Column(length = 40)
+    private String endpoint;
+    // SHA-256 of the endpoint, the caller and the JSON request body
+    @Column(length = 64, nullable = false)
+    private String requestDigest;
+    private int statusCode;
+    private Date createdAt;
+    private Date expiresAt;
+}
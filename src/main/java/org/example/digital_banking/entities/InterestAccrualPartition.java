@@ -0,0 +1,37 @@
+package org.example.digital_banking.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.digital_banking.money.Money;
+
+import java.time.LocalDate;
+import java.util.Date;
+
+/**
+ * A range of account ids processed by one worker of the interest accrual for a given day.
+ * The cursor is advanced in the same transaction as the balances it covers, so an interrupted
+ * run resumes right after the last committed page.
+ */
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(columnNames = {"accrual_date", "first_id"}))
+@Data
+@AllArgsConstructor @NoArgsConstructor
+public class InterestAccrualPartition {
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(name = "accrual_date", nullable = false)
+    private LocalDate accrualDate;
+    // Account id range, both bounds inclusive
+    @Column(name = "first_id")
+    private long firstId;
+    private long lastId;
+    // Last account id already processed
+    private long cursorId;
+    private boolean completed;
+    private long accountsCredited;
+    @Column(nullable = false)
+    private Money interestCredited;
+    private Date completedAt;
+}
@@ -0,0 +1,23 @@
+package org.example.digital_banking.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+/**
+ * One run of the in-memory ledger. A session without closedAt was not shut down
+ * cleanly, and the operations it persisted after the last balance checkpoint
+ * still have to be folded into the account balances.
+ */
+@Entity
+@Data
+@AllArgsConstructor @NoArgsConstructor
+public class LedgerSession {
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    private Date startedAt;
+    private Date closedAt;
+}
@@ -5,20 +5,35 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.example.digital_banking.enums.Operation_type;
+import org.example.digital_banking.money.Money;
 
 import java.util.Date;
 
 @Entity
+@Table(indexes = {
+        // Keyset pagination of an account's history: WHERE account = ? AND (date, id) < (?, ?) ORDER BY date DESC, id DESC
+        @Index(name = "idx_operation_account_date_id", columnList = "id_bank_account, operation_date, id"),
+        // Dashboard aggregates over a date range, answered from the index alone
+        @Index(name = "idx_operation_date_type_amount", columnList = "operation_date, operation_type, amount")
+})
 @Data
 @AllArgsConstructor @NoArgsConstructor
 public class Operation {
-    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "operation_seq")
+    @SequenceGenerator(name = "operation_seq", sequenceName = "operation_seq", allocationSize = 50)
     private Long id;
     private Operation_type operationType;
-    private double amount;
+    private Money amount;
     private Date operationDate;
     private String description;
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "idBankAccount")
     private BankAccount bankAccount;
+    // Sequence number in the in-memory ledger's journal, used to replay it idempotently
+    @Column(unique = true)
+    private Long journalSeq;
+    // Balance of the account right after this operation, stamped in the transaction that wrote it
+    // (null on hot accounts, whose slot credits have no single order, and on older rows)
+    private Money balanceAfter;
 }
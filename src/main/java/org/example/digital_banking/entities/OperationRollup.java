@@ -0,0 +1,37 @@
+package org.example.digital_banking.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.digital_banking.enums.Operation_type;
+import org.example.digital_banking.money.Money;
+
+import java.time.LocalDate;
+
+/**
+ * Number and sum of the operations of one day, per account type and operation type.
+ * Rebuilt from the operation table by the rollup compactor; transaction charts read these rows,
+ * a few per day, instead of the operations.
+ */
+@Entity
+// The unique key doubles as the index of the day range reads
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_operation_rollup_day_types",
+        columnNames = {"rollup_day", "account_type", "operation_type"}))
+@Data
+@AllArgsConstructor @NoArgsConstructor
+public class OperationRollup {
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    // Day in the database session time zone
+    @Column(name = "rollup_day", nullable = false)
+    private LocalDate day;
+    // Discriminator of the accounts (SAV, Cur)
+    @Column(name = "account_type", nullable = false, length = 4)
+    private String accountType;
+    @Column(name = "operation_type", nullable = false)
+    private Operation_type operationType;
+    private long operations;
+    @Column(nullable = false)
+    private Money amount;
+}
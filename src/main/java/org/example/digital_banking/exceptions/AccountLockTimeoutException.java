@@ -0,0 +1,7 @@
+package org.example.digital_banking.exceptions;
+
+public class AccountLockTimeoutException extends RuntimeException {
+    public AccountLockTimeoutException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package org.example.digital_banking.exceptions;
+
+public class LedgerUnavailableException extends RuntimeException {
+    public LedgerUnavailableException(String message) {
+        super(message);
+    }
+}
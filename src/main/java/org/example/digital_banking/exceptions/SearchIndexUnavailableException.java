@@ -0,0 +1,7 @@
+package org.example.digital_banking.exceptions;
+
+public class SearchIndexUnavailableException extends RuntimeException {
+    public SearchIndexUnavailableException(String message) {
+        super(message);
+    }
+}
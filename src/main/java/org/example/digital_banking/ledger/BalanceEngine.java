@@ -0,0 +1,413 @@
+package org.example.digital_banking.ledger;
+
+import org.example.digital_banking.enums.Operation_type;
+import org.example.digital_banking.exceptions.BankAccountNotFoundException;
+import org.example.digital_banking.exceptions.InsufficientBalanceException;
+import org.example.digital_banking.exceptions.LedgerUnavailableException;
+import org.example.digital_banking.services.HotAccountService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * In-memory balance engine: accounts are sharded by id and every shard is owned by exactly one
+ * writer thread that consumes commands from a bounded ring buffer. Because a shard's balances are
+ * only ever touched by its writer, debit and credit decisions need no locks and no database round
+ * trip; accepted mutations are handed to {@link LedgerPersister} which writes them asynchronously.
+ * When the {@link OperationJournal} is enabled each mutation is journaled before it is applied:
+ * a shard decides a batch of commands against working balances, waits for the one fsync that
+ * covers their journal records, and only then applies the balances, hands the entries to the
+ * persister and answers; if the fsync fails the whole batch is refused and nothing of it is kept.
+ * Account state is loaded lazily from bank_account the first time a shard sees an account.
+ * Starts before the web server accepts requests and stops after it.
+ */
+@Component
+@ConditionalOnProperty(name = "banking.ledger.mode", havingValue = "in-memory")
+public class BalanceEngine implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(BalanceEngine.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final LedgerPersister persister;
+    private final LedgerRecovery recovery;
+    private final HotAccountService hotAccountService;
+    // Null when the journal is disabled
+    private final OperationJournal journal;
+    private final Shard[] shards;
+    private final long submitTimeoutMillis;
+    private volatile boolean running;
+
+    public BalanceEngine(JdbcTemplate jdbcTemplate,
+                         LedgerPersister persister,
+                         LedgerRecovery recovery,
+                         HotAccountService hotAccountService,
+                         ObjectProvider<OperationJournal> journal,
+                         @Value("${banking.ledger.shards:0}") int shardCount,
+                         @Value("${banking.ledger.ring-capacity:8192}") int ringCapacity,
+                         @Value("${banking.ledger.submit-timeout-ms:1000}") long submitTimeoutMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.persister = persister;
+        this.recovery = recovery;
+        this.hotAccountService = hotAccountService;
+        this.journal = journal.getIfAvailable();
+        this.submitTimeoutMillis = submitTimeoutMillis;
+        int count = shardCount > 0 ? shardCount : Runtime.getRuntime().availableProcessors();
+        this.shards = new Shard[count];
+        for (int i = 0; i < count; i++) {
+            shards[i] = new Shard(i, ringCapacity);
+        }
+    }
+
+    public CompletableFuture<LedgerEntry> debit(long accountId, long amount, String description) {
+        return submit(accountId, Command.Kind.DEBIT, amount, description, null);
+    }
+
+    public CompletableFuture<LedgerEntry> credit(long accountId, long amount, String description) {
+        return submit(accountId, Command.Kind.CREDIT, amount, description, null);
+    }
+
+    /**
+     * Credit interest: unlike a customer's credit, it does not count as activity on the account
+     */
+    public CompletableFuture<LedgerEntry> accrue(long accountId, long amount, String description) {
+        return submit(accountId, Command.Kind.ACCRUE, amount, description, null);
+    }
+
+    /**
+     * Check that an account exists (loading it into its shard if needed)
+     */
+    public CompletableFuture<LedgerEntry> touch(long accountId) {
+        return submit(accountId, Command.Kind.TOUCH, 0, null, null);
+    }
+
+    /**
+     * Run a database-side change to an account (admin update, delete) on the account's shard writer.
+     * The shard is paused, everything accepted so far is persisted and checkpointed first, and the
+     * account is reloaded from the database on its next use.
+     */
+    public <T> T exclusive(long accountId, Supplier<T> action) {
+        CompletableFuture<T> outcome = new CompletableFuture<>();
+        await(submit(accountId, Command.Kind.EXCLUSIVE, 0, null, () -> {
+            persister.sync();
+            outcome.complete(action.get());
+        }));
+        return outcome.join();
+    }
+
+    /**
+     * Write a snapshot of every loaded balance to the journal so that older segments can be dropped
+     */
+    @Scheduled(fixedDelayString = "${banking.journal.snapshot-interval-ms:60000}")
+    public void snapshotJournal() {
+        if (journal == null || !running) {
+            return;
+        }
+        // Every record below this seq has been applied by its shard before the shard runs the barrier
+        long coveredSeq = journal.nextSeq();
+        List<JournalFormat.SnapshotEntry> entries = Collections.synchronizedList(new ArrayList<>());
+        List<CompletableFuture<LedgerEntry>> barriers = new ArrayList<>(shards.length);
+        for (Shard shard : shards) {
+            barriers.add(submitTo(shard, new Command(Command.Kind.BARRIER, -1, 0, null, () ->
+                    shard.accounts.forEach((accountId, state) ->
+                            entries.add(new JournalFormat.SnapshotEntry(accountId, state.lastSeq, state.balance))))));
+        }
+        barriers.forEach(BalanceEngine::await);
+        journal.writeSnapshot(coveredSeq, entries);
+    }
+
+    /**
+     * Wait for a ledger decision, rethrowing the business exception that rejected it
+     */
+    public static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Current in-memory balance in minor units, or null if the account has not been loaded by the engine
+     */
+    public Long peekBalance(long accountId) {
+        AccountState state = shardOf(accountId).accounts.get(accountId);
+        return state != null ? state.balance : null;
+    }
+
+    private CompletableFuture<LedgerEntry> submit(long accountId, Command.Kind kind, long amount,
+                                                  String description, Runnable action) {
+        return submitTo(shardOf(accountId), new Command(kind, accountId, amount, description, action));
+    }
+
+    private CompletableFuture<LedgerEntry> submitTo(Shard shard, Command command) {
+        if (!running) {
+            throw new LedgerUnavailableException("Ledger is not running");
+        }
+        try {
+            if (!shard.ring.offer(command, submitTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new LedgerUnavailableException("Ledger is overloaded, try again later");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LedgerUnavailableException("Interrupted while submitting to the ledger");
+        }
+        return command.result;
+    }
+
+    private Shard shardOf(long accountId) {
+        return shards[(int) Math.floorMod(accountId, (long) shards.length)];
+    }
+
+    private AccountState load(long accountId) {
+        // The engine serializes an account's credits itself, any sub-balance slots are merged back
+        hotAccountService.foldNow(accountId);
+        List<AccountState> found = jdbcTemplate.query(
+                "SELECT balance, overdraft, type FROM bank_account WHERE id_bank_account = ?",
+                (rs, rowNum) -> new AccountState(rs.getLong("balance"), rs.getLong("overdraft"),
+                        "Cur".equalsIgnoreCase(rs.getString("type"))),
+                accountId);
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    @Override
+    public void start() {
+        recovery.recover();
+        recovery.openSession();
+        if (journal != null) {
+            journal.open();
+        }
+        persister.start();
+        running = true;
+        for (Shard shard : shards) {
+            shard.thread.start();
+        }
+        log.info("In-memory ledger started with {} shards", shards.length);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        for (Shard shard : shards) {
+            try {
+                shard.thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        boolean clean = persister.stop();
+        if (journal != null) {
+            journal.close(clean);
+        }
+        if (clean) {
+            recovery.closeSession();
+        } else {
+            log.error("Ledger stopped with unpersisted entries; balances will be recovered on next start");
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // Before the embedded web server (which starts late and stops early)
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    /**
+     * Balance state of one account in minor units; mutated by its shard writer only, read by anyone
+     */
+    private static final class AccountState {
+        // Balance including every applied entry, read by anyone
+        volatile long balance;
+        // Balance including the entries decided but still waiting for their journal fsync (writer thread only)
+        long working;
+        // Journal seq of the last entry applied (writer thread only)
+        long lastSeq;
+        final long overdraft;
+        final boolean current;
+
+        AccountState(long balance, long overdraft, boolean current) {
+            this.balance = balance;
+            this.working = balance;
+            this.overdraft = overdraft;
+            this.current = current;
+        }
+    }
+
+    private static final class Command {
+        enum Kind {DEBIT, CREDIT, ACCRUE, TOUCH, EXCLUSIVE, BARRIER}
+
+        final Kind kind;
+        final long accountId;
+        final long amount;
+        final String description;
+        final Runnable action;
+        final CompletableFuture<LedgerEntry> result = new CompletableFuture<>();
+
+        Command(Kind kind, long accountId, long amount, String description, Runnable action) {
+            this.kind = kind;
+            this.accountId = accountId;
+            this.amount = amount;
+            this.description = description;
+            this.action = action;
+        }
+    }
+
+    /**
+     * An entry decided by a shard, applied once its journal record is fsynced
+     */
+    private record Pending(Command command, AccountState state, LedgerEntry entry) {
+    }
+
+    private final class Shard implements Runnable {
+        final ArrayBlockingQueue<Command> ring;
+        final Map<Long, AccountState> accounts = new ConcurrentHashMap<>();
+        // Writer thread only
+        final List<Pending> pending = new ArrayList<>();
+        final Thread thread;
+
+        Shard(int index, int capacity) {
+            this.ring = new ArrayBlockingQueue<>(capacity);
+            this.thread = new Thread(this, "ledger-shard-" + index);
+        }
+
+        @Override
+        public void run() {
+            List<Command> batch = new ArrayList<>(256);
+            while (running || !ring.isEmpty()) {
+                try {
+                    Command first = ring.poll(50, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    ring.drainTo(batch, 255);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (Command command : batch) {
+                    try {
+                        process(command);
+                    } catch (RuntimeException e) {
+                        command.result.completeExceptionally(e);
+                    }
+                }
+                // One fsync covers the journal records of the whole batch
+                applyPending();
+                batch.clear();
+            }
+        }
+
+        private void process(Command command) {
+            if (command.kind == Command.Kind.BARRIER || command.kind == Command.Kind.EXCLUSIVE) {
+                // Snapshots and exclusive changes see only applied entries
+                applyPending();
+            }
+            if (command.kind == Command.Kind.BARRIER) {
+                command.action.run();
+                command.result.complete(null);
+                return;
+            }
+            if (command.kind == Command.Kind.EXCLUSIVE) {
+                command.action.run();
+                accounts.remove(command.accountId);
+                if (journal != null) {
+                    // Journal the balance the database now holds so that a replay does not undo the change
+                    AccountState reloaded = load(command.accountId);
+                    await(journal.appendMarker(command.accountId, reloaded == null,
+                            reloaded != null ? reloaded.balance : 0));
+                }
+                command.result.complete(null);
+                return;
+            }
+
+            AccountState state = accounts.get(command.accountId);
+            if (state == null) {
+                state = load(command.accountId);
+                if (state == null) {
+                    throw new BankAccountNotFoundException("Account not found with id: " + command.accountId);
+                }
+                accounts.put(command.accountId, state);
+            }
+
+            switch (command.kind) {
+                case TOUCH -> command.result.complete(null);
+                case DEBIT -> {
+                    if (state.working + state.overdraft < command.amount) {
+                        throw new InsufficientBalanceException(state.current
+                                ? "Insufficient balance including overdraft"
+                                : "Insufficient balance");
+                    }
+                    accept(command, state, Operation_type.DEBIT, state.working - command.amount);
+                }
+                case CREDIT, ACCRUE -> {
+                    accept(command, state, Operation_type.CREDIT, state.working + command.amount);
+                }
+                default -> throw new IllegalStateException("Unexpected command " + command.kind);
+            }
+        }
+
+        private void accept(Command command, AccountState state, Operation_type type, long balanceAfter) {
+            LedgerEntry entry = new LedgerEntry(command.accountId, type, command.amount,
+                    command.description, new Date(), balanceAfter, command.kind != Command.Kind.ACCRUE);
+            if (journal == null) {
+                entry.getJournaled().complete(null);
+                apply(command, state, entry);
+                return;
+            }
+            // Journal first: if the append fails the balance is left untouched
+            journal.append(entry);
+            state.working = balanceAfter;
+            pending.add(new Pending(command, state, entry));
+        }
+
+        /**
+         * Wait for the fsync of the pending entries, then apply them; entries whose fsync failed
+         * are refused, and so are the ones after them (the journal stops at the first failure)
+         */
+        private void applyPending() {
+            if (pending.isEmpty()) {
+                return;
+            }
+            for (Pending decided : pending) {
+                try {
+                    decided.entry().getJournaled().join();
+                    apply(decided.command(), decided.state(), decided.entry());
+                } catch (CompletionException | CancellationException e) {
+                    decided.command().result.completeExceptionally(
+                            new LedgerUnavailableException("Journal fsync failed, the entry was not applied"));
+                }
+            }
+            // Working balances fall back to the applied ones (equal unless an fsync failed)
+            pending.forEach(decided -> decided.state().working = decided.state().balance);
+            pending.clear();
+        }
+
+        private void apply(Command command, AccountState state, LedgerEntry entry) {
+            state.balance = entry.getBalanceAfter();
+            state.working = entry.getBalanceAfter();
+            if (entry.getJournalSeq() != null) {
+                state.lastSeq = entry.getJournalSeq();
+            }
+            persister.enqueue(entry);
+            command.result.complete(entry);
+        }
+    }
+}
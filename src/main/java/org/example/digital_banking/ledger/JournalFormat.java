@@ -0,0 +1,205 @@
+package org.example.digital_banking.ledger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * On-disk format of the operation journal.
+ * Segments are named journal-{first seq}.log and hold a fixed number of 48-byte records, so the
+ * position of a record is derived from its sequence number:
+ * <pre>
+ *  0  long   seq
+ *  8  long   account id
+ * 16  int    type (0 = debit, 1 = credit, 2 = balance reset, 3 = account removed)
+ * 20  long   amount (minor units)
+ * 28  long   timestamp (epoch millis)
+ * 36  long   balance after (minor units)
+ * 44  int    CRC32 of bytes 0..43
+ * </pre>
+ * Snapshots are named snapshot-{covered seq}.snap: magic, covered seq, entry count, then
+ * (account id, last seq, balance) entries and a trailing CRC32.
+ */
+final class JournalFormat {
+
+    static final int RECORD_SIZE = 48;
+    static final int TYPE_DEBIT = 0;
+    static final int TYPE_CREDIT = 1;
+    static final int TYPE_RESET = 2;
+    static final int TYPE_REMOVED = 3;
+
+    private static final int CRC_OFFSET = 44;
+    private static final int SNAPSHOT_MAGIC = 0x534E4150;
+    private static final int SNAPSHOT_HEADER = 16;
+    private static final int SNAPSHOT_ENTRY = 24;
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+
+    record Record(long seq, long accountId, int type, long amount, long timestamp, long balanceAfter) {
+    }
+
+    record SnapshotEntry(long accountId, long lastSeq, long balance) {
+    }
+
+    record Snapshot(long coveredSeq, List<SnapshotEntry> entries) {
+    }
+
+    private JournalFormat() {
+    }
+
+    static void write(ByteBuffer buffer, int offset, Record record) {
+        buffer.putLong(offset, record.seq());
+        buffer.putLong(offset + 8, record.accountId());
+        buffer.putInt(offset + 16, record.type());
+        buffer.putLong(offset + 20, record.amount());
+        buffer.putLong(offset + 28, record.timestamp());
+        buffer.putLong(offset + 36, record.balanceAfter());
+        buffer.putInt(offset + CRC_OFFSET, crc(buffer, offset, CRC_OFFSET));
+    }
+
+    /**
+     * @return The record at offset, or null if the slot is empty, torn or not the expected record
+     */
+    static Record read(ByteBuffer buffer, int offset, long expectedSeq) {
+        if (buffer.getLong(offset) != expectedSeq
+                || buffer.getInt(offset + CRC_OFFSET) != crc(buffer, offset, CRC_OFFSET)) {
+            return null;
+        }
+        return new Record(expectedSeq,
+                buffer.getLong(offset + 8),
+                buffer.getInt(offset + 16),
+                buffer.getLong(offset + 20),
+                buffer.getLong(offset + 28),
+                buffer.getLong(offset + 36));
+    }
+
+    /**
+     * Read the valid prefix of a segment
+     */
+    static List<Record> readSegment(Path segment) throws IOException {
+        long firstSeq = firstSeqOf(segment);
+        List<Record> records = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            int slots = (int) (channel.size() / RECORD_SIZE);
+            for (int i = 0; i < slots; i++) {
+                Record record = read(buffer, i * RECORD_SIZE, firstSeq + i);
+                if (record == null) {
+                    break;
+                }
+                records.add(record);
+            }
+        }
+        return records;
+    }
+
+    static Path segmentPath(Path dir, long firstSeq) {
+        return dir.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSeq, SEGMENT_SUFFIX));
+    }
+
+    static long firstSeqOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * Segments in the directory, oldest first
+     */
+    static List<Path> segments(Path dir) throws IOException {
+        return list(dir, SEGMENT_PREFIX, SEGMENT_SUFFIX);
+    }
+
+    static List<Path> snapshots(Path dir) throws IOException {
+        return list(dir, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+    }
+
+    /**
+     * Write a snapshot atomically (temporary file, fsync, rename)
+     */
+    static Path writeSnapshot(Path dir, Snapshot snapshot) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SNAPSHOT_HEADER + snapshot.entries().size() * SNAPSHOT_ENTRY + 4);
+        buffer.putInt(SNAPSHOT_MAGIC);
+        buffer.putLong(snapshot.coveredSeq());
+        buffer.putInt(snapshot.entries().size());
+        for (SnapshotEntry entry : snapshot.entries()) {
+            buffer.putLong(entry.accountId());
+            buffer.putLong(entry.lastSeq());
+            buffer.putLong(entry.balance());
+        }
+        buffer.putInt(crc(buffer, 0, buffer.position()));
+        buffer.flip();
+
+        Path target = dir.resolve(String.format("%s%020d%s", SNAPSHOT_PREFIX, snapshot.coveredSeq(), SNAPSHOT_SUFFIX));
+        Path temp = dir.resolve(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        return Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * @return The most recent valid snapshot, or null if there is none
+     */
+    static Snapshot readLatestSnapshot(Path dir) throws IOException {
+        List<Path> snapshots = snapshots(dir);
+        for (int i = snapshots.size() - 1; i >= 0; i--) {
+            Snapshot snapshot = readSnapshot(snapshots.get(i));
+            if (snapshot != null) {
+                return snapshot;
+            }
+        }
+        return null;
+    }
+
+    private static Snapshot readSnapshot(Path path) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        if (buffer.remaining() < SNAPSHOT_HEADER + 4 || buffer.getInt(0) != SNAPSHOT_MAGIC) {
+            return null;
+        }
+        int count = buffer.getInt(12);
+        int end = SNAPSHOT_HEADER + count * SNAPSHOT_ENTRY;
+        if (count < 0 || buffer.remaining() != end + 4 || buffer.getInt(end) != crc(buffer, 0, end)) {
+            return null;
+        }
+        List<SnapshotEntry> entries = new ArrayList<>(count);
+        for (int offset = SNAPSHOT_HEADER; offset < end; offset += SNAPSHOT_ENTRY) {
+            entries.add(new SnapshotEntry(buffer.getLong(offset), buffer.getLong(offset + 8),
+                    buffer.getLong(offset + 16)));
+        }
+        return new Snapshot(buffer.getLong(4), entries);
+    }
+
+    private static List<Path> list(Path dir, String prefix, String suffix) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return new ArrayList<>();
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            // Zero-padded sequence numbers sort lexicographically
+            return new ArrayList<>(files
+                    .filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(prefix) && name.endsWith(suffix);
+                    })
+                    .sorted(Comparator.comparing(path -> path.getFileName().toString()))
+                    .toList());
+        }
+    }
+
+    private static int crc(ByteBuffer buffer, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(offset, length));
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,160 @@
+package org.example.digital_banking.ledger;
+
+import jakarta.persistence.EntityManager;
+import org.example.digital_banking.entities.BankAccount;
+import org.example.digital_banking.entities.Operation;
+import org.example.digital_banking.enums.Operation_type;
+import org.example.digital_banking.money.Money;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * Rebuilds the database from the operation journal after the in-memory ledger crashed.
+ * Operation rows whose journal seq is missing are inserted, then every account found in the
+ * latest snapshot or the journal gets the balance of its most recent record and a ledger
+ * watermark covering its operations. Safe to run more than once.
+ * Invoked by {@link LedgerRecovery} at startup whenever a ledger session was not closed cleanly;
+ * available in both modes so that a crash in ledger mode can be recovered from either.
+ */
+@Component
+@ConditionalOnProperty(name = "banking.journal.enabled", havingValue = "true")
+public class JournalReplayer {
+
+    private static final Logger log = LoggerFactory.getLogger(JournalReplayer.class);
+    private static final int CHUNK_SIZE = 1000;
+
+    private final EntityManager entityManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Path dir;
+
+    public JournalReplayer(EntityManager entityManager,
+                           JdbcTemplate jdbcTemplate,
+                           TransactionTemplate transactionTemplate,
+                           @Value("${banking.journal.dir:data/journal}") String dir) {
+        this.entityManager = entityManager;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.dir = Paths.get(dir);
+    }
+
+    /**
+     * @return Number of Operation rows restored
+     */
+    public int replay() {
+        try {
+            JournalFormat.Snapshot snapshot = JournalFormat.readLatestSnapshot(dir);
+            List<Path> segments = JournalFormat.segments(dir);
+            if (snapshot == null && segments.isEmpty()) {
+                return 0;
+            }
+
+            // Latest known balance per account
+            Map<Long, Known> latest = new HashMap<>();
+            Set<Long> removed = new HashSet<>();
+            if (snapshot != null) {
+                for (JournalFormat.SnapshotEntry entry : snapshot.entries()) {
+                    if (entry.lastSeq() > 0) {
+                        latest.put(entry.accountId(), new Known(entry.lastSeq(), entry.balance()));
+                    }
+                }
+            }
+
+            int restored = 0;
+            for (Path segment : segments) {
+                List<JournalFormat.Record> records = JournalFormat.readSegment(segment);
+                for (int from = 0; from < records.size(); from += CHUNK_SIZE) {
+                    List<JournalFormat.Record> chunk = records.subList(from, Math.min(records.size(), from + CHUNK_SIZE));
+                    restored += restoreOperations(chunk);
+                    for (JournalFormat.Record record : chunk) {
+                        Known known = latest.get(record.accountId());
+                        if (known == null || known.seq() < record.seq()) {
+                            latest.put(record.accountId(), new Known(record.seq(), record.balanceAfter()));
+                        }
+                        if (record.type() == JournalFormat.TYPE_REMOVED) {
+                            removed.add(record.accountId());
+                        } else {
+                            removed.remove(record.accountId());
+                        }
+                    }
+                }
+            }
+
+            removed.forEach(latest::remove);
+            List<Object[]> balances = new ArrayList<>(latest.size());
+            latest.forEach((accountId, known) -> balances.add(new Object[]{known.balance(), accountId, accountId}));
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(
+                    "UPDATE bank_account SET balance = ?, version = version + 1, ledger_watermark = " +
+                            "(SELECT MAX(o.id) FROM operation o WHERE o.id_bank_account = ?) " +
+                            "WHERE id_bank_account = ?", balances));
+
+            log.warn("Replayed journal from {}: {} operations restored, {} balances rebuilt",
+                    dir.toAbsolutePath(), restored, balances.size());
+            return restored;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read operation journal in " + dir, e);
+        }
+    }
+
+    private record Known(long seq, long balance) {
+    }
+
+    private int restoreOperations(List<JournalFormat.Record> chunk) {
+        List<JournalFormat.Record> operations = chunk.stream()
+                .filter(record -> record.type() == JournalFormat.TYPE_DEBIT || record.type() == JournalFormat.TYPE_CREDIT)
+                .toList();
+        if (operations.isEmpty()) {
+            return 0;
+        }
+
+        Set<Long> present = new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT journal_seq FROM operation WHERE journal_seq BETWEEN ? AND ?", Long.class,
+                operations.get(0).seq(), operations.get(operations.size() - 1).seq()));
+        List<JournalFormat.Record> missing = operations.stream()
+                .filter(record -> !present.contains(record.seq()))
+                .toList();
+        if (missing.isEmpty()) {
+            return 0;
+        }
+
+        // Accounts deleted since their operations were journaled are skipped
+        List<Long> accountIds = missing.stream().map(JournalFormat.Record::accountId).distinct().toList();
+        Set<Long> accounts = new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT id_bank_account FROM bank_account WHERE id_bank_account IN (" +
+                        String.join(",", Collections.nCopies(accountIds.size(), "?")) + ")",
+                Long.class, accountIds.toArray()));
+
+        return transactionTemplate.execute(status -> {
+            int count = 0;
+            for (JournalFormat.Record record : missing) {
+                if (!accounts.contains(record.accountId())) {
+                    continue;
+                }
+                Operation operation = new Operation();
+                operation.setOperationType(Operation_type.values()[record.type()]);
+                operation.setAmount(Money.ofMinor(record.amount()));
+                operation.setDescription("Restored from journal");
+                operation.setOperationDate(new Date(record.timestamp()));
+                operation.setBankAccount(entityManager.getReference(BankAccount.class, record.accountId()));
+                operation.setJournalSeq(record.seq());
+                operation.setBalanceAfter(Money.ofMinor(record.balanceAfter()));
+                entityManager.persist(operation);
+                count++;
+            }
+            entityManager.flush();
+            entityManager.clear();
+            return count;
+        });
+    }
+}
@@ -0,0 +1,256 @@
+package org.example.digital_banking.ledger;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.digital_banking.dtos.*;
+import org.example.digital_banking.exceptions.BankAccountNotFoundException;
+import org.example.digital_banking.exceptions.InsufficientBalanceException;
+import org.example.digital_banking.money.Money;
+import org.example.digital_banking.services.CustomerService;
+import org.example.digital_banking.services.CustomerServiceinterface;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * CustomerServiceinterface backed by the in-memory {@link BalanceEngine}.
+ * Enabled with banking.ledger.mode=in-memory; debit, credit and transfers are decided by the engine,
+ * everything else is delegated to the JPA {@link CustomerService}. Account reads overlay the
+ * engine's balance because bank_account.balance is only checkpointed periodically in this mode.
+ * The ledger owns balances exclusively, so this mode must run on a single instance.
+ */
+@Service
+@Primary
+@ConditionalOnProperty(name = "banking.ledger.mode", havingValue = "in-memory")
+public class LedgerCustomerService implements CustomerServiceinterface {
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerCustomerService.class);
+    private static final int REVERSAL_ATTEMPTS = 5;
+    private static final long REVERSAL_BACKOFF_MILLIS = 50;
+
+    private final CustomerService delegate;
+    private final BalanceEngine engine;
+    private final Counter reversalFailures;
+    // Acknowledge once the Operation row is committed ("persisted"), the journal record is fsynced ("journaled")
+    // or the engine has decided ("decided")
+    private final String ackMode;
+
+    public LedgerCustomerService(CustomerService delegate,
+                                 BalanceEngine engine,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${banking.ledger.ack:persisted}") String ackMode) {
+        this.delegate = delegate;
+        this.engine = engine;
+        this.reversalFailures = Counter.builder("banking.ledger.transfer.reversal.failures")
+                .description("Transfers debited but neither credited nor reversed")
+                .register(meterRegistry);
+        this.ackMode = ackMode.toLowerCase();
+    }
+
+    // Customer management
+    @Override
+    public List<CustomerDTO> getAllClients() {
+        return delegate.getAllClients();
+    }
+
+    @Override
+    public CustomerDTO getClientById(Long id) {
+        return delegate.getClientById(id);
+    }
+
+    @Override
+    public CustomerDTO createClient(CustomerDTO customerDTO) {
+        return delegate.createClient(customerDTO);
+    }
+
+    @Override
+    public CustomerDTO updateClient(Long id, CustomerDTO customerDTO) {
+        return delegate.updateClient(id, customerDTO);
+    }
+
+    @Override
+    public boolean deleteClient(Long id) {
+        return delegate.deleteClient(id);
+    }
+
+    // Bank account management
+    @Override
+    public List<BankAccountDTO> getAllAccounts() {
+        return overlay(delegate.getAllAccounts());
+    }
+
+    @Override
+    public BankAccountDTO getAccount(Long id) {
+        return overlay(delegate.getAccount(id));
+    }
+
+    @Override
+    public BankAccountDTO createAccount(BankAccountRequestDTO accountDTO) {
+        return delegate.createAccount(accountDTO);
+    }
+
+    @Override
+    public BankAccountDTO updateAccount(Long id, BankAccountDTO bankAccountDTO) {
+        return engine.exclusive(id, () -> delegate.updateAccount(id, bankAccountDTO));
+    }
+
+    @Override
+    public boolean deleteAccount(Long id) {
+        return engine.exclusive(id, () -> delegate.deleteAccount(id));
+    }
+
+    // Operations
+    @Override
+    public void debit(Long accountId, CreditDebitRequestDTO requestDTO) {
+        if (requestDTO.getAmount() == null || !requestDTO.getAmount().isPositive()) {
+            throw new IllegalArgumentException("Debit amount must be positive");
+        }
+        BalanceEngine.await(engine.debit(accountId, requestDTO.getAmount().minorUnits(), requestDTO.getDescription())
+                .thenCompose(this::acknowledgement));
+    }
+
+    @Override
+    public void credit(Long accountId, CreditDebitRequestDTO requestDTO) {
+        if (requestDTO.getAmount() == null || !requestDTO.getAmount().isPositive()) {
+            throw new IllegalArgumentException("Credit amount must be positive");
+        }
+        BalanceEngine.await(engine.credit(accountId, requestDTO.getAmount().minorUnits(), requestDTO.getDescription())
+                .thenCompose(this::acknowledgement));
+    }
+
+    @Override
+    public void transfer(TransferRequestDTO transferRequestDTO) {
+        Long sourceAccountId = Long.valueOf(transferRequestDTO.getAccountSource());
+        Long destAccountId = Long.valueOf(transferRequestDTO.getAccountDestination());
+        if (transferRequestDTO.getAmount() == null || !transferRequestDTO.getAmount().isPositive()) {
+            throw new IllegalArgumentException("Debit amount must be positive");
+        }
+        BalanceEngine.await(transferLegs(sourceAccountId, destAccountId,
+                transferRequestDTO.getAmount().minorUnits(), transferRequestDTO.getDescription()));
+    }
+
+    @Override
+    public List<TransferResultDTO> transferBatch(List<TransferRequestDTO> transferRequests) {
+        // The engine decides each leg in microseconds, so the batch simply goes through it in order
+        List<TransferResultDTO> results = new ArrayList<>(transferRequests.size());
+        List<CompletableFuture<Void>> accepted = new ArrayList<>();
+        for (int i = 0; i < transferRequests.size(); i++) {
+            TransferRequestDTO request = transferRequests.get(i);
+            TransferResultDTO result = new TransferResultDTO(i, request.getAccountSource(),
+                    request.getAccountDestination(), request.getAmount(), "REJECTED", null);
+            results.add(result);
+            try {
+                if (request.getAmount() == null || !request.getAmount().isPositive()) {
+                    throw new IllegalArgumentException("Transfer amount must be positive");
+                }
+                accepted.add(transferLegs(Long.valueOf(request.getAccountSource()),
+                        Long.valueOf(request.getAccountDestination()), request.getAmount().minorUnits(),
+                        request.getDescription()));
+                result.setStatus("ACCEPTED");
+            } catch (NumberFormatException e) {
+                result.setMessage("Invalid account id");
+            } catch (IllegalArgumentException | BankAccountNotFoundException | InsufficientBalanceException e) {
+                result.setMessage(e.getMessage());
+            }
+        }
+        accepted.forEach(BalanceEngine::await);
+        return results;
+    }
+
+    @Override
+    public List<AccountOperationDTO> getAccountOperations(Long accountId) {
+        return delegate.getAccountOperations(accountId);
+    }
+
+    @Override
+    public AccountHistoryDTO getAccountHistory(Long accountId, String cursor, int page, int size) {
+        AccountHistoryDTO history = delegate.getAccountHistory(accountId, cursor, page, size);
+        Long balance = engine.peekBalance(accountId);
+        if (balance != null) {
+            history.setBalance(Money.ofMinor(balance));
+        }
+        return history;
+    }
+
+    @Override
+    public List<BankAccountDTO> getAccountsByCustomerId(Long customerId) {
+        return overlay(delegate.getAccountsByCustomerId(customerId));
+    }
+
+    /**
+     * Debit the source then credit the destination. The destination is checked first so that
+     * the credit leg should not fail after the debit was accepted; if it does, the source is
+     * credited back before the failure is rethrown. The two legs run on their own shards, so a
+     * reader may briefly see the amount in flight between them.
+     *
+     * @return Completes when both legs are acknowledged
+     */
+    private CompletableFuture<Void> transferLegs(Long sourceId, Long destId, long amount, String description) {
+        BalanceEngine.await(engine.touch(destId));
+        LedgerEntry debit = BalanceEngine.await(engine.debit(sourceId, amount, description));
+        LedgerEntry credit;
+        try {
+            // Waits for the decision only (microseconds), not for the acknowledgement
+            credit = BalanceEngine.await(engine.credit(destId, amount, description));
+        } catch (RuntimeException e) {
+            reverse(sourceId, destId, amount);
+            throw e;
+        }
+        return acknowledgement(credit).thenCombine(acknowledgement(debit), (creditAck, debitAck) -> null);
+    }
+
+    /**
+     * Credit back the source of a transfer whose credit leg failed, retrying while the ledger is
+     * overloaded. A reversal that still fails leaves the source short of the amount: it is logged
+     * and counted (banking.ledger.transfer.reversal.failures) for an operator to settle.
+     */
+    private void reverse(Long sourceId, Long destId, long amount) {
+        String description = "Reversal of failed transfer to account " + destId;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                BalanceEngine.await(engine.credit(sourceId, amount, description));
+                return;
+            } catch (RuntimeException e) {
+                if (attempt >= REVERSAL_ATTEMPTS) {
+                    reversalFailures.increment();
+                    log.error("Reversal of {} (minor units) to account {} failed after {} attempts; the transfer " +
+                            "to account {} was debited but not credited", amount, sourceId, attempt, destId, e);
+                    return;
+                }
+                try {
+                    Thread.sleep(REVERSAL_BACKOFF_MILLIS * attempt);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    private CompletableFuture<Void> acknowledgement(LedgerEntry entry) {
+        return switch (ackMode) {
+            case "decided" -> CompletableFuture.completedFuture(null);
+            case "journaled" -> entry.getJournaled();
+            default -> entry.getPersisted();
+        };
+    }
+
+    private List<BankAccountDTO> overlay(List<BankAccountDTO> accounts) {
+        accounts.forEach(this::overlay);
+        return accounts;
+    }
+
+    private BankAccountDTO overlay(BankAccountDTO account) {
+        Long balance = account.getId() != null ? engine.peekBalance(account.getId()) : null;
+        if (balance != null) {
+            account.setBalance(Money.ofMinor(balance));
+        }
+        return account;
+    }
+}
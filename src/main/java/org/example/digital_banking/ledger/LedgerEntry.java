@@ -0,0 +1,42 @@
+package org.example.digital_banking.ledger;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.example.digital_banking.enums.Operation_type;
+
+import java.util.Date;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A balance mutation accepted by the in-memory ledger, waiting to be written as an Operation row
+ */
+@Getter
+public class LedgerEntry {
+    private final long accountId;
+    private final Operation_type operationType;
+    // Amounts in minor units
+    private final long amount;
+    private final String description;
+    private final Date operationDate;
+    private final long balanceAfter;
+    // Whether the entry counts as activity on the account (not for interest credits)
+    private final boolean activity;
+    // Position in the operation journal (null when the journal is disabled)
+    @Setter
+    private Long journalSeq;
+    // Completed once the journal record is fsynced (immediately when the journal is disabled)
+    private final CompletableFuture<Void> journaled = new CompletableFuture<>();
+    // Completed once the Operation row is committed
+    private final CompletableFuture<Void> persisted = new CompletableFuture<>();
+
+    public LedgerEntry(long accountId, Operation_type operationType, long amount,
+                       String description, Date operationDate, long balanceAfter, boolean activity) {
+        this.accountId = accountId;
+        this.operationType = operationType;
+        this.amount = amount;
+        this.description = description;
+        this.operationDate = operationDate;
+        this.balanceAfter = balanceAfter;
+        this.activity = activity;
+    }
+}
@@ -0,0 +1,276 @@
+package org.example.digital_banking.ledger;
+
+import jakarta.persistence.EntityManager;
+import org.example.digital_banking.entities.BankAccount;
+import org.example.digital_banking.entities.Operation;
+import org.example.digital_banking.enums.Operation_type;
+import org.example.digital_banking.money.Money;
+import org.example.digital_banking.services.DashboardCounters;
+import org.example.digital_banking.services.OperationAnalyticsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes the decisions of the in-memory ledger to the database from a single background thread.
+ * Entries are inserted as Operation rows in JDBC batches, one transaction per batch. Account
+ * balances are checkpointed separately, at most once per checkpoint interval per account,
+ * together with the id of the last operation they include (ledger_watermark); operations
+ * persisted after the last checkpoint are folded back in by {@link LedgerRecovery} after a crash.
+ */
+@Component
+@ConditionalOnProperty(name = "banking.ledger.mode", havingValue = "in-memory")
+public class LedgerPersister {
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerPersister.class);
+    private static final int SHUTDOWN_ATTEMPTS = 3;
+
+    private final EntityManager entityManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final DashboardCounters dashboardCounters;
+    private final OperationAnalyticsService operationAnalyticsService;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final long checkpointIntervalMillis;
+
+    // Holds LedgerEntry instances and barrier futures
+    private final BlockingQueue<Object> queue;
+    // Latest balance, last operation id and latest activity (interest aside) per account since the
+    // previous checkpoint (persister thread only)
+    private final Map<Long, Long> dirtyBalances = new HashMap<>();
+    private final Map<Long, Long> dirtyWatermarks = new HashMap<>();
+    private final Map<Long, Date> dirtyActivity = new HashMap<>();
+
+    private volatile boolean running;
+    private volatile boolean clean = true;
+    private Thread thread;
+    private long lastCheckpoint = System.currentTimeMillis();
+
+    public LedgerPersister(EntityManager entityManager,
+                           JdbcTemplate jdbcTemplate,
+                           TransactionTemplate transactionTemplate,
+                           DashboardCounters dashboardCounters,
+                           OperationAnalyticsService operationAnalyticsService,
+                           @Value("${banking.ledger.persist-batch-size:500}") int batchSize,
+                           @Value("${banking.ledger.flush-interval-ms:20}") long flushIntervalMillis,
+                           @Value("${banking.ledger.checkpoint-interval-ms:1000}") long checkpointIntervalMillis,
+                           @Value("${banking.ledger.persist-queue-capacity:65536}") int queueCapacity) {
+        this.entityManager = entityManager;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.dashboardCounters = dashboardCounters;
+        this.operationAnalyticsService = operationAnalyticsService;
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.checkpointIntervalMillis = checkpointIntervalMillis;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    void start() {
+        running = true;
+        thread = new Thread(this::run, "ledger-persister");
+        thread.start();
+    }
+
+    /**
+     * Stop, flush everything still queued and checkpoint all balances
+     *
+     * @return true if every entry was persisted and every balance checkpointed
+     */
+    boolean stop() {
+        running = false;
+        if (thread != null) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return clean && queue.isEmpty();
+    }
+
+    /**
+     * Queue an entry; blocks when the database falls behind, which throttles the shard writers
+     */
+    void enqueue(LedgerEntry entry) {
+        try {
+            queue.put(entry);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing ledger entry", e);
+        }
+    }
+
+    /**
+     * Block until every entry queued so far is persisted and every balance is checkpointed
+     */
+    void sync() {
+        CompletableFuture<Void> barrier = new CompletableFuture<>();
+        try {
+            queue.put(barrier);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while syncing ledger", e);
+        }
+        barrier.join();
+    }
+
+    private void run() {
+        List<LedgerEntry> batch = new ArrayList<>(batchSize);
+        List<CompletableFuture<Void>> barriers = new ArrayList<>();
+
+        while (running || !queue.isEmpty()) {
+            try {
+                Object first = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    collect(first, batch, barriers);
+                    List<Object> drained = new ArrayList<>(batchSize);
+                    queue.drainTo(drained, batchSize - batch.size());
+                    for (Object item : drained) {
+                        collect(item, batch, barriers);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+
+            if (!batch.isEmpty()) {
+                flushWithRetry(batch);
+                batch.clear();
+            }
+            if (!barriers.isEmpty() || !running
+                    || System.currentTimeMillis() - lastCheckpoint >= checkpointIntervalMillis) {
+                checkpointWithRetry();
+                barriers.forEach(barrier -> barrier.complete(null));
+                barriers.clear();
+            }
+        }
+        checkpointWithRetry();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void collect(Object item, List<LedgerEntry> batch, List<CompletableFuture<Void>> barriers) {
+        if (item instanceof LedgerEntry entry) {
+            batch.add(entry);
+        } else {
+            barriers.add((CompletableFuture<Void>) item);
+        }
+    }
+
+    private void flushWithRetry(List<LedgerEntry> batch) {
+        // Accepted entries must not be dropped: keep retrying while the database is unavailable
+        for (int attempt = 1; ; attempt++) {
+            try {
+                flush(batch);
+                return;
+            } catch (RuntimeException e) {
+                log.error("Failed to persist {} ledger entries (attempt {})", batch.size(), attempt, e);
+                if (!running && attempt >= SHUTDOWN_ATTEMPTS) {
+                    clean = false;
+                    batch.forEach(entry -> entry.getPersisted().completeExceptionally(e));
+                    return;
+                }
+                pause(Math.min(5_000, 100L * attempt));
+            }
+        }
+    }
+
+    private void flush(List<LedgerEntry> batch) {
+        List<Operation> operations = transactionTemplate.execute(status -> {
+            List<Operation> rows = new ArrayList<>(batch.size());
+            for (LedgerEntry entry : batch) {
+                Operation operation = new Operation();
+                operation.setOperationType(entry.getOperationType());
+                operation.setAmount(Money.ofMinor(entry.getAmount()));
+                operation.setDescription(entry.getDescription());
+                operation.setOperationDate(entry.getOperationDate());
+                operation.setBankAccount(entityManager.getReference(BankAccount.class, entry.getAccountId()));
+                operation.setJournalSeq(entry.getJournalSeq());
+                operation.setBalanceAfter(Money.ofMinor(entry.getBalanceAfter()));
+                entityManager.persist(operation);
+                rows.add(operation);
+            }
+            entityManager.flush();
+            entityManager.clear();
+            return rows;
+        });
+
+        for (int i = 0; i < batch.size(); i++) {
+            LedgerEntry entry = batch.get(i);
+            dirtyBalances.put(entry.getAccountId(), entry.getBalanceAfter());
+            dirtyWatermarks.merge(entry.getAccountId(), operations.get(i).getId(), Math::max);
+            if (entry.isActivity()) {
+                dirtyActivity.merge(entry.getAccountId(), entry.getOperationDate(),
+                        (previous, date) -> date.after(previous) ? date : previous);
+            }
+            operationAnalyticsService.recorded(operations.get(i).getId(), entry.getAccountId(), entry.getOperationType(),
+                    entry.getAmount(), entry.getOperationDate());
+            if (entry.getOperationType() == Operation_type.DEBIT) {
+                dashboardCounters.debited(entry.getAmount(), entry.getOperationDate());
+            } else {
+                dashboardCounters.credited(entry.getAmount(), entry.getOperationDate());
+            }
+            entry.getPersisted().complete(null);
+        }
+    }
+
+    private void checkpointWithRetry() {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                checkpoint();
+                lastCheckpoint = System.currentTimeMillis();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Failed to checkpoint {} ledger balances (attempt {})", dirtyBalances.size(), attempt, e);
+                if (!running && attempt >= SHUTDOWN_ATTEMPTS) {
+                    // Safe to give up: the session stays open and recovery folds the operations in
+                    clean = false;
+                    return;
+                }
+                pause(Math.min(5_000, 100L * attempt));
+            }
+        }
+    }
+
+    private void checkpoint() {
+        if (dirtyBalances.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(dirtyBalances.size());
+        dirtyBalances.forEach((accountId, balance) -> {
+            Date activity = dirtyActivity.get(accountId);
+            rows.add(new Object[]{balance, dirtyWatermarks.get(accountId),
+                    activity != null ? new Timestamp(activity.getTime()) : null, accountId});
+        });
+
+        // Interest credits alone leave last_activity_at alone, so that they do not keep an account from going dormant
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(
+                "UPDATE bank_account SET balance = ?, ledger_watermark = ?, version = version + 1, " +
+                        "last_activity_at = COALESCE(?, last_activity_at) WHERE id_bank_account = ?", rows));
+        dirtyBalances.clear();
+        dirtyWatermarks.clear();
+        dirtyActivity.clear();
+    }
+
+    private static void pause(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
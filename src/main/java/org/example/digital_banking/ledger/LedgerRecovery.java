@@ -0,0 +1,129 @@
+package org.example.digital_banking.ledger;
+
+import org.example.digital_banking.entities.LedgerSession;
+import org.example.digital_banking.enums.Operation_type;
+import org.example.digital_banking.repositories.LedgerSessionRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Crash recovery for the in-memory ledger.
+ * While the ledger runs, balances in bank_account are only checkpointed periodically, each with the
+ * id of the last operation it includes. If a ledger session ended without a final checkpoint, the
+ * operations it persisted after each account's watermark are summed and added to the balances here.
+ * When the operation journal is enabled it is replayed first, restoring the operations that were
+ * acknowledged but never reached the database.
+ * Runs at startup in both modes, before the ledger or the web server accept any mutation.
+ */
+@Component
+public class LedgerRecovery implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerRecovery.class);
+
+    private final LedgerSessionRepo ledgerSessionRepo;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectProvider<JournalReplayer> journalReplayer;
+    private volatile boolean running;
+    private Long currentSessionId;
+
+    public LedgerRecovery(LedgerSessionRepo ledgerSessionRepo,
+                          JdbcTemplate jdbcTemplate,
+                          TransactionTemplate transactionTemplate,
+                          ObjectProvider<JournalReplayer> journalReplayer) {
+        this.ledgerSessionRepo = ledgerSessionRepo;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.journalReplayer = journalReplayer;
+    }
+
+    /**
+     * Fold the operations of every unclosed ledger session into the balances, then close those sessions
+     */
+    public synchronized void recover() {
+        List<LedgerSession> open = ledgerSessionRepo.findByClosedAtIsNull();
+        open.removeIf(session -> session.getId().equals(currentSessionId));
+        if (open.isEmpty()) {
+            return;
+        }
+
+        // Replayed accounts get a watermark covering all their operations, so the sums below skip them
+        journalReplayer.ifAvailable(JournalReplayer::replay);
+
+        Date since = open.stream()
+                .map(LedgerSession::getStartedAt)
+                .min(Comparator.naturalOrder())
+                .orElseThrow();
+
+        int recovered = transactionTemplate.execute(status -> {
+            List<Object[]> deltas = jdbcTemplate.query(
+                    "SELECT o.id_bank_account, " +
+                            "SUM(CASE WHEN o.operation_type = ? THEN o.amount ELSE -o.amount END), MAX(o.id) " +
+                            "FROM operation o JOIN bank_account a ON a.id_bank_account = o.id_bank_account " +
+                            "WHERE o.operation_date >= ? AND o.id > COALESCE(a.ledger_watermark, 0) " +
+                            "GROUP BY o.id_bank_account",
+                    (rs, rowNum) -> new Object[]{rs.getLong(2), rs.getLong(3), rs.getLong(1)},
+                    Operation_type.CREDIT.ordinal(), since);
+
+            jdbcTemplate.batchUpdate(
+                    "UPDATE bank_account SET balance = balance + ?, ledger_watermark = ?, version = version + 1 " +
+                            "WHERE id_bank_account = ?", deltas);
+
+            Date now = new Date();
+            open.forEach(session -> session.setClosedAt(now));
+            ledgerSessionRepo.saveAll(open);
+            return deltas.size();
+        });
+
+        log.warn("Recovered balances of {} accounts from {} unclosed ledger session(s)", recovered, open.size());
+    }
+
+    /**
+     * Record the start of a ledger run; it stays open until a clean shutdown
+     */
+    public synchronized void openSession() {
+        currentSessionId = ledgerSessionRepo.save(new LedgerSession(null, new Date(), null)).getId();
+    }
+
+    public synchronized void closeSession() {
+        if (currentSessionId == null) {
+            return;
+        }
+        ledgerSessionRepo.findById(currentSessionId).ifPresent(session -> {
+            session.setClosedAt(new Date());
+            ledgerSessionRepo.save(session);
+        });
+        currentSessionId = null;
+    }
+
+    @Override
+    public void start() {
+        recover();
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // Ahead of the ledger engine and the web server
+        return SmartLifecycle.DEFAULT_PHASE - 8192;
+    }
+}
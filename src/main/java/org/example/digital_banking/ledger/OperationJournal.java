@@ -0,0 +1,309 @@
+package org.example.digital_banking.ledger;
+
+import org.example.digital_banking.exceptions.LedgerUnavailableException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Append-only, memory-mapped write-ahead journal of the in-memory ledger.
+ * Every accepted entry is written as a fixed-size record (see {@link JournalFormat}) before the
+ * shard applies it; a sync thread fsyncs the mapped segment every few milliseconds and completes
+ * the entries' journaled futures, so one fsync acknowledges every entry appended since the last
+ * one. Periodic balance snapshots let segments whose operations are all persisted be deleted.
+ * A failed fsync stops the journal: the records it did not cover are invalidated (best effort) so
+ * that a replay does not restore entries the ledger refused, and every later append is rejected
+ * until the application is restarted.
+ * After a crash {@link JournalReplayer} restores what the database is missing.
+ */
+@Component
+@ConditionalOnExpression("'${banking.ledger.mode:jpa}' == 'in-memory' and ${banking.journal.enabled:false}")
+public class OperationJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(OperationJournal.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Path dir;
+    private final int segmentRecords;
+    private final long syncIntervalMillis;
+
+    private final Object appendLock = new Object();
+    // Guarded by appendLock
+    private Segment current;
+    private long nextSeq;
+    private List<CompletableFuture<Void>> unsynced = new ArrayList<>();
+    // Seq of the first record not covered by an fsync yet
+    private long unsyncedFrom;
+    private boolean failed;
+
+    // Full segments, oldest first
+    private final Deque<Segment> sealed = new ConcurrentLinkedDeque<>();
+    private volatile boolean running;
+    private Thread syncThread;
+
+    public OperationJournal(JdbcTemplate jdbcTemplate,
+                            @Value("${banking.journal.dir:data/journal}") String dir,
+                            @Value("${banking.journal.segment-records:1048576}") int segmentRecords,
+                            @Value("${banking.journal.sync-interval-ms:2}") long syncIntervalMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dir = Paths.get(dir);
+        this.segmentRecords = segmentRecords;
+        this.syncIntervalMillis = syncIntervalMillis;
+    }
+
+    /**
+     * Start a fresh journal. Called once recovery has replayed any previous journal into the
+     * database, so existing files are obsolete; numbering continues after the last replayed seq.
+     */
+    void open() {
+        try {
+            Files.createDirectories(dir);
+            for (Path path : JournalFormat.segments(dir)) {
+                Files.delete(path);
+            }
+            for (Path path : JournalFormat.snapshots(dir)) {
+                Files.delete(path);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot initialise journal directory " + dir, e);
+        }
+        Long lastSeq = jdbcTemplate.queryForObject("SELECT MAX(journal_seq) FROM operation", Long.class);
+        synchronized (appendLock) {
+            nextSeq = (lastSeq != null ? lastSeq : 0) + 1;
+            unsyncedFrom = nextSeq;
+            current = null;
+            failed = false;
+        }
+        running = true;
+        syncThread = new Thread(this::syncLoop, "ledger-journal-sync");
+        syncThread.start();
+        log.info("Operation journal opened in {} at seq {}", dir.toAbsolutePath(), nextSeq);
+    }
+
+    /**
+     * Stop syncing; on a clean ledger shutdown everything is in the database and the files are removed
+     */
+    void close(boolean clean) {
+        running = false;
+        if (syncThread != null) {
+            try {
+                syncThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        if (!clean) {
+            return;
+        }
+        try {
+            for (Path path : JournalFormat.segments(dir)) {
+                Files.delete(path);
+            }
+            for (Path path : JournalFormat.snapshots(dir)) {
+                Files.delete(path);
+            }
+        } catch (IOException e) {
+            log.warn("Could not remove journal files from {}", dir, e);
+        }
+    }
+
+    /**
+     * Journal an accepted ledger entry; its journaled future completes after the next fsync
+     */
+    void append(LedgerEntry entry) {
+        int type = entry.getOperationType().ordinal();
+        Segment segment = append(entry.getAccountId(), type, entry.getAmount(),
+                entry.getOperationDate().getTime(), entry.getBalanceAfter(), entry.getJournaled(), entry);
+        entry.getPersisted().thenRun(segment.unpersisted::decrementAndGet);
+    }
+
+    /**
+     * Journal a balance change made outside the ledger (admin update) or the removal of an account
+     */
+    CompletableFuture<Void> appendMarker(long accountId, boolean removed, long balance) {
+        CompletableFuture<Void> journaled = new CompletableFuture<>();
+        append(accountId, removed ? JournalFormat.TYPE_REMOVED : JournalFormat.TYPE_RESET, 0,
+                System.currentTimeMillis(), balance, journaled, null);
+        return journaled;
+    }
+
+    /**
+     * Sequence number the next record will get; every record below it has been appended
+     */
+    long nextSeq() {
+        synchronized (appendLock) {
+            return nextSeq;
+        }
+    }
+
+    /**
+     * Store a snapshot of the ledger balances covering every record below coveredSeq, then drop
+     * the segments and older snapshots it makes redundant
+     */
+    void writeSnapshot(long coveredSeq, Collection<JournalFormat.SnapshotEntry> entries) {
+        try {
+            Path written = JournalFormat.writeSnapshot(dir,
+                    new JournalFormat.Snapshot(coveredSeq, new ArrayList<>(entries)));
+            for (Path path : JournalFormat.snapshots(dir)) {
+                if (!path.equals(written)) {
+                    Files.delete(path);
+                }
+            }
+            // Stop at the first segment still waiting for the database; later ones are newer anyway
+            Segment oldest;
+            while ((oldest = sealed.peekFirst()) != null
+                    && oldest.firstSeq + segmentRecords <= coveredSeq
+                    && oldest.unpersisted.get() == 0) {
+                sealed.pollFirst();
+                Files.deleteIfExists(oldest.path);
+            }
+        } catch (IOException e) {
+            log.error("Failed to write journal snapshot at seq {}", coveredSeq, e);
+        }
+    }
+
+    private Segment append(long accountId, int type, long amount, long timestamp, long balanceAfter,
+                           CompletableFuture<Void> journaled, LedgerEntry entry) {
+        if (!running) {
+            throw new LedgerUnavailableException("Journal is not open");
+        }
+        synchronized (appendLock) {
+            if (failed) {
+                throw new LedgerUnavailableException("Journal is unavailable after a failed fsync");
+            }
+            long seq = nextSeq;
+            if (current == null || seq - current.firstSeq >= segmentRecords) {
+                roll(seq);
+            }
+            JournalFormat.write(current.buffer, (int) ((seq - current.firstSeq) * JournalFormat.RECORD_SIZE),
+                    new JournalFormat.Record(seq, accountId, type, amount, timestamp, balanceAfter));
+            nextSeq = seq + 1;
+            if (entry != null) {
+                entry.setJournalSeq(seq);
+                // The segment can be dropped once all of its operations have reached the database
+                current.unpersisted.incrementAndGet();
+            }
+            unsynced.add(journaled);
+            return current;
+        }
+    }
+
+    // Called with appendLock held
+    private void roll(long firstSeq) {
+        try {
+            if (current != null) {
+                current.buffer.force();
+                sealed.addLast(current);
+            }
+            Path path = JournalFormat.segmentPath(dir, firstSeq);
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                current = new Segment(firstSeq, path,
+                        channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) segmentRecords * JournalFormat.RECORD_SIZE));
+            }
+        } catch (IOException e) {
+            throw new LedgerUnavailableException("Cannot write to the operation journal: " + e.getMessage());
+        }
+    }
+
+    private void syncLoop() {
+        while (true) {
+            boolean stopping = !running;
+            List<CompletableFuture<Void>> batch;
+            long batchFrom;
+            Segment segment;
+            synchronized (appendLock) {
+                batch = unsynced;
+                batchFrom = unsyncedFrom;
+                unsynced = new ArrayList<>();
+                unsyncedFrom = nextSeq;
+                segment = current;
+            }
+            if (!batch.isEmpty()) {
+                try {
+                    // Earlier segments were forced when they were sealed
+                    segment.buffer.force();
+                    batch.forEach(journaled -> journaled.complete(null));
+                } catch (UncheckedIOException e) {
+                    log.error("Journal fsync failed, no more entries are accepted until restart", e);
+                    synchronized (appendLock) {
+                        failed = true;
+                        // Records appended during the fsync are refused as well
+                        batch.addAll(unsynced);
+                        unsynced = new ArrayList<>();
+                        invalidate(batchFrom, nextSeq);
+                    }
+                    batch.forEach(journaled -> journaled.completeExceptionally(
+                            new LedgerUnavailableException("Journal fsync failed")));
+                }
+            }
+            if (stopping) {
+                return;
+            }
+            try {
+                Thread.sleep(syncIntervalMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Blank the seq of the records in [from, to) so that a replay stops before them; called with
+     * appendLock held once an fsync has failed, so the blanks may not reach the disk either
+     */
+    private void invalidate(long from, long to) {
+        List<Segment> segments = new ArrayList<>(sealed);
+        if (current != null) {
+            segments.add(current);
+        }
+        for (Segment segment : segments) {
+            long first = Math.max(from, segment.firstSeq);
+            long last = Math.min(to, segment.firstSeq + segmentRecords);
+            for (long seq = first; seq < last; seq++) {
+                segment.buffer.putLong((int) ((seq - segment.firstSeq) * JournalFormat.RECORD_SIZE), 0L);
+            }
+            if (first < last) {
+                try {
+                    segment.buffer.force();
+                } catch (UncheckedIOException e) {
+                    log.error("Could not invalidate journal records {} to {} in {}", first, last - 1, segment.path, e);
+                }
+            }
+        }
+    }
+
+    private static final class Segment {
+        final long firstSeq;
+        final Path path;
+        final MappedByteBuffer buffer;
+        final AtomicInteger unpersisted = new AtomicInteger();
+
+        Segment(long firstSeq, Path path, MappedByteBuffer buffer) {
+            this.firstSeq = firstSeq;
+            this.path = path;
+            this.buffer = buffer;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package org.example.digital_banking.repositories;
+
+/**
+ * Totals over all bank accounts, aggregated by the database
+ */
+public interface AccountTotals {
+    long getAccounts();
+
+    long getActive();
+
+    // Accounts created after the given date
+    long getCreated();
+
+    // Minor units, slots of hot accounts included
+    long getBalance();
+}
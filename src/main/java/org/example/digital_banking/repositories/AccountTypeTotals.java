@@ -0,0 +1,13 @@
+package org.example.digital_banking.repositories;
+
+/**
+ * Account count and balance per account type (discriminator SAV or CUR)
+ */
+public interface AccountTypeTotals {
+    String getType();
+
+    long getAccounts();
+
+    // Minor units, slots of hot accounts included
+    long getBalance();
+}
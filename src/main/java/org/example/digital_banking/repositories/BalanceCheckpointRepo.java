@@ -0,0 +1,25 @@
+package org.example.digital_banking.repositories;
+
+import org.example.digital_banking.entities.BalanceCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Date;
+import java.util.Optional;
+
+@Repository
+public interface BalanceCheckpointRepo extends JpaRepository<BalanceCheckpoint, Long> {
+
+    // Latest checkpoint at or before a date
+    Optional<BalanceCheckpoint> findFirstByAccountIdAndAsOfLessThanEqualOrderByAsOfDesc(Long accountId, Date asOf);
+
+    // Earliest checkpoint after a date
+    Optional<BalanceCheckpoint> findFirstByAccountIdAndAsOfGreaterThanOrderByAsOfAsc(Long accountId, Date asOf);
+
+    @Modifying
+    @Query("DELETE FROM BalanceCheckpoint c WHERE c.accountId = :accountId")
+    void deleteByAccountId(@Param("accountId") Long accountId);
+}
@@ -0,0 +1,42 @@
+package org.example.digital_banking.repositories;
+
+import jakarta.persistence.LockModeType;
+import org.example.digital_banking.entities.BalanceSlot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface BalanceSlotRepo extends JpaRepository<BalanceSlot, Long> {
+
+    /**
+     * @return 1 if the slot was credited, 0 if it does not exist
+     */
+    @Modifying
+    @Query(value = "UPDATE balance_slot SET balance = balance + :amount WHERE account_id = :id AND slot = :slot",
+            nativeQuery = true)
+    int credit(@Param("id") Long accountId, @Param("slot") int slot, @Param("amount") long minorUnits);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM BalanceSlot s WHERE s.accountId = :accountId")
+    List<BalanceSlot> lockByAccountId(@Param("accountId") Long accountId);
+
+    // Rows of [account id, slot count]
+    @Query(value = "SELECT account_id, COUNT(*) FROM balance_slot GROUP BY account_id", nativeQuery = true)
+    List<Object[]> countSlotsByAccount();
+
+    // Rows of [account id, sum of slot balances in minor units]
+    @Query(value = "SELECT account_id, SUM(balance) FROM balance_slot WHERE account_id IN (:ids) GROUP BY account_id",
+            nativeQuery = true)
+    List<Object[]> sumByAccountIds(@Param("ids") Collection<Long> accountIds);
+
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM BalanceSlot s WHERE s.accountId = :accountId")
+    void deleteByAccountId(@Param("accountId") Long accountId);
+}
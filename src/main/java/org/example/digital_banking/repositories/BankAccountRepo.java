@@ -1,19 +1,141 @@
 package org.example.digital_banking.repositories;
 
 import org.example.digital_banking.entities.BankAccount;
+import org.example.digital_banking.enums.AccountStatus;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface BankAccountRepo extends JpaRepository<BankAccount, Long> {
+    @EntityGraph("BankAccount.customer")
     @Query("SELECT a FROM BankAccount a WHERE a.customer.customer_id = :customerId")
     List<BankAccount> findAccountsByCustomerId(@Param("customerId") Long customerId);
 
+    /**
+     * All accounts with their owner, in one select (the association itself is lazy)
+     */
+    @EntityGraph("BankAccount.customer")
+    @Query("SELECT a FROM BankAccount a")
+    List<BankAccount> findAllWithCustomer();
 
+    @EntityGraph("BankAccount.customer")
+    @Query("SELECT a FROM BankAccount a WHERE a.idBankAccount = :id")
+    Optional<BankAccount> findWithCustomerById(@Param("id") Long id);
+
+    /**
+     * Dashboard totals in one aggregate statement
+     *
+     * @param activeOrdinal Ordinal of AccountStatus.ACTIVE
+     */
+    @Query(value = "SELECT COUNT(*) AS accounts, " +
+            "COALESCE(SUM(CASE WHEN a.status = :active THEN 1 ELSE 0 END), 0) AS active, " +
+            "COALESCE(SUM(CASE WHEN a.created_at > :createdAfter THEN 1 ELSE 0 END), 0) AS created, " +
+            "COALESCE(SUM(a.balance), 0) + (SELECT COALESCE(SUM(s.balance), 0) FROM balance_slot s) AS balance " +
+            "FROM bank_account a",
+            nativeQuery = true)
+    AccountTotals aggregateTotals(@Param("active") int activeOrdinal, @Param("createdAfter") Date createdAfter);
+
+    /**
+     * Count and balance per account type, for the accounts created in (start, end) or without a creation date
+     */
+    @Query(value = "SELECT a.type AS type, COUNT(*) AS accounts, " +
+            "COALESCE(SUM(a.balance), 0) + COALESCE(SUM(s.total), 0) AS balance " +
+            "FROM bank_account a LEFT JOIN (SELECT account_id, SUM(balance) AS total FROM balance_slot " +
+            "GROUP BY account_id) s ON s.account_id = a.id_bank_account " +
+            "WHERE a.created_at IS NULL OR (a.created_at > :start AND a.created_at < :end) " +
+            "GROUP BY a.type ORDER BY a.type",
+            nativeQuery = true)
+    List<AccountTypeTotals> aggregateByType(@Param("start") Date start, @Param("end") Date end);
+
+    /**
+     * Accounts created after a date, per day of creation (in the database session time zone)
+     */
+    @Query(value = "SELECT CAST(created_at AS DATE) AS createdDay, COUNT(*) AS accounts FROM bank_account " +
+            "WHERE created_at > :after GROUP BY CAST(created_at AS DATE)",
+            nativeQuery = true)
+    List<DailyAccountCount> countCreatedByDay(@Param("after") Date after);
+
+    /**
+     * Debit an account in a single guarded statement.
+     * The balance check (including the overdraft of current accounts; saving accounts have no
+     * overdraft column value) and the decrement happen atomically under the row lock, and the
+     * version is bumped so that concurrent optimistic writers notice the change.
+     *
+     * @return 1 if the account was debited, 0 if it does not exist or the funds are insufficient
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE bank_account SET balance = balance - :amount, version = version + 1, " +
+            "last_activity_at = CURRENT_TIMESTAMP " +
+            "WHERE id_bank_account = :id AND balance + COALESCE(overdraft, 0) >= :amount",
+            nativeQuery = true)
+    int debitIfSufficient(@Param("id") Long id, @Param("amount") long minorUnits);
+
+    /**
+     * Stored balance in minor units; for a row this transaction has just updated, the value it wrote
+     */
+    @Query(value = "SELECT balance FROM bank_account WHERE id_bank_account = :id", nativeQuery = true)
+    long findBalanceById(@Param("id") Long id);
+
+    /**
+     * Add an amount (in minor units) to the stored balance without reading the account
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE bank_account SET balance = balance + :amount, version = version + 1 " +
+            "WHERE id_bank_account = :id",
+            nativeQuery = true)
+    int addToBalance(@Param("id") Long id, @Param("amount") long minorUnits);
+
+    /**
+     * Set the status of a chunk of accounts, optionally only those currently in a given status
+     *
+     * @return Number of accounts changed
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE BankAccount a SET a.status = :status, a.version = a.version + 1 " +
+            "WHERE a.idBankAccount IN :ids AND a.status <> :status " +
+            "AND (:fromStatus IS NULL OR a.status = :fromStatus)")
+    int updateStatus(@Param("ids") Collection<Long> ids,
+                     @Param("status") AccountStatus status,
+                     @Param("fromStatus") AccountStatus fromStatus);
+
+    /**
+     * Mark up to :limit active accounts without activity since :cutoff as dormant, oldest first.
+     * Walks idx_bank_account_status_activity; accounts with sub-balance slots are skipped because
+     * their slot credits do not touch bank_account.
+     *
+     * @return Number of accounts marked, less than limit once the sweep is done
+     */
+    @Modifying
+    @Query(value = "UPDATE bank_account SET status = :dormant, version = version + 1 " +
+            "WHERE status = :active AND last_activity_at < :cutoff " +
+            "AND NOT EXISTS (SELECT 1 FROM balance_slot s WHERE s.account_id = bank_account.id_bank_account) " +
+            "ORDER BY last_activity_at LIMIT :limit",
+            nativeQuery = true)
+    int markDormant(@Param("active") int activeOrdinal, @Param("dormant") int dormantOrdinal,
+                    @Param("cutoff") Date cutoff, @Param("limit") int limit);
+
+    /**
+     * Initialise last_activity_at of up to :limit accounts that predate the column, from their latest
+     * operation (or their creation date)
+     *
+     * @return Number of accounts initialised
+     */
+    @Modifying
+    @Query(value = "UPDATE bank_account SET last_activity_at = COALESCE(" +
+            "(SELECT MAX(o.operation_date) FROM operation o WHERE o.id_bank_account = bank_account.id_bank_account), " +
+            "created_at, CURRENT_TIMESTAMP) " +
+            "WHERE last_activity_at IS NULL LIMIT :limit",
+            nativeQuery = true)
+    int initLastActivity(@Param("limit") int limit);
 
     // You can add custom queries here if needed
 }
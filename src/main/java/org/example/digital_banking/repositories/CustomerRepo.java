@@ -4,7 +4,12 @@ import org.example.digital_banking.entities.Customer;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface CustomerRepo extends JpaRepository<Customer, Long> {
     Customer findByEmail(String email);
+
+    List<Customer> findByEmailIn(Collection<String> emails);
 }
@@ -0,0 +1,12 @@
+package org.example.digital_banking.repositories;
+
+import java.time.LocalDate;
+
+/**
+ * Number of accounts created on one day
+ */
+public interface DailyAccountCount {
+    LocalDate getCreatedDay();
+
+    long getAccounts();
+}
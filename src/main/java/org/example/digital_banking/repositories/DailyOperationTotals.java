@@ -0,0 +1,16 @@
+package org.example.digital_banking.repositories;
+
+import java.time.LocalDate;
+
+/**
+ * Sums of the operations of one day, in minor units, and their number
+ */
+public interface DailyOperationTotals {
+    LocalDate getOperationDay();
+
+    long getCredits();
+
+    long getDebits();
+
+    long getOperations();
+}
@@ -0,0 +1,58 @@
+package org.example.digital_banking.repositories;
+
+import org.example.digital_banking.entities.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
+
+@Repository
+public interface IdempotencyRecordRepo extends JpaRepository<IdempotencyRecord, String> {
+
+    /**
+     * Reserve a key for a request about to run (status 0); a plain INSERT, so that two instances
+     * racing on the same key cannot both succeed
+     *
+     * @throws org.springframework.dao.DataIntegrityViolationException if the key is already recorded
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO idempotency_key (scoped_key, caller, endpoint, request_digest, status_code, " +
+            "created_at, expires_at) VALUES (:key, :caller, :endpoint, :digest, 0, :now, :expiresAt)",
+            nativeQuery = true)
+    void reserve(@Param("key") String scopedKey, @Param("caller") String caller, @Param("endpoint") String endpoint,
+                 @Param("digest") String requestDigest, @Param("now") Date now, @Param("expiresAt") Date expiresAt);
+
+    /**
+     * Record the response of a reserved key
+     *
+     * @return 1 if the reservation was completed, 0 if it no longer exists
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE IdempotencyRecord r SET r.statusCode = :status, r.expiresAt = :expiresAt " +
+            "WHERE r.scopedKey = :key AND r.statusCode = 0")
+    int complete(@Param("key") String scopedKey, @Param("status") int statusCode, @Param("expiresAt") Date expiresAt);
+
+    // Drop the reservation of a request that failed, so that the client can retry it
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.scopedKey = :key AND r.statusCode = 0")
+    int release(@Param("key") String scopedKey);
+
+    // Drop one key if its TTL has elapsed (an expired key is free to be reserved again)
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.scopedKey = :key AND r.expiresAt <= :now")
+    int deleteExpired(@Param("key") String scopedKey, @Param("now") Date now);
+
+    // Delete all records whose TTL has elapsed
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") Date now);
+}
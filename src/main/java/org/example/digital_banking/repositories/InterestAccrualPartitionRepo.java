@@ -0,0 +1,40 @@
+package org.example.digital_banking.repositories;
+
+import org.example.digital_banking.entities.InterestAccrualPartition;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.List;
+
+@Repository
+public interface InterestAccrualPartitionRepo extends JpaRepository<InterestAccrualPartition, Long> {
+
+    boolean existsByAccrualDate(LocalDate accrualDate);
+
+    List<InterestAccrualPartition> findByAccrualDateAndCompletedFalseOrderByFirstId(LocalDate accrualDate);
+
+    @Query("SELECT DISTINCT p.accrualDate FROM InterestAccrualPartition p WHERE p.completed = false ORDER BY p.accrualDate")
+    List<LocalDate> findUnfinishedDates();
+
+    /**
+     * Move the cursor of a partition, only if nobody else moved it since it was read
+     *
+     * @return 1 if the cursor moved, 0 if another worker got there first
+     */
+    @Modifying
+    @Query(value = "UPDATE interest_accrual_partition SET cursor_id = :next, " +
+            "accounts_credited = accounts_credited + :accounts, interest_credited = interest_credited + :interest " +
+            "WHERE id = :id AND cursor_id = :expected",
+            nativeQuery = true)
+    int advance(@Param("id") Long id, @Param("expected") long expectedCursor, @Param("next") long nextCursor,
+                @Param("accounts") long accounts, @Param("interest") long interestMinorUnits);
+
+    @Modifying
+    @Query("UPDATE InterestAccrualPartition p SET p.completed = true, p.completedAt = :now WHERE p.id = :id")
+    int complete(@Param("id") Long id, @Param("now") Date now);
+}
@@ -0,0 +1,12 @@
+package org.example.digital_banking.repositories;
+
+import org.example.digital_banking.entities.LedgerSession;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface LedgerSessionRepo extends JpaRepository<LedgerSession, Long> {
+    List<LedgerSession> findByClosedAtIsNull();
+}
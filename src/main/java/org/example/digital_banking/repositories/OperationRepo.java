@@ -2,12 +2,15 @@ package org.example.digital_banking.repositories;
 
 import org.example.digital_banking.entities.BankAccount;
 import org.example.digital_banking.entities.Operation;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Date;
 import java.util.List;
 
 @Repository
@@ -22,6 +25,64 @@ public interface OperationRepo extends JpaRepository<Operation, Long> {
 
 
 
+    // Newest operations of an account (first page of the keyset-paginated history)
+    @Query("SELECT o FROM Operation o WHERE o.bankAccount.idBankAccount = :accountId " +
+            "ORDER BY o.operationDate DESC, o.id DESC")
+    List<Operation> findLatestByAccountId(@Param("accountId") Long accountId, Pageable pageable);
+
+    // Operations older than the (date, id) cursor, newest first; walks idx_operation_account_date_id
+    @Query("SELECT o FROM Operation o WHERE o.bankAccount.idBankAccount = :accountId " +
+            "AND (o.operationDate < :date OR (o.operationDate = :date AND o.id < :id)) " +
+            "ORDER BY o.operationDate DESC, o.id DESC")
+    List<Operation> findByAccountIdBefore(@Param("accountId") Long accountId,
+                                          @Param("date") Date date,
+                                          @Param("id") Long id,
+                                          Pageable pageable);
+
+    /**
+     * Credits, debits and recent operations of (start, end), read from idx_operation_date_type_amount only
+     *
+     * @param credit Ordinal of Operation_type.CREDIT
+     * @param debit  Ordinal of Operation_type.DEBIT
+     */
+    @Query(value = "SELECT COALESCE(SUM(CASE WHEN operation_type = :credit THEN amount ELSE 0 END), 0) AS credits, " +
+            "COALESCE(SUM(CASE WHEN operation_type = :debit THEN amount ELSE 0 END), 0) AS debits, " +
+            "COALESCE(SUM(CASE WHEN operation_date > :recentAfter THEN 1 ELSE 0 END), 0) AS recent " +
+            "FROM operation WHERE operation_date > :start AND operation_date < :end",
+            nativeQuery = true)
+    OperationTotals aggregateTotals(@Param("credit") int credit, @Param("debit") int debit,
+                                    @Param("start") Date start, @Param("end") Date end,
+                                    @Param("recentAfter") Date recentAfter);
+
+    /**
+     * Credits and debits of (start, end) per day (in the database session time zone), oldest first
+     */
+    @Query(value = "SELECT CAST(operation_date AS DATE) AS operationDay, " +
+            "COALESCE(SUM(CASE WHEN operation_type = :credit THEN amount ELSE 0 END), 0) AS credits, " +
+            "COALESCE(SUM(CASE WHEN operation_type = :debit THEN amount ELSE 0 END), 0) AS debits, " +
+            "COUNT(*) AS operations " +
+            "FROM operation WHERE operation_date > :start AND operation_date < :end " +
+            "GROUP BY CAST(operation_date AS DATE) ORDER BY operationDay",
+            nativeQuery = true)
+    List<DailyOperationTotals> aggregateByDay(@Param("credit") int credit, @Param("debit") int debit,
+                                              @Param("start") Date start, @Param("end") Date end);
+
+    /**
+     * Credits and debits of one account per day, over its whole history (a range of idx_operation_account_date_id)
+     */
+    @Query(value = "SELECT CAST(operation_date AS DATE) AS operationDay, " +
+            "COALESCE(SUM(CASE WHEN operation_type = :credit THEN amount ELSE 0 END), 0) AS credits, " +
+            "COALESCE(SUM(CASE WHEN operation_type = :debit THEN amount ELSE 0 END), 0) AS debits, " +
+            "COUNT(*) AS operations " +
+            "FROM operation WHERE id_bank_account = :accountId " +
+            "GROUP BY CAST(operation_date AS DATE)",
+            nativeQuery = true)
+    List<DailyOperationTotals> aggregateAccountByDay(@Param("accountId") Long accountId,
+                                                     @Param("credit") int credit, @Param("debit") int debit);
+
+    @Query("SELECT COUNT(o) FROM Operation o WHERE o.bankAccount.idBankAccount = :accountId")
+    long countByAccountId(@Param("accountId") Long accountId);
+
     // Delete all operations by bank account ID
     @Modifying
     @Transactional
@@ -0,0 +1,51 @@
+package org.example.digital_banking.repositories;
+
+import org.example.digital_banking.entities.OperationRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.List;
+
+@Repository
+public interface OperationRollupRepo extends JpaRepository<OperationRollup, Long> {
+
+    /**
+     * Credits and debits per day of [from, to), oldest first, summed over the account types
+     *
+     * @param credit Ordinal of Operation_type.CREDIT
+     * @param debit  Ordinal of Operation_type.DEBIT
+     */
+    @Query(value = "SELECT rollup_day AS operationDay, " +
+            "COALESCE(SUM(CASE WHEN operation_type = :credit THEN amount ELSE 0 END), 0) AS credits, " +
+            "COALESCE(SUM(CASE WHEN operation_type = :debit THEN amount ELSE 0 END), 0) AS debits, " +
+            "COALESCE(SUM(operations), 0) AS operations " +
+            "FROM operation_rollup WHERE rollup_day >= :from AND rollup_day < :to " +
+            "GROUP BY rollup_day ORDER BY rollup_day",
+            nativeQuery = true)
+    List<DailyOperationTotals> sumByDay(@Param("credit") int credit, @Param("debit") int debit,
+                                        @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("SELECT MAX(r.day) FROM OperationRollup r WHERE r.day < :before")
+    LocalDate findLastDayBefore(@Param("before") LocalDate before);
+
+    @Modifying
+    @Query("DELETE FROM OperationRollup r WHERE r.day >= :from AND r.day < :to")
+    int deleteDays(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /**
+     * Roll up the operations dated in [from, to), which must be day boundaries
+     */
+    @Modifying
+    @Query(value = "INSERT INTO operation_rollup (rollup_day, account_type, operation_type, operations, amount) " +
+            "SELECT CAST(o.operation_date AS DATE), a.type, o.operation_type, COUNT(*), SUM(o.amount) " +
+            "FROM operation o JOIN bank_account a ON a.id_bank_account = o.id_bank_account " +
+            "WHERE o.operation_date >= :from AND o.operation_date < :to " +
+            "GROUP BY CAST(o.operation_date AS DATE), a.type, o.operation_type",
+            nativeQuery = true)
+    int insertDays(@Param("from") Date from, @Param("to") Date to);
+}
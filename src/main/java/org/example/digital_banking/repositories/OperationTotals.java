@@ -0,0 +1,13 @@
+package org.example.digital_banking.repositories;
+
+/**
+ * Sums of the operations of a date range, in minor units
+ */
+public interface OperationTotals {
+    long getCredits();
+
+    long getDebits();
+
+    // Operations after the given date
+    long getRecent();
+}
@@ -1,6 +1,7 @@
 package org.example.digital_banking.repositories.security;
 
 import org.example.digital_banking.entities.security.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -8,7 +9,11 @@ import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
+    // Roles are lazy: authentication needs them, and the customer profile (inverse side, always
+    // loaded) comes in the same select
+    @EntityGraph(attributePaths = {"roles", "customer"})
     Optional<User> findByUsername(String username);
+    @EntityGraph(attributePaths = {"roles", "customer"})
     Optional<User> findByEmail(String email);
     boolean existsByUsername(String username);
     boolean existsByEmail(String email);
@@ -0,0 +1,234 @@
+package org.example.digital_banking.search;
+
+import java.text.Normalizer;
+import java.util.*;
+
+/**
+ * Trigram index over customer name, email, phone and city.
+ * Text is folded (lower case, accents dropped, anything but letters and digits separates words;
+ * phone numbers keep their digits only) and every word is indexed as the trigrams of " word ".
+ * Query words contribute the trigrams of " word", so a query matches word prefixes as well as
+ * inner fragments. A document's score is the share of the query trigrams it contains.
+ * <p>
+ * Documents live in slots numbered in insertion order, which keeps every posting list sorted.
+ * Removing a document only empties its slot; {@link #garbage()} tells when a rebuild would pay.
+ * Not thread-safe.
+ */
+public final class TrigramIndex {
+
+    public record Document(long id, String name, String email, String phone, String city) {
+    }
+
+    public record Hit(Document document, double score) {
+    }
+
+    private final Map<Long, Postings> postings = new HashMap<>();
+    private final List<Document> documents = new ArrayList<>();
+    private final Map<Long, Integer> slots = new HashMap<>();
+
+    /**
+     * Add a document, replacing the one with the same id
+     */
+    public void put(Document document) {
+        remove(document.id());
+        int slot = documents.size();
+        documents.add(document);
+        slots.put(document.id(), slot);
+        addWords(fold(document.name()), slot);
+        addWords(fold(document.email()), slot);
+        addWords(digits(document.phone()), slot);
+        addWords(fold(document.city()), slot);
+    }
+
+    public boolean remove(long id) {
+        Integer slot = slots.remove(id);
+        if (slot == null) {
+            return false;
+        }
+        documents.set(slot, null);
+        return true;
+    }
+
+    public int size() {
+        return slots.size();
+    }
+
+    /**
+     * Slots left empty by removals and replacements
+     */
+    public int garbage() {
+        return documents.size() - slots.size();
+    }
+
+    /**
+     * Best matches first: by score, then in index order (customer id order after a build; changed
+     * customers move to the end). Documents are collected one score level at a time, starting with
+     * those holding every query trigram, and the search stops once limit documents are found, so a
+     * query with many good matches reads only the start of its posting lists.
+     *
+     * @param minSimilarity Share of the query trigrams a document must contain (0 to 1)
+     * @param maxCandidates Bound on the slots examined, so that a very unselective query stays cheap
+     *                      (it may then miss some matches)
+     */
+    public List<Hit> search(String query, int limit, double minSimilarity, int maxCandidates) {
+        long[] keys = queryTrigrams(query);
+        if (keys.length == 0) {
+            throw new IllegalArgumentException("The query needs a word of at least 2 letters or digits");
+        }
+        int minRequired = Math.max(1, (int) Math.ceil(keys.length * minSimilarity));
+
+        Postings[] lists = new Postings[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            lists[i] = postings.getOrDefault(keys[i], Postings.EMPTY);
+        }
+        Arrays.sort(lists, Comparator.comparingInt(list -> list.size));
+
+        List<Hit> hits = new ArrayList<>(limit);
+        int[] budget = {maxCandidates};
+        for (int required = keys.length; required >= minRequired && hits.size() < limit && budget[0] > 0; required--) {
+            collectLevel(lists, required, limit, hits, budget);
+        }
+        return hits;
+    }
+
+    /**
+     * Add the documents holding exactly `required` of the trigrams, in slot order.
+     * Such a document is in at least one of the (n - required + 1) shortest lists, so only those
+     * are merged for candidates; every list is probed with a forward-only galloping cursor.
+     */
+    private void collectLevel(Postings[] lists, int required, int limit, List<Hit> hits, int[] budget) {
+        int scanned = lists.length - required + 1;
+        int[] cursors = new int[lists.length];
+        while (hits.size() < limit && budget[0]-- > 0) {
+            int candidate = Integer.MAX_VALUE;
+            for (int i = 0; i < scanned; i++) {
+                if (cursors[i] < lists[i].size) {
+                    candidate = Math.min(candidate, lists[i].slots[cursors[i]]);
+                }
+            }
+            if (candidate == Integer.MAX_VALUE) {
+                return;
+            }
+            int matched = 0;
+            for (int i = 0; i < lists.length; i++) {
+                cursors[i] = lists[i].seek(cursors[i], candidate);
+                if (cursors[i] < lists[i].size && lists[i].slots[cursors[i]] == candidate) {
+                    matched++;
+                    cursors[i]++;
+                }
+            }
+            Document document = documents.get(candidate);
+            if (matched == required && document != null) {
+                hits.add(new Hit(document, (double) matched / lists.length));
+            }
+        }
+    }
+
+    private void addWords(String text, int slot) {
+        if (text.isEmpty()) {
+            return;
+        }
+        for (String word : text.split(" ")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            String padded = " " + word + " ";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                // The slot is the newest one, so a repeated trigram shows up as the last entry
+                postings.computeIfAbsent(key(padded, i), k -> new Postings()).addIfAbsent(slot);
+            }
+        }
+    }
+
+    static long[] queryTrigrams(String query) {
+        Set<Long> keys = new LinkedHashSet<>();
+        for (String word : fold(query).split(" ")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            String padded = " " + word;
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                keys.add(key(padded, i));
+            }
+        }
+        return keys.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static long key(String text, int start) {
+        return ((long) text.charAt(start) << 32) | ((long) text.charAt(start + 1) << 16) | text.charAt(start + 2);
+    }
+
+    static String fold(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder folded = new StringBuilder(decomposed.length());
+        boolean space = true;
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if (Character.isLetterOrDigit(c)) {
+                folded.append(Character.toLowerCase(c));
+                space = false;
+            } else if (!space) {
+                folded.append(' ');
+                space = true;
+            }
+        }
+        return folded.toString().trim();
+    }
+
+    private static String digits(String phone) {
+        if (phone == null) {
+            return "";
+        }
+        StringBuilder digits = new StringBuilder(phone.length());
+        for (int i = 0; i < phone.length(); i++) {
+            if (Character.isDigit(phone.charAt(i))) {
+                digits.append(phone.charAt(i));
+            }
+        }
+        return digits.toString();
+    }
+
+    /**
+     * Sorted slots holding one trigram
+     */
+    private static final class Postings {
+        static final Postings EMPTY = new Postings();
+
+        int[] slots = new int[4];
+        int size;
+
+        void addIfAbsent(int slot) {
+            if (size > 0 && slots[size - 1] == slot) {
+                return;
+            }
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            slots[size++] = slot;
+        }
+
+        /**
+         * Position of the first slot >= target, looking from position `from` on
+         */
+        int seek(int from, int target) {
+            if (from >= size || slots[from] >= target) {
+                return from;
+            }
+            // Gallop to a bound, then binary search the last step
+            int low = from;
+            int step = 1;
+            while (low + step < size && slots[low + step] < target) {
+                low += step;
+                step <<= 1;
+            }
+            int found = Arrays.binarySearch(slots, low + 1, Math.min(low + step + 1, size), target);
+            return found >= 0 ? found : -found - 1;
+        }
+    }
+}
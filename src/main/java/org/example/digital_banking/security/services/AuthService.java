@@ -1,5 +1,6 @@
 package org.example.digital_banking.security.services;
 
+import org.example.digital_banking.dtos.CustomerDTO;
 import org.example.digital_banking.dtos.security.AuthResponse;
 import org.example.digital_banking.dtos.security.LoginRequest;
 import org.example.digital_banking.dtos.security.RegisterRequest;
@@ -10,6 +11,7 @@ import org.example.digital_banking.repositories.CustomerRepo;
 import org.example.digital_banking.repositories.security.RoleRepository;
 import org.example.digital_banking.repositories.security.UserRepository;
 import org.example.digital_banking.security.jwt.JwtUtil;
+import org.example.digital_banking.services.CustomerSearchService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -44,6 +46,9 @@ public class AuthService {
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private CustomerSearchService customerSearchService;
+
     public AuthResponse authenticateUser(LoginRequest loginRequest) {
         Authentication authentication = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(loginRequest.getUsername(), loginRequest.getPassword()));
@@ -104,7 +109,9 @@ public class AuthService {
                 .user(savedUser)
                 .build();
 
-        customerRepository.save(customer);
+        Customer savedCustomer = customerRepository.save(customer);
+        customerSearchService.index(new CustomerDTO(savedCustomer.getCustomer_id(), savedCustomer.getName(),
+                savedCustomer.getEmail(), null, savedCustomer.getPhone(), savedCustomer.getAddress(), savedCustomer.getCity()));
 
         // Generate token and return response
         List<String> roles = savedUser.getRoles().stream()
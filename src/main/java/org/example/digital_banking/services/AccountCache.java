@@ -0,0 +1,164 @@
+package org.example.digital_banking.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.example.digital_banking.dtos.BankAccountDTO;
+import org.example.digital_banking.dtos.CustomerDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Read-through cache of account and customer DTOs (Caffeine: W-TinyLFU admission, bounded size,
+ * expiry after write). Accounts hold the stored balance only; the slots of hot accounts and the
+ * in-memory ledger balance are added on every read, so neither needs an invalidation.
+ * <p>
+ * The accounts of a customer are cached as a list of ids resolved against the account cache,
+ * so a balance change drops one entry. Invalidations requested inside a transaction run after
+ * it commits; a value loaded while an invalidation was in flight is not kept. Callers get copies
+ * and may modify them. Hit, miss and eviction metrics are published as cache.* meters.
+ */
+@Service
+public class AccountCache {
+
+    private final boolean enabled;
+    private final Cache<Long, BankAccountDTO> accounts;
+    private final Cache<Long, CustomerDTO> customers;
+    private final Cache<Long, List<Long>> customerAccountIds;
+    // Bumped by every invalidation, so that a list load that raced with one is not cached
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public AccountCache(MeterRegistry meterRegistry,
+                        @Value("${banking.cache.enabled:true}") boolean enabled,
+                        @Value("${banking.cache.max-accounts:10000}") long maxAccounts,
+                        @Value("${banking.cache.max-customers:10000}") long maxCustomers,
+                        @Value("${banking.cache.ttl-seconds:30}") long ttlSeconds) {
+        this.enabled = enabled;
+        Duration ttl = Duration.ofSeconds(ttlSeconds);
+        this.accounts = Caffeine.newBuilder().maximumSize(maxAccounts).expireAfterWrite(ttl).recordStats().build();
+        this.customers = Caffeine.newBuilder().maximumSize(maxCustomers).expireAfterWrite(ttl).recordStats().build();
+        this.customerAccountIds = Caffeine.newBuilder().maximumSize(maxCustomers).expireAfterWrite(ttl).recordStats().build();
+        CaffeineCacheMetrics.monitor(meterRegistry, accounts, "banking.accounts");
+        CaffeineCacheMetrics.monitor(meterRegistry, customers, "banking.customers");
+        CaffeineCacheMetrics.monitor(meterRegistry, customerAccountIds, "banking.customer-accounts");
+    }
+
+    public BankAccountDTO account(Long id, Function<Long, BankAccountDTO> loader) {
+        if (!enabled) {
+            return loader.apply(id);
+        }
+        return copy(accounts.get(id, loader));
+    }
+
+    public CustomerDTO customer(Long id, Function<Long, CustomerDTO> loader) {
+        if (!enabled) {
+            return loader.apply(id);
+        }
+        return copy(customers.get(id, loader));
+    }
+
+    public List<BankAccountDTO> customerAccounts(Long customerId, Function<Long, List<BankAccountDTO>> loader) {
+        if (!enabled) {
+            return loader.apply(customerId);
+        }
+        List<Long> ids = customerAccountIds.getIfPresent(customerId);
+        if (ids != null) {
+            List<BankAccountDTO> cached = new ArrayList<>(ids.size());
+            for (Long id : ids) {
+                BankAccountDTO account = accounts.getIfPresent(id);
+                if (account == null) {
+                    // Evicted, changed or deleted: reload the whole list in one query
+                    cached = null;
+                    break;
+                }
+                cached.add(copy(account));
+            }
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        long generation = invalidations.get();
+        List<BankAccountDTO> loaded = loader.apply(customerId);
+        List<Long> loadedIds = loaded.stream().map(BankAccountDTO::getId).toList();
+        loaded.forEach(account -> accounts.put(account.getId(), account));
+        customerAccountIds.put(customerId, loadedIds);
+        if (invalidations.get() != generation) {
+            // An invalidation started during the load and may have run before the puts
+            accounts.invalidateAll(loadedIds);
+            customerAccountIds.invalidate(customerId);
+        }
+        List<BankAccountDTO> result = new ArrayList<>(loaded.size());
+        loaded.forEach(account -> result.add(copy(account)));
+        return result;
+    }
+
+    /**
+     * An account's balance, status or settings changed, or it was deleted
+     */
+    public void evictAccounts(Collection<Long> accountIds) {
+        List<Long> ids = List.copyOf(accountIds);
+        afterCommit(() -> accounts.invalidateAll(ids));
+    }
+
+    public void evictAccount(Long accountId) {
+        evictAccounts(List.of(accountId));
+    }
+
+    /**
+     * Accounts were added to (or removed from) a customer
+     */
+    public void evictCustomerAccounts(Collection<Long> customerIds) {
+        List<Long> ids = List.copyOf(customerIds);
+        afterCommit(() -> customerAccountIds.invalidateAll(ids));
+    }
+
+    /**
+     * A customer changed or was deleted; its accounts embed it and go too
+     */
+    public void evictCustomer(Long customerId) {
+        afterCommit(() -> {
+            customers.invalidate(customerId);
+            customerAccountIds.invalidate(customerId);
+            accounts.asMap().values().removeIf(account -> account.getCustomerDTO() != null
+                    && customerId.equals(account.getCustomerDTO().getCustomer_id()));
+        });
+    }
+
+    /**
+     * Drop every account (set-based changes whose accounts are not known one by one)
+     */
+    public void evictAllAccounts() {
+        afterCommit(accounts::invalidateAll);
+    }
+
+    private void afterCommit(Runnable invalidation) {
+        if (!enabled) {
+            return;
+        }
+        Runnable counted = () -> {
+            // Counted first: a list load that misses the count sees the invalidation instead
+            invalidations.incrementAndGet();
+            invalidation.run();
+        };
+        // Invalidating before the commit would let a concurrent read cache the old row again
+        AfterCommit.run(counted);
+    }
+
+    private static BankAccountDTO copy(BankAccountDTO account) {
+        return account.toBuilder().build();
+    }
+
+    private static CustomerDTO copy(CustomerDTO customer) {
+        return new CustomerDTO(customer.getCustomer_id(), customer.getName(), customer.getEmail(),
+                customer.getPassword(), customer.getPhone(), customer.getAddress(), customer.getCity());
+    }
+}
@@ -0,0 +1,111 @@
+package org.example.digital_banking.services;
+
+import org.example.digital_banking.dtos.AccountStatusChangeDTO;
+import org.example.digital_banking.dtos.AccountStatusChangeResultDTO;
+import org.example.digital_banking.enums.AccountStatus;
+import org.example.digital_banking.repositories.BankAccountRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Set-based account status maintenance: the nightly dormancy sweep and admin bulk status changes.
+ * Both work in chunks, one UPDATE statement and one short transaction per chunk, so row locks are
+ * never held on more than a chunk of accounts at a time.
+ */
+@Service
+public class AccountStatusService {
+
+    private static final Logger log = LoggerFactory.getLogger(AccountStatusService.class);
+
+    private final BankAccountRepo bankAccountRepo;
+    private final TransactionTemplate transactionTemplate;
+    private final AccountCache accountCache;
+    private final int inactiveDays;
+    private final int chunkSize;
+    private final int maxBulkAccounts;
+
+    public AccountStatusService(BankAccountRepo bankAccountRepo,
+                                TransactionTemplate transactionTemplate,
+                                AccountCache accountCache,
+                                @Value("${banking.dormancy.inactive-days:365}") int inactiveDays,
+                                @Value("${banking.dormancy.chunk-size:1000}") int chunkSize,
+                                @Value("${banking.status.max-bulk-accounts:100000}") int maxBulkAccounts) {
+        this.bankAccountRepo = bankAccountRepo;
+        this.transactionTemplate = transactionTemplate;
+        this.accountCache = accountCache;
+        this.inactiveDays = inactiveDays;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.maxBulkAccounts = maxBulkAccounts;
+    }
+
+    /**
+     * Mark ACTIVE accounts without any debit or credit for banking.dormancy.inactive-days as DORMANT
+     *
+     * @return Number of accounts marked dormant
+     */
+    @Scheduled(cron = "${banking.dormancy.cron:0 0 2 * * *}")
+    public int sweepDormant() {
+        // Accounts that predate last_activity_at get it from their operations first
+        int initialised = 0;
+        int rows;
+        do {
+            rows = transactionTemplate.execute(status -> bankAccountRepo.initLastActivity(chunkSize));
+            initialised += rows;
+        } while (rows == chunkSize);
+
+        Date cutoff = new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(inactiveDays));
+        int marked = 0;
+        do {
+            rows = transactionTemplate.execute(status -> bankAccountRepo.markDormant(
+                    AccountStatus.ACTIVE.ordinal(), AccountStatus.DORMANT.ordinal(), cutoff, chunkSize));
+            marked += rows;
+        } while (rows == chunkSize);
+
+        if (marked > 0) {
+            accountCache.evictAllAccounts();
+        }
+        if (initialised > 0 || marked > 0) {
+            log.info("Dormancy sweep: {} accounts marked dormant (inactive since {}), {} activity dates initialised",
+                    marked, cutoff, initialised);
+        }
+        return marked;
+    }
+
+    /**
+     * Change the status of many accounts at once
+     */
+    public AccountStatusChangeResultDTO changeStatus(AccountStatusChangeDTO request) {
+        if (request.getAccountIds() == null || request.getAccountIds().isEmpty()) {
+            throw new IllegalArgumentException("At least one account id is required");
+        }
+        if (request.getAccountIds().size() > maxBulkAccounts) {
+            throw new IllegalArgumentException("A status change may cover at most " + maxBulkAccounts + " accounts");
+        }
+        if (request.getStatus() == null) {
+            throw new IllegalArgumentException("Target status is required");
+        }
+        AccountStatus target = AccountStatus.valueOf(request.getStatus());
+        AccountStatus from = request.getFromStatus() != null ? AccountStatus.valueOf(request.getFromStatus()) : null;
+
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(request.getAccountIds()));
+        int updated = 0;
+        for (int start = 0; start < ids.size(); start += chunkSize) {
+            List<Long> chunk = ids.subList(start, Math.min(ids.size(), start + chunkSize));
+            updated += transactionTemplate.execute(status -> {
+                accountCache.evictAccounts(chunk);
+                return bankAccountRepo.updateStatus(chunk, target, from);
+            });
+        }
+        return new AccountStatusChangeResultDTO(request.getAccountIds().size(), updated);
+    }
+}
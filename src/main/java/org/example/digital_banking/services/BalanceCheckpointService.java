@@ -0,0 +1,223 @@
+package org.example.digital_banking.services;
+
+import org.example.digital_banking.dtos.BalanceAsOfDTO;
+import org.example.digital_banking.entities.BalanceCheckpoint;
+import org.example.digital_banking.enums.Operation_type;
+import org.example.digital_banking.exceptions.BankAccountNotFoundException;
+import org.example.digital_banking.ledger.BalanceEngine;
+import org.example.digital_banking.money.Money;
+import org.example.digital_banking.repositories.BalanceCheckpointRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Historical balances from balance_checkpoint rows.
+ * Every night the balances at the last day boundary are written in chunks of accounts, one
+ * INSERT ... SELECT per chunk (at READ COMMITTED, see TransactionConfig): an account with a previous checkpoint gets that checkpoint plus the
+ * operations since, and only if there were any (an idle account keeps its older checkpoint, which
+ * answers the same lookups just as cheaply); an account without one is anchored on its stored
+ * balance minus the operations dated after the boundary.
+ * <p>
+ * A balance at a date is then the nearest checkpoint plus or minus the operations between the two,
+ * summed over a range of idx_operation_account_date_id.
+ */
+@Service
+public class BalanceCheckpointService {
+
+    private static final Logger log = LoggerFactory.getLogger(BalanceCheckpointService.class);
+
+    // Amount of the operation row o, negative for debits
+    private static final String SIGNED_AMOUNT =
+            "CASE o.operation_type WHEN " + Operation_type.DEBIT.ordinal() + " THEN -o.amount ELSE o.amount END";
+    // In ledger mode, operations after an account's watermark are not in its stored balance yet
+    private static final String FOLDED_IN_LEDGER_MODE = " AND o.id <= COALESCE(a.ledger_watermark, 0)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final TransactionTemplate readCommitted;
+    private final BalanceCheckpointRepo checkpointRepo;
+    private final ObjectProvider<BalanceEngine> balanceEngine;
+    private final int chunkSize;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public BalanceCheckpointService(JdbcTemplate jdbcTemplate,
+                                    @Qualifier("readCommittedTransactionTemplate") TransactionTemplate readCommitted,
+                                    BalanceCheckpointRepo checkpointRepo,
+                                    ObjectProvider<BalanceEngine> balanceEngine,
+                                    @Value("${banking.checkpoints.chunk-size:1000}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.readCommitted = readCommitted;
+        this.checkpointRepo = checkpointRepo;
+        this.balanceEngine = balanceEngine;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    /**
+     * Runs a while after midnight, once every operation dated before it is committed (and, in ledger
+     * mode, folded into the stored balances)
+     */
+    @Scheduled(cron = "${banking.checkpoints.cron:0 20 0 * * *}")
+    public void checkpointDaily() {
+        if (!running.compareAndSet(false, true)) {
+            log.warn("Balance checkpoints already running, skipped");
+            return;
+        }
+        try {
+            LocalDate today = LocalDate.now(ZoneId.systemDefault());
+            checkpoint(Date.from(today.atStartOfDay(ZoneId.systemDefault()).toInstant()));
+        } catch (RuntimeException e) {
+            log.error("Balance checkpoints failed", e);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Write the checkpoints at a date. Accounts that already have a checkpoint at or after it are
+     * skipped, so a run can be repeated or overlap with another instance's.
+     *
+     * @return Number of checkpoints written
+     */
+    public long checkpoint(Date asOf) {
+        long started = System.currentTimeMillis();
+        String sql = checkpointSql(balanceEngine.getIfAvailable() != null);
+        Timestamp boundary = new Timestamp(asOf.getTime());
+        long written = 0;
+        long after = 0;
+        while (true) {
+            List<Long> ids = jdbcTemplate.queryForList(
+                    "SELECT id_bank_account FROM bank_account WHERE id_bank_account > ? " +
+                            "ORDER BY id_bank_account LIMIT ?",
+                    Long.class, after, chunkSize);
+            if (ids.isEmpty()) {
+                break;
+            }
+            long last = ids.get(ids.size() - 1);
+            MapSqlParameterSource chunk = new MapSqlParameterSource()
+                    .addValue("asOf", boundary)
+                    .addValue("after", after)
+                    .addValue("last", last);
+            try {
+                // READ COMMITTED: the SELECT does not lock the accounts and operations it reads
+                Integer inserted = readCommitted.execute(status -> namedParameterJdbcTemplate.update(sql, chunk));
+                written += inserted != null ? inserted : 0;
+            } catch (DataIntegrityViolationException e) {
+                // Another instance checkpointed this chunk first
+                log.debug("Balance checkpoints of accounts {}..{} already written", after + 1, last);
+            }
+            after = last;
+            if (ids.size() < chunkSize) {
+                break;
+            }
+        }
+        log.info("Balance checkpoints at {}: {} written in {} ms", asOf, written, System.currentTimeMillis() - started);
+        return written;
+    }
+
+    private static String checkpointSql(boolean ledgerMode) {
+        return "INSERT INTO balance_checkpoint (account_id, as_of, balance) " +
+                "SELECT c.account_id, :asOf, c.balance FROM (" +
+                "  SELECT a.id_bank_account AS account_id, p.as_of AS previous, " +
+                "    CASE WHEN p.as_of IS NULL THEN a.balance" +
+                "      + COALESCE((SELECT SUM(s.balance) FROM balance_slot s WHERE s.account_id = a.id_bank_account), 0)" +
+                "      - COALESCE((SELECT SUM(" + SIGNED_AMOUNT + ") FROM operation o" +
+                "          WHERE o.id_bank_account = a.id_bank_account AND o.operation_date >= :asOf" +
+                (ledgerMode ? FOLDED_IN_LEDGER_MODE : "") + "), 0)" +
+                "    ELSE p.balance" +
+                "      + COALESCE((SELECT SUM(" + SIGNED_AMOUNT + ") FROM operation o" +
+                "          WHERE o.id_bank_account = a.id_bank_account" +
+                "          AND o.operation_date >= p.as_of AND o.operation_date < :asOf), 0)" +
+                "    END AS balance" +
+                "  FROM bank_account a" +
+                "  LEFT JOIN balance_checkpoint p ON p.account_id = a.id_bank_account AND p.as_of = (" +
+                "    SELECT MAX(m.as_of) FROM balance_checkpoint m WHERE m.account_id = a.id_bank_account AND m.as_of < :asOf)" +
+                "  WHERE a.id_bank_account > :after AND a.id_bank_account <= :last" +
+                "  AND (a.created_at IS NULL OR a.created_at < :asOf)" +
+                "  AND NOT EXISTS (SELECT 1 FROM balance_checkpoint x" +
+                "    WHERE x.account_id = a.id_bank_account AND x.as_of >= :asOf)" +
+                ") c " +
+                "WHERE c.previous IS NULL OR EXISTS (SELECT 1 FROM operation o WHERE o.id_bank_account = c.account_id" +
+                "  AND o.operation_date >= c.previous AND o.operation_date < :asOf)";
+    }
+
+    /**
+     * Balance of an account after every operation dated at or before a date (zero before the
+     * account was created). Without any checkpoint yet, it is derived from the stored balance;
+     * in ledger mode that one may then miss the operations of the last checkpoint interval.
+     */
+    public BalanceAsOfDTO balanceAsOf(Long accountId, Date at) {
+        List<Timestamp> created = jdbcTemplate.queryForList(
+                "SELECT created_at FROM bank_account WHERE id_bank_account = ?", Timestamp.class, accountId);
+        if (created.isEmpty()) {
+            throw new BankAccountNotFoundException("Account not found with id: " + accountId);
+        }
+        if (created.get(0) != null && at.getTime() < created.get(0).getTime()) {
+            return new BalanceAsOfDTO(accountId, at, Money.ZERO, null);
+        }
+
+        Optional<BalanceCheckpoint> before = checkpointRepo.findFirstByAccountIdAndAsOfLessThanEqualOrderByAsOfDesc(accountId, at);
+        if (before.isPresent()) {
+            BalanceCheckpoint checkpoint = before.get();
+            long delta = signedSum(accountId, "o.operation_date >= ? AND o.operation_date <= ?", checkpoint.getAsOf(), at);
+            return new BalanceAsOfDTO(accountId, at, checkpoint.getBalance().plus(Money.ofMinor(delta)), checkpoint.getAsOf());
+        }
+
+        Optional<BalanceCheckpoint> after = checkpointRepo.findFirstByAccountIdAndAsOfGreaterThanOrderByAsOfAsc(accountId, at);
+        if (after.isPresent()) {
+            BalanceCheckpoint checkpoint = after.get();
+            long delta = signedSum(accountId, "o.operation_date > ? AND o.operation_date < ?", at, checkpoint.getAsOf());
+            return new BalanceAsOfDTO(accountId, at, checkpoint.getBalance().minus(Money.ofMinor(delta)), checkpoint.getAsOf());
+        }
+
+        Long balance = jdbcTemplate.queryForObject(
+                "SELECT a.balance" +
+                        " + COALESCE((SELECT SUM(s.balance) FROM balance_slot s WHERE s.account_id = a.id_bank_account), 0)" +
+                        " - COALESCE((SELECT SUM(" + SIGNED_AMOUNT + ") FROM operation o" +
+                        "     WHERE o.id_bank_account = a.id_bank_account AND o.operation_date > ?" +
+                        (balanceEngine.getIfAvailable() != null ? FOLDED_IN_LEDGER_MODE : "") + "), 0) " +
+                        "FROM bank_account a WHERE a.id_bank_account = ?",
+                Long.class, new Timestamp(at.getTime()), accountId);
+        return new BalanceAsOfDTO(accountId, at, Money.ofMinor(balance != null ? balance : 0), null);
+    }
+
+    private long signedSum(Long accountId, String range, Date from, Date to) {
+        Long sum = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(" + SIGNED_AMOUNT + "), 0) FROM operation o WHERE o.id_bank_account = ? AND " + range,
+                Long.class, accountId, new Timestamp(from.getTime()), new Timestamp(to.getTime()));
+        return sum != null ? sum : 0;
+    }
+
+    /**
+     * A balance was set outside of any operation: checkpoint it now so that later lookups start from it.
+     * Call with the account locked, inside the transaction that sets it.
+     */
+    public void record(Long accountId, Money balance) {
+        checkpointRepo.save(new BalanceCheckpoint(null, accountId, new Date(), balance));
+    }
+
+    /**
+     * The account is being deleted
+     */
+    public void forget(Long accountId) {
+        checkpointRepo.deleteByAccountId(accountId);
+    }
+}
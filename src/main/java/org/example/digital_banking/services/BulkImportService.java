@@ -0,0 +1,309 @@
+package org.example.digital_banking.services;
+
+import jakarta.persistence.EntityManager;
+import org.example.digital_banking.dtos.CustomerDTO;
+import org.example.digital_banking.dtos.ImportProgressDTO;
+import org.example.digital_banking.dtos.ImportRowErrorDTO;
+import org.example.digital_banking.entities.BankAccount;
+import org.example.digital_banking.entities.CurrentAccount;
+import org.example.digital_banking.entities.Customer;
+import org.example.digital_banking.entities.SavingAccount;
+import org.example.digital_banking.enums.AccountStatus;
+import org.example.digital_banking.money.Money;
+import org.example.digital_banking.repositories.CustomerRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Bulk onboarding of customers and accounts from a CSV file.
+ * Rows are parsed and validated one at a time while the file streams in, and valid rows are
+ * written in chunks: one query resolves the customers of a chunk by email, then the missing
+ * customers and the accounts are inserted as JDBC batches (pooled ids) in one transaction.
+ * Memory use depends on the chunk size, not on the file size. Progress is reported after each
+ * chunk and every rejected row is reported with its line number.
+ * <p>
+ * Columns (header row required, any order, case-insensitive): customer_email, customer_name,
+ * phone, address, city, account_type (SAV, CUR or empty for a customer only), initial_balance,
+ * overdraft, interest_rate, currency. Existing customers are matched by email and left unchanged.
+ */
+@Service
+public class BulkImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkImportService.class);
+    private static final List<String> REQUIRED_COLUMNS = List.of("customer_email", "customer_name");
+
+    private final EntityManager entityManager;
+    private final CustomerRepo customerRepo;
+    private final TransactionTemplate transactionTemplate;
+    private final AccountCache accountCache;
+    private final CustomerSearchService customerSearchService;
+    private final int chunkSize;
+    private final int maxRecordLength;
+
+    public BulkImportService(EntityManager entityManager,
+                             CustomerRepo customerRepo,
+                             TransactionTemplate transactionTemplate,
+                             AccountCache accountCache,
+                             CustomerSearchService customerSearchService,
+                             @Value("${banking.import.chunk-size:1000}") int chunkSize,
+                             @Value("${banking.import.max-record-length:8192}") int maxRecordLength) {
+        this.entityManager = entityManager;
+        this.customerRepo = customerRepo;
+        this.transactionTemplate = transactionTemplate;
+        this.accountCache = accountCache;
+        this.customerSearchService = customerSearchService;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.maxRecordLength = maxRecordLength;
+    }
+
+    private record ImportRow(long line, String email, String name, String phone, String address, String city,
+                             String accountType, Money initialBalance, Money overdraft, double interestRate,
+                             String currency) {
+    }
+
+    /**
+     * Import a CSV file
+     *
+     * @param events Receives an {@link ImportRowErrorDTO} per rejected row and an {@link ImportProgressDTO}
+     *               after each chunk; the last event is the final progress (done is false if the file
+     *               could not be read to the end)
+     * @return The final progress
+     */
+    public ImportProgressDTO importCsv(InputStream input, Consumer<Object> events) {
+        ImportProgressDTO progress = new ImportProgressDTO();
+        List<ImportRow> chunk = new ArrayList<>(chunkSize);
+        long started = System.currentTimeMillis();
+
+        CsvReader csv = new CsvReader(new InputStreamReader(input, StandardCharsets.UTF_8), maxRecordLength);
+        boolean headerRead = false;
+        try (csv) {
+            Map<String, Integer> columns = columns(csv.next());
+            headerRead = true;
+            List<String> fields;
+            while ((fields = csv.next()) != null) {
+                progress.setRows(progress.getRows() + 1);
+                try {
+                    chunk.add(parse(csv.recordLine(), fields, columns));
+                } catch (IllegalArgumentException e) {
+                    reject(progress, events, csv.recordLine(), e.getMessage());
+                }
+                if (chunk.size() == chunkSize) {
+                    write(chunk, progress, events);
+                    events.accept(snapshot(progress));
+                }
+            }
+            write(chunk, progress, events);
+            progress.setDone(true);
+        } catch (IOException e) {
+            // Malformed file: a broken record cannot be skipped reliably, so rows already validated
+            // are kept, the broken one is rejected and the import stops here
+            write(chunk, progress, events);
+            if (headerRead) {
+                progress.setRows(progress.getRows() + 1);
+                reject(progress, events, csv.recordLine(), e.getMessage());
+            } else {
+                events.accept(new ImportRowErrorDTO(csv.recordLine(), e.getMessage()));
+            }
+        } catch (IllegalArgumentException e) {
+            // Bad header: nothing was imported
+            events.accept(new ImportRowErrorDTO(csv.recordLine(), e.getMessage()));
+        }
+
+        events.accept(progress);
+        log.info("CSV import: {} rows, {} customers and {} accounts created, {} rejected in {} ms{}",
+                progress.getRows(), progress.getCustomersCreated(), progress.getAccountsCreated(),
+                progress.getRejected(), System.currentTimeMillis() - started, progress.isDone() ? "" : " (aborted)");
+        return progress;
+    }
+
+    private static Map<String, Integer> columns(List<String> header) {
+        if (header == null) {
+            throw new IllegalArgumentException("The file is empty");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            // Strip the byte order mark some spreadsheet tools write
+            String name = header.get(i).replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT);
+            columns.putIfAbsent(name, i);
+        }
+        for (String required : REQUIRED_COLUMNS) {
+            if (!columns.containsKey(required)) {
+                throw new IllegalArgumentException("Missing column " + required);
+            }
+        }
+        return columns;
+    }
+
+    private static ImportRow parse(long line, List<String> fields, Map<String, Integer> columns) {
+        String email = field(fields, columns, "customer_email");
+        if (email == null || email.indexOf('@') <= 0) {
+            throw new IllegalArgumentException("Invalid customer_email");
+        }
+        String name = field(fields, columns, "customer_name");
+        if (name == null) {
+            throw new IllegalArgumentException("customer_name is required");
+        }
+
+        String type = field(fields, columns, "account_type");
+        Money balance = Money.ZERO;
+        Money overdraft = null;
+        double interestRate = 0;
+        if (type != null) {
+            type = type.toUpperCase(Locale.ROOT);
+            if (!type.equals("SAV") && !type.equals("CUR")) {
+                throw new IllegalArgumentException("account_type must be SAV or CUR");
+            }
+            balance = money(fields, columns, "initial_balance");
+            if (balance == null) {
+                balance = Money.ZERO;
+            }
+            if (type.equals("CUR")) {
+                overdraft = money(fields, columns, "overdraft");
+            } else {
+                String rate = field(fields, columns, "interest_rate");
+                try {
+                    interestRate = rate != null ? Double.parseDouble(rate) : 0;
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid interest_rate");
+                }
+                if (interestRate < 0 || Double.isNaN(interestRate) || Double.isInfinite(interestRate)) {
+                    throw new IllegalArgumentException("Invalid interest_rate");
+                }
+            }
+        }
+
+        return new ImportRow(line, email, name, field(fields, columns, "phone"), field(fields, columns, "address"),
+                field(fields, columns, "city"), type, balance, overdraft, interestRate,
+                field(fields, columns, "currency"));
+    }
+
+    private static String field(List<String> fields, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static Money money(List<String> fields, Map<String, Integer> columns, String column) {
+        String value = field(fields, columns, column);
+        if (value == null) {
+            return null;
+        }
+        Money amount;
+        try {
+            amount = Money.of(value);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid " + column + ": " + value);
+        }
+        if (amount.isNegative()) {
+            throw new IllegalArgumentException(column + " must not be negative");
+        }
+        return amount;
+    }
+
+    private void write(List<ImportRow> chunk, ImportProgressDTO progress, Consumer<Object> events) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            List<Customer> createdCustomers = new ArrayList<>();
+            long[] created = transactionTemplate.execute(status -> insert(chunk, createdCustomers));
+            createdCustomers.forEach(customer -> customerSearchService.index(new CustomerDTO(customer.getCustomer_id(),
+                    customer.getName(), customer.getEmail(), null, customer.getPhone(), customer.getAddress(),
+                    customer.getCity())));
+            progress.setCustomersCreated(progress.getCustomersCreated() + created[0]);
+            progress.setAccountsCreated(progress.getAccountsCreated() + created[1]);
+        } catch (RuntimeException e) {
+            // The chunk was rolled back as a whole
+            log.warn("CSV import chunk starting on line {} failed", chunk.get(0).line(), e);
+            for (ImportRow row : chunk) {
+                reject(progress, events, row.line(), "Not imported, chunk failed: " + e.getMessage());
+            }
+        }
+        chunk.clear();
+    }
+
+    /**
+     * @return Number of customers and of accounts created
+     */
+    private long[] insert(List<ImportRow> chunk, List<Customer> createdCustomers) {
+        Set<String> emails = new HashSet<>();
+        chunk.forEach(row -> emails.add(row.email()));
+        Map<String, Customer> customers = new HashMap<>();
+        for (Customer customer : customerRepo.findByEmailIn(emails)) {
+            customers.putIfAbsent(customer.getEmail().toLowerCase(Locale.ROOT), customer);
+        }
+
+        long newCustomers = 0;
+        long newAccounts = 0;
+        Set<Long> owners = new HashSet<>();
+        Date now = new Date();
+        for (ImportRow row : chunk) {
+            Customer customer = customers.get(row.email().toLowerCase(Locale.ROOT));
+            if (customer == null) {
+                customer = Customer.builder()
+                        .name(row.name())
+                        .email(row.email())
+                        .phone(row.phone())
+                        .address(row.address())
+                        .city(row.city())
+                        .build();
+                entityManager.persist(customer);
+                customers.put(row.email().toLowerCase(Locale.ROOT), customer);
+                createdCustomers.add(customer);
+                newCustomers++;
+            }
+            if (row.accountType() == null) {
+                continue;
+            }
+
+            BankAccount account;
+            if (row.accountType().equals("SAV")) {
+                SavingAccount savingAccount = new SavingAccount();
+                savingAccount.setInterestRate(row.interestRate());
+                account = savingAccount;
+            } else {
+                CurrentAccount currentAccount = new CurrentAccount();
+                currentAccount.setOverdraft(row.overdraft());
+                account = currentAccount;
+            }
+            account.setBalance(row.initialBalance());
+            account.setCurrency(row.currency());
+            account.setCustomer(customer);
+            account.setCreatedAt(now);
+            account.setLastActivityAt(now);
+            account.setStatus(AccountStatus.ACTIVE);
+            entityManager.persist(account);
+            owners.add(customer.getCustomer_id());
+            newAccounts++;
+        }
+
+        // Send the batched inserts and drop the chunk from the persistence context
+        entityManager.flush();
+        entityManager.clear();
+        accountCache.evictCustomerAccounts(owners);
+        return new long[]{newCustomers, newAccounts};
+    }
+
+    private static void reject(ImportProgressDTO progress, Consumer<Object> events, long line, String error) {
+        progress.setRejected(progress.getRejected() + 1);
+        events.accept(new ImportRowErrorDTO(line, error));
+    }
+
+    private static ImportProgressDTO snapshot(ImportProgressDTO progress) {
+        return new ImportProgressDTO(progress.getRows(), progress.getCustomersCreated(),
+                progress.getAccountsCreated(), progress.getRejected(), progress.isDone());
+    }
+}
@@ -0,0 +1,165 @@
+package org.example.digital_banking.services;
+
+import org.example.digital_banking.dtos.CustomerDTO;
+import org.example.digital_banking.dtos.CustomerSearchResultDTO;
+import org.example.digital_banking.exceptions.SearchIndexUnavailableException;
+import org.example.digital_banking.search.TrigramIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Customer search backed by an in-memory {@link TrigramIndex}.
+ * The index is built from the customer table in the background once the application is ready,
+ * and rebuilt every night (which also drops the slots left by updates and deletes, and picks up
+ * changes made by other instances). Customer writes of this instance are applied to it as soon
+ * as they commit, including while a build is running.
+ */
+@Service
+public class CustomerSearchService {
+
+    private static final Logger log = LoggerFactory.getLogger(CustomerSearchService.class);
+
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final int maxResults;
+    private final double minSimilarity;
+    private final int maxCandidates;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicBoolean building = new AtomicBoolean();
+    // Guarded by lock; null until the first build completes
+    private TrigramIndex index;
+    // Guarded by lock; changes committed while a build runs (null value: deleted)
+    private Map<Long, TrigramIndex.Document> pending;
+
+    public CustomerSearchService(@Qualifier("streamingJdbcTemplate") JdbcTemplate streamingJdbcTemplate,
+                                 @Value("${banking.search.max-results:50}") int maxResults,
+                                 @Value("${banking.search.min-similarity:0.6}") double minSimilarity,
+                                 @Value("${banking.search.max-candidates:200000}") int maxCandidates) {
+        this.streamingJdbcTemplate = streamingJdbcTemplate;
+        this.maxResults = maxResults;
+        this.minSimilarity = minSimilarity;
+        this.maxCandidates = maxCandidates;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildInBackground() {
+        CompletableFuture.runAsync(this::rebuild);
+    }
+
+    @Scheduled(cron = "${banking.search.rebuild-cron:0 15 3 * * *}")
+    public void rebuild() {
+        if (!building.compareAndSet(false, true)) {
+            return;
+        }
+        long started = System.currentTimeMillis();
+        try {
+            lock.writeLock().lock();
+            try {
+                pending = new HashMap<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            TrigramIndex fresh = new TrigramIndex();
+            streamingJdbcTemplate.query("SELECT customer_id, name, email, phone, city FROM customer ORDER BY customer_id",
+                    rs -> {
+                        fresh.put(new TrigramIndex.Document(rs.getLong(1), rs.getString(2), rs.getString(3),
+                                rs.getString(4), rs.getString(5)));
+                    });
+
+            lock.writeLock().lock();
+            try {
+                pending.forEach((id, document) -> {
+                    fresh.remove(id);
+                    if (document != null) {
+                        fresh.put(document);
+                    }
+                });
+                index = fresh;
+            } finally {
+                pending = null;
+                lock.writeLock().unlock();
+            }
+            log.info("Customer search index built: {} customers in {} ms", fresh.size(),
+                    System.currentTimeMillis() - started);
+        } catch (RuntimeException e) {
+            log.error("Customer search index build failed", e);
+        } finally {
+            building.set(false);
+        }
+    }
+
+    /**
+     * @param limit Number of results, capped by banking.search.max-results
+     */
+    public List<CustomerSearchResultDTO> search(String query, int limit) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("A query is required");
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        List<TrigramIndex.Hit> hits;
+        lock.readLock().lock();
+        try {
+            if (index == null) {
+                throw new SearchIndexUnavailableException("Customer search index is being built, try again later");
+            }
+            hits = index.search(query, Math.min(limit, maxResults), minSimilarity, maxCandidates);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return hits.stream()
+                .map(hit -> new CustomerSearchResultDTO(hit.document().id(), hit.document().name(),
+                        hit.document().email(), hit.document().phone(), hit.document().city(), hit.score()))
+                .toList();
+    }
+
+    /**
+     * Add or replace a customer once the current transaction commits
+     */
+    public void index(CustomerDTO customer) {
+        TrigramIndex.Document document = new TrigramIndex.Document(customer.getCustomer_id(), customer.getName(),
+                customer.getEmail(), customer.getPhone(), customer.getCity());
+        AfterCommit.run(() -> apply(document.id(), document));
+    }
+
+    /**
+     * Remove a customer once the current transaction commits
+     */
+    public void remove(Long customerId) {
+        AfterCommit.run(() -> apply(customerId, null));
+    }
+
+    private void apply(long id, TrigramIndex.Document document) {
+        lock.writeLock().lock();
+        try {
+            if (index != null) {
+                if (document != null) {
+                    index.put(document);
+                } else {
+                    index.remove(id);
+                }
+            }
+            if (pending != null) {
+                pending.put(id, document);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
@@ -1,21 +1,30 @@
 package org.example.digital_banking.services;
 
 import jakarta.transaction.Transactional;
+import org.example.digital_banking.concurrency.AccountLockManager;
+import org.example.digital_banking.concurrency.OptimisticRetryExecutor;
 import org.example.digital_banking.dtos.*;
 import org.example.digital_banking.entities.*;
 import org.example.digital_banking.enums.AccountStatus;
 import org.example.digital_banking.enums.Operation_type;
+import org.example.digital_banking.exceptions.AccountLockTimeoutException;
 import org.example.digital_banking.exceptions.BankAccountNotFoundException;
+import org.example.digital_banking.exceptions.ConcurrentUpdateException;
 import org.example.digital_banking.exceptions.CustomerNotFoundException;
 import org.example.digital_banking.exceptions.InsufficientBalanceException;
 import org.example.digital_banking.mappers.BankAccountMapper;
+import org.example.digital_banking.money.Money;
 import org.example.digital_banking.repositories.BankAccountRepo;
 import org.example.digital_banking.repositories.CustomerRepo;
 import org.example.digital_banking.repositories.OperationRepo;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.Date;
-import java.util.List;
+import java.util.*;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Transactional
@@ -26,15 +35,57 @@ public class CustomerService implements CustomerServiceinterface {
     private final BankAccountRepo bankAccountRepo;
     private final OperationRepo operationRepo;
     private final BankAccountMapper bankAccountMapper;
+    private final AccountLockManager accountLockManager;
+    private final TransactionTemplate transactionTemplate;
+    private final OptimisticRetryExecutor retryExecutor;
+    private final HotAccountService hotAccountService;
+    private final AccountCache accountCache;
+    private final CustomerSearchService customerSearchService;
+    private final BalanceCheckpointService balanceCheckpointService;
+    private final DashboardCounters dashboardCounters;
+    private final OperationRollupService operationRollupService;
+    private final OperationAnalyticsService operationAnalyticsService;
+
+    private static final int MAX_HISTORY_PAGE_SIZE = 200;
+
+    @Value("${banking.batch.max-transfers:10000}")
+    private int maxBatchTransfers = 10000;
+
+    // Bounds of one transaction of a batch: transfers, and distinct accounts (hence stripe locks)
+    @Value("${banking.batch.chunk-transfers:500}")
+    private int maxChunkTransfers = 500;
+
+    @Value("${banking.batch.chunk-accounts:64}")
+    private int maxChunkAccounts = 64;
 
     public CustomerService(CustomerRepo customerRepo,
                            BankAccountRepo bankAccountRepo,
                            OperationRepo operationRepo,
-                           BankAccountMapper bankAccountMapper) {
+                           BankAccountMapper bankAccountMapper,
+                           AccountLockManager accountLockManager,
+                           TransactionTemplate transactionTemplate,
+                           OptimisticRetryExecutor retryExecutor,
+                           HotAccountService hotAccountService,
+                           AccountCache accountCache,
+                           CustomerSearchService customerSearchService,
+                           BalanceCheckpointService balanceCheckpointService,
+                           DashboardCounters dashboardCounters,
+                           OperationRollupService operationRollupService,
+                           OperationAnalyticsService operationAnalyticsService) {
         this.customerRepo = customerRepo;
         this.bankAccountRepo = bankAccountRepo;
         this.operationRepo = operationRepo;
         this.bankAccountMapper = bankAccountMapper;
+        this.accountLockManager = accountLockManager;
+        this.transactionTemplate = transactionTemplate;
+        this.retryExecutor = retryExecutor;
+        this.hotAccountService = hotAccountService;
+        this.accountCache = accountCache;
+        this.customerSearchService = customerSearchService;
+        this.balanceCheckpointService = balanceCheckpointService;
+        this.dashboardCounters = dashboardCounters;
+        this.operationRollupService = operationRollupService;
+        this.operationAnalyticsService = operationAnalyticsService;
     }
 
     // Customer management methods
@@ -47,16 +98,20 @@ public class CustomerService implements CustomerServiceinterface {
 
     @Override
     public CustomerDTO getClientById(Long id) {
-        Customer customer = customerRepo.findById(id)
-                .orElseThrow(() -> new CustomerNotFoundException("Customer not found with id: " + id));
-        return bankAccountMapper.fromCustomer(customer);
+        return accountCache.customer(id, customerId -> {
+            Customer customer = customerRepo.findById(customerId)
+                    .orElseThrow(() -> new CustomerNotFoundException("Customer not found with id: " + customerId));
+            return bankAccountMapper.fromCustomer(customer);
+        });
     }
 
     @Override
     public CustomerDTO createClient(CustomerDTO customerDTO) {
         Customer customer = bankAccountMapper.fromCustomerDTO(customerDTO);
         Customer savedCustomer = customerRepo.save(customer);
-        return bankAccountMapper.fromCustomer(savedCustomer);
+        CustomerDTO savedDTO = bankAccountMapper.fromCustomer(savedCustomer);
+        customerSearchService.index(savedDTO);
+        return savedDTO;
     }
 
     @Override
@@ -72,7 +127,10 @@ public class CustomerService implements CustomerServiceinterface {
         customer.setPassword(customerDTO.getPassword());
 
         Customer updatedCustomer = customerRepo.save(customer);
-        return bankAccountMapper.fromCustomer(updatedCustomer);
+        accountCache.evictCustomer(id);
+        CustomerDTO updatedDTO = bankAccountMapper.fromCustomer(updatedCustomer);
+        customerSearchService.index(updatedDTO);
+        return updatedDTO;
     }
 
     @Override
@@ -81,13 +139,15 @@ public class CustomerService implements CustomerServiceinterface {
             return false;
         }
         customerRepo.deleteById(id);
+        accountCache.evictCustomer(id);
+        customerSearchService.remove(id);
         return true;
     }
 
     // Bank account management methods
     @Override
     public List<BankAccountDTO> getAllAccounts() {
-        return bankAccountRepo.findAll().stream()
+        return hotAccountService.addSlotBalances(bankAccountRepo.findAllWithCustomer().stream()
                 .map(account -> {
                     if (account instanceof SavingAccount) {
                         return bankAccountMapper.fromSavingAccount((SavingAccount) account);
@@ -95,19 +155,19 @@ public class CustomerService implements CustomerServiceinterface {
                         return bankAccountMapper.fromCurrentAccount((CurrentAccount) account);
                     }
                 })
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()));
     }
 
     @Override
     public BankAccountDTO getAccount(Long id) {  // Changed from String to Long
-        BankAccount account = bankAccountRepo.findById(id)
-                .orElseThrow(() -> new BankAccountNotFoundException("Account not found with id: " + id));
-
-        if (account instanceof SavingAccount) {
-            return bankAccountMapper.fromSavingAccount((SavingAccount) account);
-        } else {
-            return bankAccountMapper.fromCurrentAccount((CurrentAccount) account);
-        }
+        BankAccountDTO accountDTO = accountCache.account(id, accountId -> {
+            BankAccount account = bankAccountRepo.findWithCustomerById(accountId)
+                    .orElseThrow(() -> new BankAccountNotFoundException("Account not found with id: " + accountId));
+            return account instanceof SavingAccount
+                    ? bankAccountMapper.fromSavingAccount((SavingAccount) account)
+                    : bankAccountMapper.fromCurrentAccount((CurrentAccount) account);
+        });
+        return hotAccountService.addSlotBalances(List.of(accountDTO)).get(0);
     }
 
     @Override
@@ -126,21 +186,37 @@ public class CustomerService implements CustomerServiceinterface {
             account = currentAccount;
         }
 
-        account.setBalance(accountDTO.getInitialBalance());
+        account.setBalance(accountDTO.getInitialBalance() != null ? accountDTO.getInitialBalance() : Money.ZERO);
         account.setCustomer(customer);
         account.setCreatedAt(new Date());
+        account.setLastActivityAt(account.getCreatedAt());
         account.setStatus(AccountStatus.ACTIVE);
 
         BankAccount savedAccount = bankAccountRepo.save(account);
+        accountCache.evictCustomerAccounts(List.of(customer.getCustomer_id()));
+        dashboardCounters.accountCreated(account.getCreatedAt(), true, account.getBalance().minorUnits());
         return bankAccountMapper.fromBankAccount(savedAccount);
     }
 
     @Override
+    @Transactional(Transactional.TxType.SUPPORTS)
     public BankAccountDTO updateAccount(Long id, BankAccountDTO bankAccountDTO) {  // Changed from String to Long
-        BankAccount account = bankAccountRepo.findById(id)
+        return mutate("updateAccount", List.of(id), () -> applyAccountUpdate(id, bankAccountDTO));
+    }
+
+    private BankAccountDTO applyAccountUpdate(Long id, BankAccountDTO bankAccountDTO) {
+        // A balance set here replaces the whole balance, slots included
+        hotAccountService.fold(id);
+        BankAccount account = bankAccountRepo.findWithCustomerById(id)
                 .orElseThrow(() -> new BankAccountNotFoundException("Account not found with id: " + id));
+        long previousBalance = account.getBalance().minorUnits();
+        boolean wasActive = account.getStatus() == AccountStatus.ACTIVE;
 
-        account.setBalance(bankAccountDTO.getBalance());
+        if (bankAccountDTO.getBalance() != null) {
+            account.setBalance(bankAccountDTO.getBalance());
+            // No operation explains the change: historical balances must not be derived across it
+            balanceCheckpointService.record(id, bankAccountDTO.getBalance());
+        }
         account.setStatus(AccountStatus.valueOf(bankAccountDTO.getStatus()));
 
         if (account instanceof SavingAccount savingAccount && bankAccountDTO instanceof SavingAccountDTO savingAccountDTO) {
@@ -150,69 +226,315 @@ public class CustomerService implements CustomerServiceinterface {
         }
 
         BankAccount updatedAccount = bankAccountRepo.save(account);
+        accountCache.evictAccount(id);
+        dashboardCounters.accountUpdated(wasActive, account.getStatus() == AccountStatus.ACTIVE,
+                account.getBalance().minorUnits() - previousBalance);
         return bankAccountMapper.fromBankAccount(updatedAccount);
     }
 
 
     @Override
     public boolean deleteAccount(Long id) {  // Changed from String to Long
-        if (!bankAccountRepo.existsById(id)) {
+        BankAccount account = bankAccountRepo.findById(id).orElse(null);
+        if (account == null) {
             return false;
         }
 
-        // First delete all operations associated with this account
+        // The dashboard drops the account's balance (slots included) and its operations
+        long balance = account.getBalance().minorUnits() + hotAccountService.slotBalances(List.of(id)).getOrDefault(id, 0L);
+        dashboardCounters.accountDeleted(account.getCreatedAt(), account.getStatus() == AccountStatus.ACTIVE, balance,
+                operationRepo.aggregateAccountByDay(id, Operation_type.CREDIT.ordinal(), Operation_type.DEBIT.ordinal()));
+
+        // First delete all operations (out of the daily rollup too), balance slots and checkpoints associated with this account
+        hotAccountService.forget(id);
+        operationRollupService.forgetAccount(id);
+        operationAnalyticsService.accountDeleted(id);
         operationRepo.deleteByBankAccountId(id);
+        balanceCheckpointService.forget(id);
 
-        // Then delete the account
+        // Then delete the account (a cached list of its owner notices the missing entry and reloads)
         bankAccountRepo.deleteById(id);
+        accountCache.evictAccount(id);
         return true;
     }
 
     // Operation methods
+    // Balance mutations take the account stripe lock(s) first and only then open their own
+    // transaction, so the lock is held until the new balance is committed. Version conflicts
+    // (e.g. from another instance) roll the transaction back and are retried with backoff.
     @Override
+    @Transactional(Transactional.TxType.SUPPORTS)
     public void debit(Long accountId, CreditDebitRequestDTO requestDTO) {
-        if (requestDTO.getAmount() <= 0) {
+        if (requestDTO.getAmount() == null || !requestDTO.getAmount().isPositive()) {
             throw new IllegalArgumentException("Debit amount must be positive");
         }
 
-        BankAccount account = bankAccountRepo.findById(accountId)
-                .orElseThrow(() -> new BankAccountNotFoundException("Account not found with id: " + accountId));
+        mutate("debit", List.of(accountId), () -> applyDebit(accountId, requestDTO));
+    }
+
+    @Override
+    @Transactional(Transactional.TxType.SUPPORTS)
+    public void credit(Long accountId, CreditDebitRequestDTO requestDTO) {
+        if (requestDTO.getAmount() == null || !requestDTO.getAmount().isPositive()) {
+            throw new IllegalArgumentException("Credit amount must be positive");
+        }
+
+        if (hotAccountService.isHot(accountId)) {
+            // Slot credits never read the balance, so they skip the stripe lock
+            retryExecutor.execute("credit", () -> transactionTemplate.execute(status -> {
+                applyCredit(accountId, requestDTO);
+                return null;
+            }));
+            return;
+        }
+        mutate("credit", List.of(accountId), () -> applyCredit(accountId, requestDTO));
+    }
+
+    @Override
+    @Transactional(Transactional.TxType.SUPPORTS)
+    public void transfer(TransferRequestDTO transferRequestDTO) {
+        // Convert String account IDs to Long if needed
+        Long sourceAccountId = Long.valueOf(transferRequestDTO.getAccountSource());
+        Long destAccountId = Long.valueOf(transferRequestDTO.getAccountDestination());
+
+        if (transferRequestDTO.getAmount() == null || !transferRequestDTO.getAmount().isPositive()) {
+            throw new IllegalArgumentException("Debit amount must be positive");
+        }
+
+        // Create debit request
+        CreditDebitRequestDTO debitRequest = new CreditDebitRequestDTO();
+        debitRequest.setAccountId(sourceAccountId);
+        debitRequest.setAmount(transferRequestDTO.getAmount());
+        debitRequest.setDescription(transferRequestDTO.getDescription());
+
+        // Create credit request
+        CreditDebitRequestDTO creditRequest = new CreditDebitRequestDTO();
+        creditRequest.setAccountId(destAccountId);
+        creditRequest.setAmount(transferRequestDTO.getAmount());
+        creditRequest.setDescription(transferRequestDTO.getDescription());
+
+        // Both legs run under both locks (taken in global stripe order) and in one transaction
+        mutate("transfer", List.of(sourceAccountId, destAccountId), () -> {
+            applyDebit(sourceAccountId, debitRequest);
+            applyCredit(destAccountId, creditRequest);
+        });
+    }
+
+    @Override
+    @Transactional(Transactional.TxType.SUPPORTS)
+    public List<TransferResultDTO> transferBatch(List<TransferRequestDTO> transferRequests) {
+        if (transferRequests.size() > maxBatchTransfers) {
+            throw new IllegalArgumentException("A batch may contain at most " + maxBatchTransfers + " transfers");
+        }
+
+        // The batch is cut, in submission order, into chunks of bounded transfers and accounts; each
+        // chunk locks its own accounts (in global stripe order) and commits on its own, so a large
+        // batch never holds every lock at once. Chunks run in order, so every transfer is still
+        // validated against the balances left by the ones submitted before it.
+        List<TransferResultDTO> results = new ArrayList<>(transferRequests.size());
+        int start = 0;
+        while (start < transferRequests.size()) {
+            Set<Long> accountIds = new HashSet<>();
+            int end = start;
+            while (end < transferRequests.size() && end - start < maxChunkTransfers) {
+                Long source = parseAccountId(transferRequests.get(end).getAccountSource());
+                Long destination = parseAccountId(transferRequests.get(end).getAccountDestination());
+                int added = (source != null && !accountIds.contains(source) ? 1 : 0)
+                        + (destination != null && !destination.equals(source) && !accountIds.contains(destination) ? 1 : 0);
+                if (end > start && accountIds.size() + added > maxChunkAccounts) {
+                    break;
+                }
+                if (source != null) accountIds.add(source);
+                if (destination != null) accountIds.add(destination);
+                end++;
+            }
+
+            List<TransferRequestDTO> chunk = transferRequests.subList(start, end);
+            int offset = start;
+            Set<Long> chunkAccountIds = accountIds;
+            try {
+                results.addAll(mutate("transferBatch", chunkAccountIds,
+                        () -> applyTransferBatch(chunk, offset, chunkAccountIds)));
+            } catch (AccountLockTimeoutException | ConcurrentUpdateException e) {
+                // Nothing of this chunk was applied; the chunks before it stay committed
+                for (int i = 0; i < chunk.size(); i++) {
+                    TransferRequestDTO request = chunk.get(i);
+                    results.add(new TransferResultDTO(offset + i, request.getAccountSource(),
+                            request.getAccountDestination(), request.getAmount(), "REJECTED", e.getMessage()));
+                }
+            }
+            start = end;
+        }
+        return results;
+    }
+
+    private List<TransferResultDTO> applyTransferBatch(List<TransferRequestDTO> transferRequests, int offset,
+                                                       Set<Long> accountIds) {
+        // Running balances start from the full balance of hot accounts
+        accountIds.stream().filter(hotAccountService::isHot).forEach(hotAccountService::fold);
+
+        // One query for every account touched by the batch
+        Map<Long, BankAccount> accounts = new HashMap<>();
+        for (BankAccount account : bankAccountRepo.findAllById(accountIds)) {
+            accounts.put(account.getIdBankAccount(), account);
+        }
+
+        // Legs are validated in submission order against running balances; accepted legs
+        // only adjust the in-memory balances (minor units) and queue their Operation rows
+        Map<Long, Long> balances = new HashMap<>();
+        accounts.forEach((id, account) -> balances.put(id, account.getBalance().minorUnits()));
+        List<Operation> operations = new ArrayList<>();
+        List<TransferResultDTO> results = new ArrayList<>(transferRequests.size());
+        Date now = new Date();
+
+        for (int i = 0; i < transferRequests.size(); i++) {
+            TransferRequestDTO request = transferRequests.get(i);
+            TransferResultDTO result = new TransferResultDTO(offset + i, request.getAccountSource(),
+                    request.getAccountDestination(), request.getAmount(), "REJECTED", null);
+            results.add(result);
+
+            Long sourceId = parseAccountId(request.getAccountSource());
+            Long destId = parseAccountId(request.getAccountDestination());
+            BankAccount source = sourceId != null ? accounts.get(sourceId) : null;
+            BankAccount destination = destId != null ? accounts.get(destId) : null;
+
+            Money amount = request.getAmount();
+            if (amount == null || !amount.isPositive()) {
+                result.setMessage("Transfer amount must be positive");
+            } else if (source == null) {
+                result.setMessage("Account not found with id: " + request.getAccountSource());
+            } else if (destination == null) {
+                result.setMessage("Account not found with id: " + request.getAccountDestination());
+            } else if (balances.get(sourceId) + overdraftOf(source) < amount.minorUnits()) {
+                result.setMessage(source instanceof CurrentAccount
+                        ? "Insufficient balance including overdraft"
+                        : "Insufficient balance");
+            } else {
+                balances.merge(sourceId, -amount.minorUnits(), Math::addExact);
+                balances.merge(destId, amount.minorUnits(), Math::addExact);
+                dashboardCounters.debited(amount.minorUnits(), now);
+                dashboardCounters.credited(amount.minorUnits(), now);
+                operations.add(newOperation(Operation_type.DEBIT, amount, request.getDescription(), source, now,
+                        runningBalance(balances, sourceId)));
+                operations.add(newOperation(Operation_type.CREDIT, amount, request.getDescription(), destination, now,
+                        runningBalance(balances, destId)));
+                result.setStatus("ACCEPTED");
+            }
+        }
+
+        // Net effect: one UPDATE per account whose balance actually moved
+        balances.forEach((id, balance) -> {
+            BankAccount account = accounts.get(id);
+            if (account.getBalance().minorUnits() != balance) {
+                account.setBalance(Money.ofMinor(balance));
+                account.setLastActivityAt(now);
+            }
+        });
+        operationRepo.saveAll(operations);
+        operations.forEach(operation -> recorded(operation, operation.getBankAccount().getIdBankAccount()));
+        accountCache.evictAccounts(accountIds);
+
+        return results;
+    }
+
+    private static Long parseAccountId(String accountId) {
+        try {
+            return accountId != null ? Long.valueOf(accountId.trim()) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static long overdraftOf(BankAccount account) {
+        return account instanceof CurrentAccount currentAccount ? Money.minorOf(currentAccount.getOverdraft()) : 0;
+    }
+
+    private static Operation newOperation(Operation_type type, Money amount, String description,
+                                          BankAccount account, Date date, Money balanceAfter) {
+        Operation operation = new Operation();
+        operation.setOperationType(type);
+        operation.setAmount(amount);
+        operation.setDescription(description);
+        operation.setBankAccount(account);
+        operation.setOperationDate(date);
+        operation.setBalanceAfter(balanceAfter);
+        return operation;
+    }
+
+    private void recorded(Operation operation, Long accountId) {
+        operationAnalyticsService.recorded(operation.getId(), accountId,
+                operation.getOperationType(), operation.getAmount().minorUnits(), operation.getOperationDate());
+    }
+
+    /**
+     * Balance after a leg of a batch; none for hot accounts, which take slot credits meanwhile
+     */
+    private Money runningBalance(Map<Long, Long> balances, Long accountId) {
+        return hotAccountService.isHot(accountId) ? null : Money.ofMinor(balances.get(accountId));
+    }
+
+    private <T> T mutate(String endpoint, Collection<Long> accountIds, Supplier<T> body) {
+        // Backoff sleeps happen outside the locks; each attempt gets a fresh transaction
+        return retryExecutor.execute(endpoint, () ->
+                accountLockManager.withLocks(accountIds, () -> transactionTemplate.execute(status -> body.get())));
+    }
+
+    private void mutate(String endpoint, Collection<Long> accountIds, Runnable body) {
+        mutate(endpoint, accountIds, () -> {
+            body.run();
+            return null;
+        });
+    }
 
-        // Check balance based on account type
-        if (account instanceof CurrentAccount currentAccount) {
-            if (currentAccount.getBalance() + currentAccount.getOverdraft() < requestDTO.getAmount()) {
+    private void applyDebit(Long accountId, CreditDebitRequestDTO requestDTO) {
+        // Check and decrement in one statement; the account is only read when the debit is refused.
+        // A hot account whose base balance is short borrows from its slots by folding them in.
+        long amount = requestDTO.getAmount().minorUnits();
+        if (bankAccountRepo.debitIfSufficient(accountId, amount) == 0
+                && !(hotAccountService.isHot(accountId) && hotAccountService.fold(accountId) > 0
+                && bankAccountRepo.debitIfSufficient(accountId, amount) == 1)) {
+            BankAccount account = bankAccountRepo.findById(accountId)
+                    .orElseThrow(() -> new BankAccountNotFoundException("Account not found with id: " + accountId));
+            if (account instanceof CurrentAccount) {
                 throw new InsufficientBalanceException("Insufficient balance including overdraft");
             }
-        } else if (account.getBalance() < requestDTO.getAmount()) {
             throw new InsufficientBalanceException("Insufficient balance");
         }
 
-        // Perform debit
-        account.setBalance(account.getBalance() - requestDTO.getAmount());
+        accountCache.evictAccount(accountId);
 
-        // Record operation
+        // Record operation; the row is locked by the update, so its balance is the one just written
         Operation operation = new Operation();
         operation.setOperationType(Operation_type.DEBIT);
         operation.setAmount(requestDTO.getAmount());
         operation.setDescription(requestDTO.getDescription());
-        operation.setBankAccount(account);
+        operation.setBankAccount(bankAccountRepo.getReferenceById(accountId));
         operation.setOperationDate(new Date());
+        if (!hotAccountService.isHot(accountId)) {
+            operation.setBalanceAfter(Money.ofMinor(bankAccountRepo.findBalanceById(accountId)));
+        }
 
         operationRepo.save(operation);
-        bankAccountRepo.save(account);
+        recorded(operation, accountId);
+        dashboardCounters.debited(amount, operation.getOperationDate());
     }
 
-    @Override
-    public void credit(Long accountId, CreditDebitRequestDTO requestDTO) {
-        if (requestDTO.getAmount() <= 0) {
-            throw new IllegalArgumentException("Credit amount must be positive");
+    private void applyCredit(Long accountId, CreditDebitRequestDTO requestDTO) {
+        if (hotAccountService.creditSlot(accountId, requestDTO.getAmount())) {
+            Operation operation = newOperation(Operation_type.CREDIT, requestDTO.getAmount(),
+                    requestDTO.getDescription(), bankAccountRepo.getReferenceById(accountId), new Date(), null);
+            operationRepo.save(operation);
+            recorded(operation, accountId);
+            dashboardCounters.credited(requestDTO.getAmount().minorUnits(), operation.getOperationDate());
+            return;
         }
 
         BankAccount account = bankAccountRepo.findById(accountId)
                 .orElseThrow(() -> new BankAccountNotFoundException("Account not found with id: " + accountId));
 
         // Perform credit
-        account.setBalance(account.getBalance() + requestDTO.getAmount());
+        account.setBalance(account.getBalance().plus(requestDTO.getAmount()));
+        account.setLastActivityAt(new Date());
 
         // Record operation
         Operation operation = new Operation();
@@ -221,32 +543,13 @@ public class CustomerService implements CustomerServiceinterface {
         operation.setDescription(requestDTO.getDescription());
         operation.setBankAccount(account);
         operation.setOperationDate(new Date());
+        operation.setBalanceAfter(account.getBalance());
 
         operationRepo.save(operation);
+        recorded(operation, accountId);
         bankAccountRepo.save(account);
-    }
-
-    @Override
-    public void transfer(TransferRequestDTO transferRequestDTO) {
-        // Convert String account IDs to Long if needed
-        Long sourceAccountId = Long.valueOf(transferRequestDTO.getAccountSource());
-        Long destAccountId = Long.valueOf(transferRequestDTO.getAccountDestination());
-
-        // Create debit request
-        CreditDebitRequestDTO debitRequest = new CreditDebitRequestDTO();
-        debitRequest.setAccountId(sourceAccountId);
-        debitRequest.setAmount(transferRequestDTO.getAmount());
-        debitRequest.setDescription(transferRequestDTO.getDescription());
-
-        // Create credit request
-        CreditDebitRequestDTO creditRequest = new CreditDebitRequestDTO();
-        creditRequest.setAccountId(destAccountId);
-        creditRequest.setAmount(transferRequestDTO.getAmount());
-        creditRequest.setDescription(transferRequestDTO.getDescription());
-
-        // Execute operations
-        debit(sourceAccountId, debitRequest);
-        credit(destAccountId, creditRequest);
+        accountCache.evictAccount(accountId);
+        dashboardCounters.credited(requestDTO.getAmount().minorUnits(), operation.getOperationDate());
     }
 
     @Override
@@ -259,21 +562,80 @@ public class CustomerService implements CustomerServiceinterface {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * One page of an account's operations, newest first.
+     * Pages are addressed by a (date, id) cursor instead of an offset, so every page is an index
+     * range scan of the same cost however deep it is.
+     *
+     * @param cursor nextCursor of the previous page, or null for the first page
+     * @param page   Page number, only echoed back (the cursor locates the page)
+     */
     @Override
-    public List<BankAccountDTO> getAccountsByCustomerId(Long customerId) {
-        Customer customer = customerRepo.findById(customerId)
-                .orElseThrow(() -> new CustomerNotFoundException("Customer not found with id: " + customerId));
+    public AccountHistoryDTO getAccountHistory(Long accountId, String cursor, int page, int size) {
+        if (size < 1 || size > MAX_HISTORY_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_HISTORY_PAGE_SIZE);
+        }
+        BankAccountDTO account = getAccount(accountId);
 
-        List<BankAccount> accounts = bankAccountRepo.findAccountsByCustomerId(customerId);
-        return accounts.stream()
-                .map(account -> {
-                    if (account instanceof SavingAccount) {
-                        return bankAccountMapper.fromSavingAccount((SavingAccount) account);
-                    } else {
-                        return bankAccountMapper.fromCurrentAccount((CurrentAccount) account);
-                    }
-                })
-                .collect(Collectors.toList());
+        // One extra row tells whether there is a next page
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<Operation> operations;
+        if (cursor == null || cursor.isBlank()) {
+            operations = operationRepo.findLatestByAccountId(accountId, limit);
+        } else {
+            String[] parts = cursor.split(":");
+            try {
+                if (parts.length != 2) {
+                    throw new NumberFormatException();
+                }
+                operations = operationRepo.findByAccountIdBefore(accountId,
+                        new Date(Long.parseLong(parts[0])), Long.valueOf(parts[1]), limit);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+        }
+
+        String nextCursor = null;
+        if (operations.size() > size) {
+            operations = operations.subList(0, size);
+            Operation last = operations.get(size - 1);
+            nextCursor = last.getOperationDate().getTime() + ":" + last.getId();
+        }
+        // Counting scans the account's whole slice of the index: first page only
+        Integer totalPages = null;
+        if (cursor == null || cursor.isBlank()) {
+            long total = operationRepo.countByAccountId(accountId);
+            totalPages = (int) ((total + size - 1) / size);
+        }
+
+        return new AccountHistoryDTO(
+                String.valueOf(accountId),
+                account.getBalance(),
+                page,
+                totalPages,
+                size,
+                operations.stream().map(bankAccountMapper::fromOperation).collect(Collectors.toList()),
+                nextCursor);
+    }
+
+    @Override
+    public List<BankAccountDTO> getAccountsByCustomerId(Long customerId) {
+        return hotAccountService.addSlotBalances(accountCache.customerAccounts(customerId, id -> {
+            List<BankAccount> accounts = bankAccountRepo.findAccountsByCustomerId(id);
+            // The owner comes with its accounts; only an empty result needs a second look
+            if (accounts.isEmpty() && !customerRepo.existsById(id)) {
+                throw new CustomerNotFoundException("Customer not found with id: " + id);
+            }
+            return accounts.stream()
+                    .map(account -> {
+                        if (account instanceof SavingAccount) {
+                            return bankAccountMapper.fromSavingAccount((SavingAccount) account);
+                        } else {
+                            return bankAccountMapper.fromCurrentAccount((CurrentAccount) account);
+                        }
+                    })
+                    .collect(Collectors.toList());
+        }));
     }
 
 
@@ -22,7 +22,9 @@ public interface CustomerServiceinterface {
     void debit(Long accountId, CreditDebitRequestDTO requestDTO);
     void credit(Long accountId, CreditDebitRequestDTO requestDTO);
     void transfer(TransferRequestDTO transferRequestDTO);
+    List<TransferResultDTO> transferBatch(List<TransferRequestDTO> transferRequests);
     List<AccountOperationDTO> getAccountOperations(Long accountId);
+    AccountHistoryDTO getAccountHistory(Long accountId, String cursor, int page, int size);
     List<BankAccountDTO> getAccountsByCustomerId(Long customerId);
 
 }
\ No newline at end of file
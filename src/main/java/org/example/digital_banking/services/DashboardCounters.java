@@ -0,0 +1,280 @@
+package org.example.digital_banking.services;
+
+import org.example.digital_banking.dtos.DashboardStatsDTO;
+import org.example.digital_banking.enums.AccountStatus;
+import org.example.digital_banking.enums.Operation_type;
+import org.example.digital_banking.ledger.BalanceEngine;
+import org.example.digital_banking.money.Money;
+import org.example.digital_banking.repositories.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live figures of the unfiltered dashboard, so that GET /dashboard/stats without a time range
+ * reads a handful of LongAdders instead of aggregating the tables. Account and operation writes
+ * adjust them once their transaction commits; the counters are seeded from the database when the
+ * application is ready and reconciled with it periodically, which also repairs what the write
+ * hooks do not see (other instances, interest accrual, bulk imports, status changes by jobs).
+ * <p>
+ * New accounts (last 30 days) and recent operations (last 7 days) are counted per day in a ring of
+ * day buckets, so these windows move by whole days, today included. In ledger mode operations are
+ * counted as the persister commits them, and the total balance is not reconciled: the stored
+ * balances lag behind the engine, through which every balance change goes.
+ */
+@Service
+public class DashboardCounters {
+
+    private static final Logger log = LoggerFactory.getLogger(DashboardCounters.class);
+    private static final int NEW_ACCOUNT_DAYS = 30;
+    private static final int RECENT_OPERATION_DAYS = 7;
+
+    private final BankAccountRepo bankAccountRepo;
+    private final OperationRepo operationRepo;
+    private final ObjectProvider<BalanceEngine> balanceEngine;
+
+    // Minor units
+    private final LongAdder totalBalance = new LongAdder();
+    private final LongAdder credits = new LongAdder();
+    private final LongAdder debits = new LongAdder();
+    private final LongAdder activeAccounts = new LongAdder();
+    private final DayWindow newAccounts = new DayWindow(NEW_ACCOUNT_DAYS);
+    private final DayWindow recentOperations = new DayWindow(RECENT_OPERATION_DAYS);
+    private volatile boolean seeded;
+
+    public DashboardCounters(BankAccountRepo bankAccountRepo,
+                             OperationRepo operationRepo,
+                             ObjectProvider<BalanceEngine> balanceEngine) {
+        this.bankAccountRepo = bankAccountRepo;
+        this.operationRepo = operationRepo;
+        this.balanceEngine = balanceEngine;
+    }
+
+    /**
+     * The unfiltered dashboard figures; empty until the counters are seeded
+     */
+    public Optional<DashboardStatsDTO> snapshot() {
+        if (!seeded) {
+            return Optional.empty();
+        }
+        long today = today();
+        return Optional.of(new DashboardStatsDTO(
+                Money.ofMinor(totalBalance.sum()),
+                Money.ofMinor(credits.sum() - debits.sum()),
+                (int) activeAccounts.sum(),
+                (int) newAccounts.sum(today),
+                (int) recentOperations.sum(today),
+                0));
+    }
+
+    public void accountCreated(Date createdAt, boolean active, long balance) {
+        AfterCommit.run(() -> {
+            totalBalance.add(balance);
+            activeAccounts.add(active ? 1 : 0);
+            newAccounts.add(epochDay(createdAt), 1);
+        });
+    }
+
+    public void accountUpdated(boolean wasActive, boolean active, long balanceChange) {
+        AfterCommit.run(() -> {
+            totalBalance.add(balanceChange);
+            activeAccounts.add((active ? 1 : 0) - (wasActive ? 1 : 0));
+        });
+    }
+
+    /**
+     * @param operations The deleted operations of the account, per day
+     */
+    public void accountDeleted(Date createdAt, boolean active, long balance, List<DailyOperationTotals> operations) {
+        AfterCommit.run(() -> {
+            totalBalance.add(-balance);
+            activeAccounts.add(active ? -1 : 0);
+            if (createdAt != null) {
+                newAccounts.add(epochDay(createdAt), -1);
+            }
+            for (DailyOperationTotals day : operations) {
+                credits.add(-day.getCredits());
+                debits.add(-day.getDebits());
+                recentOperations.add(day.getOperationDay().toEpochDay(), -day.getOperations());
+            }
+        });
+    }
+
+    public void credited(long amount, Date date) {
+        AfterCommit.run(() -> {
+            totalBalance.add(amount);
+            credits.add(amount);
+            recentOperations.add(epochDay(date), 1);
+        });
+    }
+
+    public void debited(long amount, Date date) {
+        AfterCommit.run(() -> {
+            totalBalance.add(-amount);
+            debits.add(amount);
+            recentOperations.add(epochDay(date), 1);
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        try {
+            reconcile();
+        } catch (RuntimeException e) {
+            log.error("Dashboard counters could not be seeded, the dashboard aggregates the tables meanwhile", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${banking.dashboard.reconcile-interval-ms:300000}",
+            initialDelayString = "${banking.dashboard.reconcile-interval-ms:300000}")
+    public void reconcilePeriodically() {
+        try {
+            reconcile();
+        } catch (RuntimeException e) {
+            log.error("Dashboard counters reconciliation failed", e);
+        }
+    }
+
+    /**
+     * Align the counters with the database. Writes applied while the aggregates run are kept on
+     * top of them: each counter moves by (database value - its value before the queries).
+     */
+    public synchronized void reconcile() {
+        long today = today();
+        Date newAccountsAfter = beforeDay(today - NEW_ACCOUNT_DAYS + 1);
+        Date recentAfter = beforeDay(today - RECENT_OPERATION_DAYS + 1);
+        boolean ledgerMode = balanceEngine.getIfAvailable() != null;
+
+        long balanceBefore = totalBalance.sum();
+        long activeBefore = activeAccounts.sum();
+        long creditsBefore = credits.sum();
+        long debitsBefore = debits.sum();
+        Map<Long, Long> newAccountsBefore = newAccounts.counts(today);
+        Map<Long, Long> recentBefore = recentOperations.counts(today);
+
+        AccountTotals accounts = bankAccountRepo.aggregateTotals(AccountStatus.ACTIVE.ordinal(), newAccountsAfter);
+        OperationTotals operations = operationRepo.aggregateTotals(Operation_type.CREDIT.ordinal(),
+                Operation_type.DEBIT.ordinal(), DashboardServiceImpl.NO_START, DashboardServiceImpl.NO_END, recentAfter);
+        Map<Long, Long> newAccountsByDay = new HashMap<>();
+        for (DailyAccountCount day : bankAccountRepo.countCreatedByDay(newAccountsAfter)) {
+            newAccountsByDay.put(day.getCreatedDay().toEpochDay(), day.getAccounts());
+        }
+        Map<Long, Long> recentByDay = new HashMap<>();
+        for (DailyOperationTotals day : operationRepo.aggregateByDay(Operation_type.CREDIT.ordinal(),
+                Operation_type.DEBIT.ordinal(), recentAfter, DashboardServiceImpl.NO_END)) {
+            recentByDay.put(day.getOperationDay().toEpochDay(), day.getOperations());
+        }
+
+        long drift = 0;
+        if (!ledgerMode || !seeded) {
+            drift += align(totalBalance, accounts.getBalance(), balanceBefore);
+        }
+        drift += align(activeAccounts, accounts.getActive(), activeBefore);
+        drift += align(credits, operations.getCredits(), creditsBefore);
+        drift += align(debits, operations.getDebits(), debitsBefore);
+        drift += newAccounts.align(today, newAccountsByDay, newAccountsBefore);
+        drift += recentOperations.align(today, recentByDay, recentBefore);
+
+        if (seeded && drift != 0) {
+            log.info("Dashboard counters reconciled, total drift {}", drift);
+        }
+        seeded = true;
+    }
+
+    private static long align(LongAdder counter, long expected, long before) {
+        counter.add(expected - before);
+        return Math.abs(expected - before);
+    }
+
+    private static long today() {
+        return LocalDate.now(ZoneId.systemDefault()).toEpochDay();
+    }
+
+    private static long epochDay(Date date) {
+        return Instant.ofEpochMilli(date.getTime()).atZone(ZoneId.systemDefault()).toLocalDate().toEpochDay();
+    }
+
+    /**
+     * Last millisecond before a day, as the aggregates exclude their start
+     */
+    private static Date beforeDay(long epochDay) {
+        return new Date(LocalDate.ofEpochDay(epochDay).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli() - 1);
+    }
+
+    /**
+     * Counts of the last days (today included), one bucket per day in a ring; a bucket is recycled
+     * by the first count of a day that maps to it. Counts for days before the window are dropped.
+     */
+    private static final class DayWindow {
+        private final int days;
+        private final AtomicReferenceArray<Bucket> ring;
+
+        private record Bucket(long day, LongAdder count) {
+        }
+
+        DayWindow(int days) {
+            this.days = days;
+            this.ring = new AtomicReferenceArray<>(days);
+        }
+
+        void add(long day, long count) {
+            int slot = (int) Math.floorMod(day, (long) days);
+            while (true) {
+                Bucket bucket = ring.get(slot);
+                if (bucket != null && bucket.day() == day) {
+                    bucket.count().add(count);
+                    return;
+                }
+                if (bucket != null && bucket.day() > day) {
+                    return;
+                }
+                ring.compareAndSet(slot, bucket, new Bucket(day, new LongAdder()));
+            }
+        }
+
+        long sum(long today) {
+            long sum = 0;
+            for (int i = 0; i < days; i++) {
+                Bucket bucket = ring.get(i);
+                if (bucket != null && bucket.day() > today - days && bucket.day() <= today) {
+                    sum += bucket.count().sum();
+                }
+            }
+            return sum;
+        }
+
+        Map<Long, Long> counts(long today) {
+            Map<Long, Long> counts = new HashMap<>();
+            for (int i = 0; i < days; i++) {
+                Bucket bucket = ring.get(i);
+                if (bucket != null && bucket.day() > today - days && bucket.day() <= today) {
+                    counts.put(bucket.day(), bucket.count().sum());
+                }
+            }
+            return counts;
+        }
+
+        long align(long today, Map<Long, Long> expected, Map<Long, Long> before) {
+            long drift = 0;
+            for (long day = today - days + 1; day <= today; day++) {
+                long change = expected.getOrDefault(day, 0L) - before.getOrDefault(day, 0L);
+                if (change != 0) {
+                    add(day, change);
+                    drift += Math.abs(change);
+                }
+            }
+            return drift;
+        }
+    }
+}
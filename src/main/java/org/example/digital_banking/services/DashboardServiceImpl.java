@@ -1,146 +1,110 @@
 package org.example.digital_banking.services;
 
+import org.example.digital_banking.analytics.ColumnarOperationStore;
 import org.example.digital_banking.dtos.AccountStatsDTO;
 import org.example.digital_banking.dtos.DashboardStatsDTO;
 import org.example.digital_banking.dtos.TimeRangeDTO;
 import org.example.digital_banking.dtos.TransactionStatsDTO;
-import org.example.digital_banking.entities.BankAccount;
-import org.example.digital_banking.entities.Operation;
 import org.example.digital_banking.enums.AccountStatus;
 import org.example.digital_banking.enums.Operation_type;
-import org.example.digital_banking.repositories.BankAccountRepo;
-import org.example.digital_banking.repositories.OperationRepo;
+import org.example.digital_banking.money.Money;
+import org.example.digital_banking.repositories.*;
 import org.springframework.stereotype.Service;
 
-import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.*;
-import java.util.stream.Collectors;
 
+/**
+ * Dashboard figures computed by the database: every endpoint runs one or two aggregate queries
+ * (SUM / COUNT / GROUP BY) and never loads accounts or operations. Operation ranges are read from
+ * idx_operation_date_type_amount alone. The unfiltered stats come from {@link DashboardCounters}
+ * once they are seeded, and the whole days of transaction charts from the daily rollup rows.
+ * When the {@link OperationAnalyticsService} store is enabled and built, operation ranges are
+ * scanned in memory instead.
+ */
 @Service
 public class DashboardServiceImpl implements DashboardService {
 
+    // Open bounds of an unset time range
+    static final Date NO_START = new Date(0);
+    static final Date NO_END = Date.from(Instant.parse("9999-12-31T00:00:00Z"));
+
     private final BankAccountRepo bankAccountRepo;
     private final OperationRepo operationRepo;
+    private final DashboardCounters dashboardCounters;
+    private final OperationRollupService operationRollupService;
+    private final OperationAnalyticsService operationAnalyticsService;
 
-    public DashboardServiceImpl(BankAccountRepo bankAccountRepo, OperationRepo operationRepo) {
+    public DashboardServiceImpl(BankAccountRepo bankAccountRepo,
+                                OperationRepo operationRepo,
+                                DashboardCounters dashboardCounters,
+                                OperationRollupService operationRollupService,
+                                OperationAnalyticsService operationAnalyticsService) {
         this.bankAccountRepo = bankAccountRepo;
         this.operationRepo = operationRepo;
+        this.dashboardCounters = dashboardCounters;
+        this.operationRollupService = operationRollupService;
+        this.operationAnalyticsService = operationAnalyticsService;
     }
 
     @Override
     public DashboardStatsDTO getDashboardStats(TimeRangeDTO timeRange) {
-        List<BankAccount> accounts = bankAccountRepo.findAll();
-        
-        // Calculate total balance
-        double totalBalance = accounts.stream()
-                .mapToDouble(BankAccount::getBalance)
-                .sum();
-        
-        // Count active accounts
-        long activeAccounts = accounts.stream()
-                .filter(account -> account.getStatus() == AccountStatus.ACTIVE)
-                .count();
-        
-        // Count new accounts (created within the time range or last 30 days if no range specified)
-        Date startDate = timeRange != null && timeRange.getStart() != null ? 
-                timeRange.getStart() : getDateMinusDays(30);
-        
-        long newAccounts = accounts.stream()
-                .filter(account -> account.getCreatedAt() != null && 
-                        account.getCreatedAt().after(startDate))
-                .count();
-        
-        // Get all operations
-        List<Operation> operations = operationRepo.findAll();
-        
-        // Filter operations by date if timeRange is provided
-        if (timeRange != null) {
-            if (timeRange.getStart() != null) {
-                operations = operations.stream()
-                        .filter(op -> op.getOperationDate().after(timeRange.getStart()))
-                        .collect(Collectors.toList());
-            }
-            if (timeRange.getEnd() != null) {
-                operations = operations.stream()
-                        .filter(op -> op.getOperationDate().before(timeRange.getEnd()))
-                        .collect(Collectors.toList());
+        if (timeRange == null) {
+            Optional<DashboardStatsDTO> live = dashboardCounters.snapshot();
+            if (live.isPresent()) {
+                return live.get();
             }
         }
-        
-        // Count recent transactions (last 7 days)
-        Date lastWeek = getDateMinusDays(7);
-        long recentTransactions = operations.stream()
-                .filter(op -> op.getOperationDate().after(lastWeek))
-                .count();
-        
-        // Calculate balance change (simplified - just sum of credits minus debits in the period)
-        double credits = operations.stream()
-                .filter(op -> op.getOperationType() == Operation_type.CREDIT)
-                .mapToDouble(Operation::getAmount)
-                .sum();
-        
-        double debits = operations.stream()
-                .filter(op -> op.getOperationType() == Operation_type.DEBIT)
-                .mapToDouble(Operation::getAmount)
-                .sum();
-        
-        double balanceChange = credits - debits;
-        
+
+        // New accounts: created within the time range, or in the last 30 days if no range is specified
+        Date startDate = timeRange != null && timeRange.getStart() != null ?
+                timeRange.getStart() : getDateMinusDays(30);
+        AccountTotals accounts = bankAccountRepo.aggregateTotals(AccountStatus.ACTIVE.ordinal(), startDate);
+
+        // Operations of the time range (all of them without one); recent ones are those of the last 7 days
+        long credits;
+        long debits;
+        long recent;
+        if (operationAnalyticsService.ready()) {
+            ColumnarOperationStore.Totals operations = operationAnalyticsService.totals(
+                    start(timeRange), end(timeRange), getDateMinusDays(7));
+            credits = operations.credits();
+            debits = operations.debits();
+            recent = operations.recent();
+        } else {
+            OperationTotals operations = operationRepo.aggregateTotals(
+                    Operation_type.CREDIT.ordinal(), Operation_type.DEBIT.ordinal(),
+                    start(timeRange), end(timeRange), getDateMinusDays(7));
+            credits = operations.getCredits();
+            debits = operations.getDebits();
+            recent = operations.getRecent();
+        }
+
         // For this example, we'll assume there are no pending transactions
         int pendingTransactions = 0;
-        
+
         return new DashboardStatsDTO(
-                totalBalance,
-                balanceChange,
-                (int) activeAccounts,
-                (int) newAccounts,
-                (int) recentTransactions,
+                Money.ofMinor(accounts.getBalance()),
+                Money.ofMinor(credits - debits),
+                (int) accounts.getActive(),
+                (int) accounts.getCreated(),
+                (int) recent,
                 pendingTransactions
         );
     }
 
     @Override
     public List<AccountStatsDTO> getAccountStats(TimeRangeDTO timeRange) {
-        List<BankAccount> accounts = bankAccountRepo.findAll();
-        
-        // Filter accounts by date if timeRange is provided
-        if (timeRange != null) {
-            if (timeRange.getStart() != null) {
-                accounts = accounts.stream()
-                        .filter(account -> account.getCreatedAt() == null || 
-                                account.getCreatedAt().after(timeRange.getStart()))
-                        .collect(Collectors.toList());
-            }
-            if (timeRange.getEnd() != null) {
-                accounts = accounts.stream()
-                        .filter(account -> account.getCreatedAt() == null || 
-                                account.getCreatedAt().before(timeRange.getEnd()))
-                        .collect(Collectors.toList());
-            }
-        }
-        
-        // Group accounts by type and calculate statistics
-        Map<String, List<BankAccount>> accountsByType = accounts.stream()
-                .collect(Collectors.groupingBy(account -> 
-                        account.getClass().getSimpleName().replace("Account", "")));
-        
         List<AccountStatsDTO> result = new ArrayList<>();
-        
-        for (Map.Entry<String, List<BankAccount>> entry : accountsByType.entrySet()) {
-            String type = entry.getKey();
-            List<BankAccount> accountsOfType = entry.getValue();
-            
-            double totalBalance = accountsOfType.stream()
-                    .mapToDouble(BankAccount::getBalance)
-                    .sum();
-            
+        for (AccountTypeTotals totals : bankAccountRepo.aggregateByType(start(timeRange), end(timeRange))) {
             result.add(new AccountStatsDTO(
-                    type,
-                    accountsOfType.size(),
-                    totalBalance
+                    "SAV".equals(totals.getType()) ? "Saving" : "Current",
+                    (int) totals.getAccounts(),
+                    Money.ofMinor(totals.getBalance())
             ));
         }
-        
         return result;
     }
 
@@ -149,77 +113,84 @@ public class DashboardServiceImpl implements DashboardService {
         if (timeRange == null || timeRange.getStart() == null || timeRange.getEnd() == null) {
             throw new IllegalArgumentException("Time range with start and end dates is required");
         }
-        
-        List<Operation> operations = operationRepo.findAll();
-        
-        // Filter operations by date range
-        operations = operations.stream()
-                .filter(op -> op.getOperationDate().after(timeRange.getStart()) && 
-                        op.getOperationDate().before(timeRange.getEnd()))
-                .collect(Collectors.toList());
-        
-        // Determine date format and grouping based on interval
-        String dateFormat;
-        Calendar calendar = Calendar.getInstance();
-        int calendarField;
-        
-        switch (interval.toLowerCase()) {
-            case "daily":
-                dateFormat = "yyyy-MM-dd";
-                calendarField = Calendar.DAY_OF_MONTH;
-                break;
-            case "weekly":
-                dateFormat = "yyyy-'W'ww";
-                calendarField = Calendar.WEEK_OF_YEAR;
-                break;
-            case "monthly":
-                dateFormat = "yyyy-MM";
-                calendarField = Calendar.MONTH;
-                break;
-            default:
-                dateFormat = "yyyy-MM-dd";
-                calendarField = Calendar.DAY_OF_MONTH;
+
+        // Days are added to the bucket of their interval; every bucket of the range is returned, empty or not
+        TransactionBuckets buckets = new TransactionBuckets(TransactionBuckets.Interval.of(interval),
+                ZoneId.systemDefault(), timeRange.getStart(), timeRange.getEnd());
+        if (operationAnalyticsService.ready()) {
+            ColumnarOperationStore.DailyTotals days =
+                    operationAnalyticsService.dailyTotals(timeRange.getStart(), timeRange.getEnd());
+            for (int i = 0; i < days.credits().length; i++) {
+                buckets.add(days.firstDay() + i, days.credits()[i], days.debits()[i]);
+            }
+        } else {
+            for (DailyOperationTotals day : dailyTotals(timeRange.getStart(), timeRange.getEnd())) {
+                buckets.add(day.getOperationDay().toEpochDay(), day.getCredits(), day.getDebits());
+            }
         }
-        
-        SimpleDateFormat sdf = new SimpleDateFormat(dateFormat);
-        
-        // Group operations by date
-        Map<String, List<Operation>> operationsByDate = operations.stream()
-                .collect(Collectors.groupingBy(op -> sdf.format(op.getOperationDate())));
-        
-        // Sort dates
-        List<String> sortedDates = new ArrayList<>(operationsByDate.keySet());
-        Collections.sort(sortedDates);
-        
-        // Calculate statistics for each date
-        List<Double> deposits = new ArrayList<>();
-        List<Double> withdrawals = new ArrayList<>();
-        List<Double> netChanges = new ArrayList<>();
-        
-        for (String date : sortedDates) {
-            List<Operation> opsOnDate = operationsByDate.get(date);
-            
-            double depositsOnDate = opsOnDate.stream()
-                    .filter(op -> op.getOperationType() == Operation_type.CREDIT)
-                    .mapToDouble(Operation::getAmount)
-                    .sum();
-            
-            double withdrawalsOnDate = opsOnDate.stream()
-                    .filter(op -> op.getOperationType() == Operation_type.DEBIT)
-                    .mapToDouble(Operation::getAmount)
-                    .sum();
-            
-            deposits.add(depositsOnDate);
-            withdrawals.add(withdrawalsOnDate);
-            netChanges.add(depositsOnDate - withdrawalsOnDate);
+
+        List<String> dates = new ArrayList<>(buckets.size());
+        List<Money> deposits = new ArrayList<>(buckets.size());
+        List<Money> withdrawals = new ArrayList<>(buckets.size());
+        List<Money> netChanges = new ArrayList<>(buckets.size());
+        for (int i = 0; i < buckets.size(); i++) {
+            dates.add(buckets.label(i));
+            deposits.add(Money.ofMinor(buckets.credits(i)));
+            withdrawals.add(Money.ofMinor(buckets.debits(i)));
+            netChanges.add(Money.ofMinor(buckets.credits(i) - buckets.debits(i)));
         }
-        
-        return new TransactionStatsDTO(sortedDates, deposits, withdrawals, netChanges);
+
+        return new TransactionStatsDTO(dates, deposits, withdrawals, netChanges);
+    }
+
+    /**
+     * Totals per day of (start, end): whole days that are rolled up come from the rollup rows, the
+     * partial days at both ends and the days not rolled up yet from the operations
+     */
+    private List<DailyOperationTotals> dailyTotals(Date start, Date end) {
+        ZoneId zone = ZoneId.systemDefault();
+        LocalDate first = start.toInstant().atZone(zone).toLocalDate();
+        if (start.after(OperationRollupService.startOf(first))) {
+            first = first.plusDays(1);
+        }
+        LocalDate last = end.toInstant().atZone(zone).toLocalDate();
+        LocalDate completeBefore = operationRollupService.completeBefore();
+        if (completeBefore != null && last.isAfter(completeBefore)) {
+            last = completeBefore;
+        }
+        if (completeBefore == null || !first.isBefore(last)) {
+            return aggregateByDay(start, end);
+        }
+
+        List<DailyOperationTotals> days = new ArrayList<>();
+        Date rolledUpFrom = OperationRollupService.startOf(first);
+        Date rolledUpTo = OperationRollupService.startOf(last);
+        if (start.before(rolledUpFrom)) {
+            days.addAll(aggregateByDay(start, rolledUpFrom));
+        }
+        days.addAll(operationRollupService.dailyTotals(first, last));
+        if (end.after(rolledUpTo)) {
+            // The start of the operation aggregate is exclusive
+            days.addAll(aggregateByDay(new Date(rolledUpTo.getTime() - 1), end));
+        }
+        return days;
+    }
+
+    private List<DailyOperationTotals> aggregateByDay(Date start, Date end) {
+        return operationRepo.aggregateByDay(Operation_type.CREDIT.ordinal(), Operation_type.DEBIT.ordinal(), start, end);
+    }
+
+    private static Date start(TimeRangeDTO timeRange) {
+        return timeRange != null && timeRange.getStart() != null ? timeRange.getStart() : NO_START;
+    }
+
+    private static Date end(TimeRangeDTO timeRange) {
+        return timeRange != null && timeRange.getEnd() != null ? timeRange.getEnd() : NO_END;
     }
-    
+
     private Date getDateMinusDays(int days) {
         Calendar calendar = Calendar.getInstance();
         calendar.add(Calendar.DAY_OF_MONTH, -days);
         return calendar.getTime();
     }
-}
\ No newline at end of file
+}
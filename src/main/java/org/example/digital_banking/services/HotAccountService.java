@@ -0,0 +1,215 @@
+package org.example.digital_banking.services;
+
+import jakarta.annotation.PostConstruct;
+import org.example.digital_banking.concurrency.AccountLockManager;
+import org.example.digital_banking.dtos.BankAccountDTO;
+import org.example.digital_banking.entities.BalanceSlot;
+import org.example.digital_banking.exceptions.BankAccountNotFoundException;
+import org.example.digital_banking.money.Money;
+import org.example.digital_banking.repositories.BalanceSlotRepo;
+import org.example.digital_banking.repositories.BankAccountRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Sub-balance slots for hot accounts (e.g. a merchant receiving thousands of credits per second).
+ * The balance of a hot account is split between bank_account.balance and N balance_slot rows:
+ * credits add to a random slot without taking the account stripe lock, so they only contend
+ * with the credits that picked the same slot. Debits still run under the stripe lock against
+ * bank_account.balance and fold the slots into it when the base alone is short. Reads add the
+ * slots back, so every balance returned by the API stays exact.
+ * <p>
+ * Which accounts are hot is kept in memory and reloaded from balance_slot on a short interval, so
+ * that every instance picks up the accounts configured on another one. Until it does, it credits
+ * them on the base balance, which is always correct.
+ */
+@Service
+public class HotAccountService {
+
+    private static final Logger log = LoggerFactory.getLogger(HotAccountService.class);
+
+    private final BalanceSlotRepo balanceSlotRepo;
+    private final BankAccountRepo bankAccountRepo;
+    private final AccountLockManager accountLockManager;
+    private final TransactionTemplate transactionTemplate;
+    private final AccountCache accountCache;
+    private final int maxSlots;
+    // Slot count per hot account, as of the last reload
+    private final Map<Long, Integer> slotCounts = new ConcurrentHashMap<>();
+
+    public HotAccountService(BalanceSlotRepo balanceSlotRepo,
+                             BankAccountRepo bankAccountRepo,
+                             AccountLockManager accountLockManager,
+                             TransactionTemplate transactionTemplate,
+                             AccountCache accountCache,
+                             @Value("${banking.hot-accounts.max-slots:64}") int maxSlots) {
+        this.balanceSlotRepo = balanceSlotRepo;
+        this.bankAccountRepo = bankAccountRepo;
+        this.accountLockManager = accountLockManager;
+        this.transactionTemplate = transactionTemplate;
+        this.accountCache = accountCache;
+        this.maxSlots = maxSlots;
+    }
+
+    @PostConstruct
+    void loadRegistry() {
+        reloadRegistry();
+        if (!slotCounts.isEmpty()) {
+            log.info("{} hot accounts with sub-balance slots", slotCounts.size());
+        }
+    }
+
+    /**
+     * Pick up the accounts configured (or merged back) on other instances
+     */
+    @Scheduled(fixedDelayString = "${banking.hot-accounts.refresh-interval-ms:5000}",
+            initialDelayString = "${banking.hot-accounts.refresh-interval-ms:5000}")
+    public void refreshRegistry() {
+        try {
+            reloadRegistry();
+        } catch (RuntimeException e) {
+            log.error("Hot account registry refresh failed", e);
+        }
+    }
+
+    private void reloadRegistry() {
+        Map<Long, Integer> loaded = new HashMap<>();
+        for (Object[] row : balanceSlotRepo.countSlotsByAccount()) {
+            loaded.put(((Number) row[0]).longValue(), ((Number) row[1]).intValue());
+        }
+        // A stale count is harmless: a credit to a slot that no longer exists falls back to the base balance
+        slotCounts.keySet().retainAll(loaded.keySet());
+        slotCounts.putAll(loaded);
+    }
+
+    public boolean isHot(Long accountId) {
+        return accountId != null && slotCounts.containsKey(accountId);
+    }
+
+    /**
+     * Split an account's balance into slots, or merge it back with slots = 0.
+     * Existing slots are folded into the base balance first, so reconfiguring never moves money.
+     */
+    public void configure(Long accountId, int slots) {
+        if (slots < 0 || slots > maxSlots) {
+            throw new IllegalArgumentException("Slot count must be between 0 and " + maxSlots);
+        }
+        if (!bankAccountRepo.existsById(accountId)) {
+            throw new BankAccountNotFoundException("Account not found with id: " + accountId);
+        }
+
+        // Credits stop picking the old slots first; one already in flight either lands before the
+        // fold below or finds no slot row and falls back to the base balance
+        slotCounts.remove(accountId);
+        accountLockManager.withLock(accountId, () -> transactionTemplate.execute(status -> {
+            fold(accountId);
+            balanceSlotRepo.deleteByAccountId(accountId);
+            List<BalanceSlot> created = new ArrayList<>(slots);
+            for (int slot = 0; slot < slots; slot++) {
+                created.add(new BalanceSlot(null, accountId, slot, Money.ZERO));
+            }
+            return balanceSlotRepo.saveAll(created);
+        }));
+        if (slots > 0) {
+            slotCounts.put(accountId, slots);
+        }
+    }
+
+    /**
+     * Credit a random slot of a hot account (caller's transaction)
+     *
+     * @return false if the account has no slots, the credit must then go to the base balance
+     */
+    public boolean creditSlot(Long accountId, Money amount) {
+        Integer slots = slotCounts.get(accountId);
+        if (slots == null) {
+            return false;
+        }
+        int slot = ThreadLocalRandom.current().nextInt(slots);
+        return balanceSlotRepo.credit(accountId, slot, amount.minorUnits()) == 1;
+    }
+
+    /**
+     * Move the slots of an account into its base balance (caller's transaction, under the account's
+     * stripe lock). The slot rows are locked first so that no credit lands on them half-way.
+     *
+     * @return Amount moved, in minor units
+     */
+    public long fold(Long accountId) {
+        List<BalanceSlot> slots = balanceSlotRepo.lockByAccountId(accountId);
+        long total = 0;
+        for (BalanceSlot slot : slots) {
+            if (!slot.getBalance().isZero()) {
+                total = Math.addExact(total, slot.getBalance().minorUnits());
+                slot.setBalance(Money.ZERO);
+            }
+        }
+        if (total != 0) {
+            bankAccountRepo.addToBalance(accountId, total);
+            // The cached base balance is now short of what left the slots
+            accountCache.evictAccount(accountId);
+        }
+        return total;
+    }
+
+    /**
+     * Fold in a transaction of its own (used by the in-memory ledger before it loads an account)
+     */
+    public void foldNow(Long accountId) {
+        if (isHot(accountId)) {
+            transactionTemplate.execute(status -> fold(accountId));
+        }
+    }
+
+    /**
+     * Drop the slots of a deleted account (caller's transaction)
+     */
+    public void forget(Long accountId) {
+        if (slotCounts.remove(accountId) != null) {
+            balanceSlotRepo.deleteByAccountId(accountId);
+        }
+    }
+
+    /**
+     * Sum of the slots per hot account, in minor units; accounts without slots are absent
+     */
+    public Map<Long, Long> slotBalances(Collection<Long> accountIds) {
+        List<Long> hot = accountIds.stream().filter(this::isHot).toList();
+        if (hot.isEmpty()) {
+            return Map.of();
+        }
+        Map<Long, Long> totals = new HashMap<>();
+        for (Object[] row : balanceSlotRepo.sumByAccountIds(hot)) {
+            totals.put(((Number) row[0]).longValue(), ((Number) row[1]).longValue());
+        }
+        return totals;
+    }
+
+    public Map<Long, Long> slotBalances() {
+        return slotBalances(slotCounts.keySet());
+    }
+
+    /**
+     * Add the slots of hot accounts to their DTO balances (one query for the whole list)
+     */
+    public <T extends BankAccountDTO> List<T> addSlotBalances(List<T> accounts) {
+        Map<Long, Long> totals = slotBalances(accounts.stream().map(BankAccountDTO::getId).toList());
+        if (!totals.isEmpty()) {
+            for (BankAccountDTO account : accounts) {
+                Long slots = totals.get(account.getId());
+                if (slots != null && account.getBalance() != null) {
+                    account.setBalance(account.getBalance().plus(Money.ofMinor(slots)));
+                }
+            }
+        }
+        return accounts;
+    }
+}
@@ -0,0 +1,275 @@
+package org.example.digital_banking.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.example.digital_banking.entities.IdempotencyRecord;
+import org.example.digital_banking.exceptions.IdempotencyKeyConflictException;
+import org.example.digital_banking.repositories.IdempotencyRecordRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Replays the stored response of a money-moving request that is retried with the same Idempotency-Key.
+ * Keys belong to the caller that sent them: the same key sent by two users names two requests.
+ * <p>
+ * A key is reserved in the idempotency_key table (status 0) before the request runs, so that no
+ * other instance runs it meanwhile, and completed with the response status once it has answered.
+ * A reservation that is never completed (crash, database outage) lapses after a short lease
+ * instead of blocking the key for its whole TTL. Recent keys also live in a bounded in-memory
+ * LRU. Only the status code is kept, since debit, credit and transfer answer without a body.
+ * 5xx responses and exceptions release the key, so the client can retry them.
+ */
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+    private static final int MAX_KEY_LENGTH = 100;
+    private static final String ANONYMOUS = "anonymous";
+
+    private final IdempotencyRecordRepo idempotencyRecordRepo;
+    private final ObjectMapper canonicalMapper;
+    private final long ttlMillis;
+    private final long leaseMillis;
+    private final Map<String, Entry> entries;
+
+    public IdempotencyService(IdempotencyRecordRepo idempotencyRecordRepo,
+                              ObjectMapper objectMapper,
+                              @Value("${banking.idempotency.ttl-minutes:1440}") long ttlMinutes,
+                              @Value("${banking.idempotency.lease-minutes:5}") long leaseMinutes,
+                              @Value("${banking.idempotency.max-entries:100000}") int maxEntries) {
+        this.idempotencyRecordRepo = idempotencyRecordRepo;
+        this.canonicalMapper = objectMapper.copy().enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+        this.ttlMillis = ttlMinutes * 60_000;
+        this.leaseMillis = leaseMinutes * 60_000;
+        this.entries = new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                // In-flight entries are never evicted, they guard a request that is still running
+                return size() > maxEntries && eldest.getValue().statusCode != 0;
+            }
+        };
+    }
+
+    /**
+     * Run a request at most once per idempotency key and caller
+     *
+     * @param key The Idempotency-Key header value, or null to run the request unconditionally
+     * @param caller Name of the authenticated principal, which the key is scoped to
+     * @param endpoint Name of the endpoint, part of the request fingerprint
+     * @param request The request payload, part of the request fingerprint
+     * @param action The request handler
+     * @return The handler response, or the stored response when the key was already used
+     */
+    public <T> ResponseEntity<T> execute(String key, String caller, String endpoint, Object request,
+                                         Supplier<ResponseEntity<T>> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key must be at most " + MAX_KEY_LENGTH + " characters");
+        }
+
+        String principal = caller != null ? caller : ANONYMOUS;
+        String scopedKey = sha256(principal, key);
+        String digest = sha256(endpoint, principal, canonicalJson(request));
+        long now = System.currentTimeMillis();
+
+        Entry existing = lookup(scopedKey, now);
+        if (existing != null) {
+            return replay(key, existing, digest);
+        }
+
+        Entry inFlight = new Entry(digest, 0, now + leaseMillis);
+        synchronized (entries) {
+            Entry raced = entries.get(scopedKey);
+            if (raced != null && raced.expiresAt > now) {
+                return replay(key, raced, digest);
+            }
+            entries.put(scopedKey, inFlight);
+        }
+
+        // Durable reservation first: the request only runs once no other instance can run it
+        try {
+            Entry reserved = reserve(scopedKey, principal, endpoint, digest, now, inFlight.expiresAt);
+            if (reserved != null) {
+                forget(scopedKey, inFlight);
+                return replay(key, reserved, digest);
+            }
+        } catch (RuntimeException e) {
+            forget(scopedKey, inFlight);
+            throw e;
+        }
+
+        ResponseEntity<T> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            release(scopedKey, inFlight);
+            throw e;
+        }
+
+        int statusCode = response.getStatusCode().value();
+        if (statusCode >= 500) {
+            release(scopedKey, inFlight);
+            return response;
+        }
+
+        Entry completed = new Entry(digest, statusCode, now + ttlMillis);
+        synchronized (entries) {
+            entries.put(scopedKey, completed);
+        }
+        try {
+            idempotencyRecordRepo.complete(scopedKey, statusCode, new Date(completed.expiresAt));
+        } catch (DataAccessException e) {
+            // The request did run: answer it. This instance still replays the key; elsewhere the
+            // reservation blocks the key until its lease lapses
+            log.error("Failed to record the response of idempotency key {} ({} {})", key, endpoint, statusCode, e);
+        }
+        return response;
+    }
+
+    /**
+     * Drop expired keys from memory and from the durable table
+     */
+    @Scheduled(fixedDelayString = "${banking.idempotency.purge-interval-ms:60000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            entries.values().removeIf(entry -> entry.statusCode != 0 && entry.expiresAt <= now);
+        }
+        int deleted = idempotencyRecordRepo.deleteExpired(new Date(now));
+        if (deleted > 0) {
+            log.debug("Purged {} expired idempotency records", deleted);
+        }
+    }
+
+    private Entry lookup(String scopedKey, long now) {
+        synchronized (entries) {
+            Entry entry = entries.get(scopedKey);
+            if (entry != null && entry.expiresAt > now) {
+                return entry;
+            }
+        }
+
+        // Memory miss: fall back to the durable table (restart, eviction or another instance)
+        Optional<Entry> recorded = findRecorded(scopedKey, now);
+        if (recorded.isEmpty() || recorded.get().statusCode == 0) {
+            // Reservations are not cached: they change as soon as the other request answers
+            return recorded.orElse(null);
+        }
+        synchronized (entries) {
+            entries.putIfAbsent(scopedKey, recorded.get());
+        }
+        return recorded.get();
+    }
+
+    private Optional<Entry> findRecorded(String scopedKey, long now) {
+        return idempotencyRecordRepo.findById(scopedKey)
+                .filter(record -> record.getExpiresAt().getTime() > now)
+                .map(record -> new Entry(record.getRequestDigest(), record.getStatusCode(),
+                        record.getExpiresAt().getTime()));
+    }
+
+    /**
+     * Insert the reservation of a key
+     *
+     * @return null once reserved, or the entry of the request that holds the key
+     */
+    private Entry reserve(String scopedKey, String caller, String endpoint, String digest, long now, long expiresAt) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                idempotencyRecordRepo.reserve(scopedKey, caller, endpoint, digest, new Date(now), new Date(expiresAt));
+                return null;
+            } catch (DataIntegrityViolationException e) {
+                Optional<Entry> holder = findRecorded(scopedKey, now);
+                if (holder.isPresent()) {
+                    return holder.get();
+                }
+                if (attempt >= 2) {
+                    // Taken and released again meanwhile: treat it as still running
+                    return new Entry(digest, 0, expiresAt);
+                }
+                // The row held an expired key: drop it and take the key over
+                idempotencyRecordRepo.deleteExpired(scopedKey, new Date(now));
+            }
+        }
+    }
+
+    private <T> ResponseEntity<T> replay(String key, Entry entry, String digest) {
+        if (!entry.requestDigest.equals(digest)) {
+            throw new IdempotencyKeyConflictException(
+                    "Idempotency-Key " + key + " was already used with a different request");
+        }
+        if (entry.statusCode == 0) {
+            throw new IdempotencyKeyConflictException(
+                    "A request with Idempotency-Key " + key + " is still being processed");
+        }
+        return ResponseEntity.status(entry.statusCode)
+                .header(REPLAYED_HEADER, "true")
+                .build();
+    }
+
+    private void release(String scopedKey, Entry inFlight) {
+        forget(scopedKey, inFlight);
+        try {
+            idempotencyRecordRepo.release(scopedKey);
+        } catch (DataAccessException e) {
+            // The reservation lapses with its lease; until then a retry gets a 409
+            log.error("Failed to release idempotency key reservation {}", scopedKey, e);
+        }
+    }
+
+    private void forget(String scopedKey, Entry inFlight) {
+        synchronized (entries) {
+            entries.remove(scopedKey, inFlight);
+        }
+    }
+
+    private String canonicalJson(Object request) {
+        try {
+            return request != null ? canonicalMapper.writeValueAsString(request) : "";
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Request cannot be fingerprinted", e);
+        }
+    }
+
+    private static String sha256(String... parts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String part : parts) {
+                digest.update(part.getBytes(StandardCharsets.UTF_8));
+                // Separator, so that ("ab", "c") and ("a", "bc") differ
+                digest.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Stored outcome of a key; statusCode 0 marks a request that is still running
+     */
+    private record Entry(String requestDigest, int statusCode, long expiresAt) {
+    }
+}
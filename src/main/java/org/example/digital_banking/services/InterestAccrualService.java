@@ -0,0 +1,373 @@
+package org.example.digital_banking.services;
+
+import org.example.digital_banking.entities.InterestAccrualPartition;
+import org.example.digital_banking.entities.Operation;
+import org.example.digital_banking.enums.AccountStatus;
+import org.example.digital_banking.enums.Operation_type;
+import org.example.digital_banking.exceptions.ConcurrentUpdateException;
+import org.example.digital_banking.ledger.BalanceEngine;
+import org.example.digital_banking.ledger.LedgerEntry;
+import org.example.digital_banking.money.Money;
+import org.example.digital_banking.repositories.BankAccountRepo;
+import org.example.digital_banking.repositories.InterestAccrualPartitionRepo;
+import org.example.digital_banking.repositories.OperationRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Nightly interest accrual for savings accounts.
+ * The id range of the savings accounts is cut into partitions (one interest_accrual_partition row
+ * each) that a pool of workers processes in parallel. A worker reads its range with keyset pages,
+ * then writes the balance updates and the CREDIT operations of a page as JDBC batches, together
+ * with the partition cursor, in one transaction. A run interrupted by a crash or a deploy picks up
+ * where the cursors stopped, at startup or on the next scheduled run.
+ * In ledger mode the credits go through the {@link BalanceEngine}, which owns the balances; the first
+ * page of each partition then skips accounts already credited before the interruption.
+ */
+@Service
+@ConditionalOnProperty(name = "banking.interest.enabled", havingValue = "true", matchIfMissing = true)
+public class InterestAccrualService {
+
+    private static final Logger log = LoggerFactory.getLogger(InterestAccrualService.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BankAccountRepo bankAccountRepo;
+    private final OperationRepo operationRepo;
+    private final InterestAccrualPartitionRepo partitionRepo;
+    private final HotAccountService hotAccountService;
+    private final AccountCache accountCache;
+    private final ObjectProvider<BalanceEngine> balanceEngine;
+    private final int workers;
+    private final long partitionSize;
+    private final int pageSize;
+    private final int daysPerYear;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public InterestAccrualService(JdbcTemplate jdbcTemplate,
+                                  TransactionTemplate transactionTemplate,
+                                  BankAccountRepo bankAccountRepo,
+                                  OperationRepo operationRepo,
+                                  InterestAccrualPartitionRepo partitionRepo,
+                                  HotAccountService hotAccountService,
+                                  AccountCache accountCache,
+                                  ObjectProvider<BalanceEngine> balanceEngine,
+                                  @Value("${banking.interest.workers:4}") int workers,
+                                  @Value("${banking.interest.partition-size:100000}") long partitionSize,
+                                  @Value("${banking.interest.page-size:500}") int pageSize,
+                                  @Value("${banking.interest.days-per-year:365}") int daysPerYear) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.bankAccountRepo = bankAccountRepo;
+        this.operationRepo = operationRepo;
+        this.partitionRepo = partitionRepo;
+        this.hotAccountService = hotAccountService;
+        this.accountCache = accountCache;
+        this.balanceEngine = balanceEngine;
+        this.workers = Math.max(1, workers);
+        this.partitionSize = Math.max(1, partitionSize);
+        this.pageSize = Math.max(1, pageSize);
+        this.daysPerYear = daysPerYear;
+    }
+
+    @Scheduled(cron = "${banking.interest.cron:0 30 1 * * *}")
+    public void accrueDaily() {
+        runExclusively(LocalDate.now(ZoneId.systemDefault()));
+    }
+
+    /**
+     * Finish the runs that a shutdown interrupted, without waiting for the next night
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeUnfinished() {
+        if (!partitionRepo.findUnfinishedDates().isEmpty()) {
+            CompletableFuture.runAsync(() -> runExclusively(null));
+        }
+    }
+
+    private void runExclusively(LocalDate date) {
+        if (!running.compareAndSet(false, true)) {
+            log.warn("Interest accrual already running, skipped");
+            return;
+        }
+        try {
+            for (LocalDate unfinished : partitionRepo.findUnfinishedDates()) {
+                if (!unfinished.equals(date)) {
+                    accrue(unfinished);
+                }
+            }
+            if (date != null) {
+                accrue(date);
+            }
+        } catch (RuntimeException e) {
+            log.error("Interest accrual failed", e);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Accrue one day of interest on every active savings account (resuming the day if it was started)
+     *
+     * @return Number of accounts credited by this call
+     */
+    public long accrue(LocalDate date) {
+        planPartitions(date);
+        List<InterestAccrualPartition> partitions = partitionRepo.findByAccrualDateAndCompletedFalseOrderByFirstId(date);
+        if (partitions.isEmpty()) {
+            return 0;
+        }
+
+        long started = System.currentTimeMillis();
+        AtomicLong credited = new AtomicLong();
+        AtomicInteger failed = new AtomicInteger();
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(workers, partitions.size()), task -> {
+            Thread thread = new Thread(task, "interest-accrual-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<?>> futures = new ArrayList<>(partitions.size());
+            for (InterestAccrualPartition partition : partitions) {
+                futures.add(pool.submit(() -> {
+                    try {
+                        credited.addAndGet(process(partition, date));
+                    } catch (RuntimeException e) {
+                        failed.incrementAndGet();
+                        log.error("Interest accrual of {} failed for accounts {}..{}, will resume later",
+                                date, partition.getFirstId(), partition.getLastId(), e);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        log.info("Interest accrual of {}: {} accounts credited over {} partitions in {} ms ({} failed)",
+                date, credited.get(), partitions.size(), System.currentTimeMillis() - started, failed.get());
+        return credited.get();
+    }
+
+    private void planPartitions(LocalDate date) {
+        if (partitionRepo.existsByAccrualDate(date)) {
+            return;
+        }
+        Long[] bounds = jdbcTemplate.queryForObject(
+                "SELECT MIN(id_bank_account), MAX(id_bank_account) FROM bank_account WHERE type = 'SAV'",
+                (rs, rowNum) -> new Long[]{rs.getObject(1, Long.class), rs.getObject(2, Long.class)});
+        if (bounds == null || bounds[0] == null) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    partitionRepo.saveAll(plan(date, bounds[0], bounds[1], partitionSize)));
+        } catch (DataIntegrityViolationException e) {
+            // Another instance planned the same day first
+        }
+    }
+
+    static List<InterestAccrualPartition> plan(LocalDate date, long minId, long maxId, long partitionSize) {
+        List<InterestAccrualPartition> partitions = new ArrayList<>();
+        for (long first = minId; first <= maxId; first += partitionSize) {
+            long last = Math.min(maxId, first + partitionSize - 1);
+            partitions.add(new InterestAccrualPartition(null, date, first, last, first - 1, false, 0, Money.ZERO, null));
+            if (last == maxId) {
+                break;
+            }
+        }
+        return partitions;
+    }
+
+    /**
+     * One day of interest in minor units, rounded half-even; zero for non-positive balances or rates
+     */
+    static long dailyInterest(long balanceMinorUnits, double annualRatePercent, int daysPerYear) {
+        if (balanceMinorUnits <= 0 || annualRatePercent <= 0) {
+            return 0;
+        }
+        return BigDecimal.valueOf(balanceMinorUnits)
+                .multiply(BigDecimal.valueOf(annualRatePercent))
+                .divide(BigDecimal.valueOf(100L * daysPerYear), 0, RoundingMode.HALF_EVEN)
+                .longValueExact();
+    }
+
+    private record Credit(long accountId, long amount) {
+    }
+
+    /**
+     * @return Number of accounts credited
+     */
+    private long process(InterestAccrualPartition partition, LocalDate date) {
+        BalanceEngine engine = balanceEngine.getIfAvailable();
+        String description = "Interest accrual " + date;
+        long cursor = partition.getCursorId();
+        long credited = 0;
+        boolean firstPage = true;
+
+        while (true) {
+            List<long[]> page = jdbcTemplate.query(
+                    "SELECT id_bank_account, balance, interest_rate FROM bank_account " +
+                            "WHERE type = 'SAV' AND status = ? AND id_bank_account > ? AND id_bank_account <= ? " +
+                            "ORDER BY id_bank_account LIMIT ?",
+                    (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2),
+                            Double.doubleToRawLongBits(rs.getDouble(3))},
+                    AccountStatus.ACTIVE.ordinal(), cursor, partition.getLastId(), pageSize);
+            if (page.isEmpty()) {
+                break;
+            }
+
+            List<Long> ids = page.stream().map(row -> row[0]).toList();
+            Map<Long, Long> slotBalances = hotAccountService.slotBalances(ids);
+            List<Credit> credits = new ArrayList<>(page.size());
+            for (long[] row : page) {
+                long balance = row[1] + slotBalances.getOrDefault(row[0], 0L);
+                if (engine != null) {
+                    Long live = engine.peekBalance(row[0]);
+                    if (live != null) {
+                        balance = live;
+                    }
+                }
+                long interest = dailyInterest(balance, Double.longBitsToDouble(row[2]), daysPerYear);
+                if (interest > 0) {
+                    credits.add(new Credit(row[0], interest));
+                }
+            }
+
+            long next = page.get(page.size() - 1)[0];
+            if (engine != null) {
+                credits = creditThroughLedger(engine, credits, description, firstPage ? operationDate(date) : null);
+            }
+            long expected = cursor;
+            List<Credit> applied = credits;
+            transactionTemplate.executeWithoutResult(status -> {
+                if (engine == null) {
+                    writeCredits(applied, description);
+                }
+                if (partitionRepo.advance(partition.getId(), expected, next, applied.size(),
+                        applied.stream().mapToLong(Credit::amount).sum()) != 1) {
+                    throw new ConcurrentUpdateException("Interest partition " + partition.getId() + " was moved by another worker");
+                }
+            });
+
+            credited += applied.size();
+            cursor = next;
+            firstPage = false;
+            if (page.size() < pageSize) {
+                break;
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> partitionRepo.complete(partition.getId(), new Date()));
+        return credited;
+    }
+
+    private void writeCredits(List<Credit> credits, String description) {
+        if (credits.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(
+                "UPDATE bank_account SET balance = balance + ?, version = version + 1 WHERE id_bank_account = ?",
+                credits.stream().map(credit -> new Object[]{credit.amount(), credit.accountId()}).toList());
+        // Dated once the rows are locked, so that an operation dated before these credits is in their balance
+        Date operationDate = new Date();
+
+        // The updated rows stay locked until commit, so these are the balances just written
+        List<Long> ids = credits.stream().map(Credit::accountId).toList();
+        Map<Long, Long> balancesAfter = new HashMap<>();
+        jdbcTemplate.query("SELECT id_bank_account, balance FROM bank_account WHERE id_bank_account IN (" +
+                        SqlArgs.placeholders(ids.size()) + ")",
+                rs -> {
+                    balancesAfter.put(rs.getLong(1), rs.getLong(2));
+                }, ids.toArray());
+
+        // Inserted through JPA for the pooled operation ids; hibernate.jdbc.batch_size groups them
+        List<Operation> operations = new ArrayList<>(credits.size());
+        for (Credit credit : credits) {
+            Operation operation = new Operation();
+            operation.setOperationType(Operation_type.CREDIT);
+            operation.setAmount(Money.ofMinor(credit.amount()));
+            operation.setDescription(description);
+            operation.setOperationDate(operationDate);
+            operation.setBankAccount(bankAccountRepo.getReferenceById(credit.accountId()));
+            Long balanceAfter = balancesAfter.get(credit.accountId());
+            if (balanceAfter != null && !hotAccountService.isHot(credit.accountId())) {
+                operation.setBalanceAfter(Money.ofMinor(balanceAfter));
+            }
+            operations.add(operation);
+        }
+        operationRepo.saveAll(operations);
+        accountCache.evictAccounts(ids);
+    }
+
+    /**
+     * Submit the credits to the ledger and wait until their operations are committed
+     *
+     * @param creditedSince When set, accounts that already have this day's interest operation since then are skipped
+     * @return The credits the ledger accepted
+     */
+    private List<Credit> creditThroughLedger(BalanceEngine engine, List<Credit> credits, String description,
+                                             Date creditedSince) {
+        if (credits.isEmpty()) {
+            return credits;
+        }
+        if (creditedSince != null) {
+            List<Long> ids = credits.stream().map(Credit::accountId).toList();
+            Set<Long> done = new HashSet<>(jdbcTemplate.queryForList(
+                    "SELECT DISTINCT id_bank_account FROM operation WHERE id_bank_account IN (" +
+                            SqlArgs.placeholders(ids.size()) + ") " +
+                            "AND operation_date >= ? AND description = ?",
+                    Long.class, SqlArgs.concat(ids, creditedSince, description)));
+            credits = credits.stream().filter(credit -> !done.contains(credit.accountId())).toList();
+        }
+
+        List<Credit> accepted = new ArrayList<>(credits.size());
+        List<CompletableFuture<Void>> persisted = new ArrayList<>(credits.size());
+        for (Credit credit : credits) {
+            persisted.add(engine.accrue(credit.accountId(), credit.amount(), description)
+                    .thenCompose(LedgerEntry::getPersisted)
+                    .handle((done, failure) -> {
+                        if (failure == null) {
+                            synchronized (accepted) {
+                                accepted.add(credit);
+                            }
+                        }
+                        // An account deleted since the page was read is simply skipped
+                        return null;
+                    }));
+        }
+        BalanceEngine.await(CompletableFuture.allOf(persisted.toArray(CompletableFuture[]::new)));
+        return accepted;
+    }
+
+    private static Date operationDate(LocalDate date) {
+        return Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+}
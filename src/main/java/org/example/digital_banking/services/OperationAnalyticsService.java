@@ -0,0 +1,175 @@
+package org.example.digital_banking.services;
+
+import org.example.digital_banking.analytics.ColumnarOperationStore;
+import org.example.digital_banking.enums.Operation_type;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Operations kept in memory in a {@link ColumnarOperationStore}, so that dashboard range
+ * aggregations scan primitive arrays instead of querying the operation table. Off by default
+ * (about 25 bytes per operation of heap).
+ * <p>
+ * The store is built from the operation table in the background once the application is ready,
+ * and rebuilt every night (after the interest accrual, which writes its credits directly, and to
+ * pick up the writes of other instances). Operations and account deletions of this instance are
+ * applied to it as soon as they commit, including while a build is running; until the first build
+ * completes the dashboard queries the database.
+ */
+@Service
+public class OperationAnalyticsService {
+
+    private static final Logger log = LoggerFactory.getLogger(OperationAnalyticsService.class);
+
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final boolean enabled;
+    private final int segmentCapacity;
+    private final AtomicBoolean building = new AtomicBoolean();
+    // Null until the first build completes
+    private volatile ColumnarOperationStore store;
+    // Guarded by this; changes committed while a build runs, and the operation ids among them
+    private List<Consumer<ColumnarOperationStore>> pending;
+    private Set<Long> pendingIds;
+
+    public OperationAnalyticsService(@Qualifier("streamingJdbcTemplate") JdbcTemplate streamingJdbcTemplate,
+                                     @Value("${banking.analytics.enabled:false}") boolean enabled,
+                                     @Value("${banking.analytics.segment-rows:65536}") int segmentCapacity) {
+        this.streamingJdbcTemplate = streamingJdbcTemplate;
+        this.enabled = enabled;
+        this.segmentCapacity = segmentCapacity;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildInBackground() {
+        if (enabled) {
+            CompletableFuture.runAsync(this::rebuild);
+        }
+    }
+
+    @Scheduled(cron = "${banking.analytics.rebuild-cron:0 45 2 * * *}")
+    public void rebuild() {
+        if (!enabled || !building.compareAndSet(false, true)) {
+            return;
+        }
+        long started = System.currentTimeMillis();
+        try {
+            synchronized (this) {
+                pending = new ArrayList<>();
+                pendingIds = ConcurrentHashMap.newKeySet();
+            }
+
+            // Primary key order (roughly time order across instances); each segment is sorted as it is sealed
+            ColumnarOperationStore fresh = new ColumnarOperationStore(segmentCapacity);
+            Set<Long> seen = new HashSet<>();
+            int credit = Operation_type.CREDIT.ordinal();
+            streamingJdbcTemplate.query("SELECT id, operation_date, id_bank_account, amount, operation_type " +
+                            "FROM operation ORDER BY id",
+                    rs -> {
+                        long id = rs.getLong(1);
+                        if (pendingIds.contains(id)) {
+                            // Committed before the snapshot of the query but applied since: already pending
+                            seen.add(id);
+                            return;
+                        }
+                        fresh.append(rs.getTimestamp(2).getTime(), rs.getLong(3), rs.getLong(4),
+                                rs.getInt(5) == credit ? ColumnarOperationStore.CREDIT : ColumnarOperationStore.DEBIT);
+                    });
+
+            synchronized (this) {
+                try {
+                    pending.forEach(change -> change.accept(fresh));
+                    store = fresh;
+                } finally {
+                    pending = null;
+                    pendingIds = null;
+                }
+            }
+            log.info("Operation analytics store built: {} operations in {} ms ({} applied during the build)",
+                    fresh.size(), System.currentTimeMillis() - started, seen.size());
+        } catch (RuntimeException e) {
+            log.error("Operation analytics store build failed", e);
+        } finally {
+            building.set(false);
+        }
+    }
+
+    /**
+     * Whether range aggregations can be served from memory
+     */
+    public boolean ready() {
+        return store != null;
+    }
+
+    /**
+     * Credits, debits and number of operations dated in (start, end), and the number of those after recentAfter
+     *
+     * @throws IllegalStateException if the store is not built
+     */
+    public ColumnarOperationStore.Totals totals(Date start, Date end, Date recentAfter) {
+        return built().totals(start.getTime(), end.getTime(), recentAfter.getTime());
+    }
+
+    /**
+     * Totals per day (of the JVM zone) of the operations dated in (start, end)
+     *
+     * @throws IllegalStateException if the store is not built
+     */
+    public ColumnarOperationStore.DailyTotals dailyTotals(Date start, Date end) {
+        return built().dailyTotals(start.getTime(), end.getTime(), ZoneId.systemDefault());
+    }
+
+    /**
+     * Add an operation once the current transaction commits (its id is assigned by then)
+     */
+    public void recorded(Long operationId, Long accountId, Operation_type type, long amount, Date date) {
+        if (!enabled) {
+            return;
+        }
+        byte column = type == Operation_type.CREDIT ? ColumnarOperationStore.CREDIT : ColumnarOperationStore.DEBIT;
+        long timestamp = date.getTime();
+        AfterCommit.run(() -> apply(operationId, target -> target.append(timestamp, accountId, amount, column)));
+    }
+
+    /**
+     * Drop the operations of a deleted account once the current transaction commits
+     */
+    public void accountDeleted(Long accountId) {
+        if (enabled) {
+            AfterCommit.run(() -> apply(null, target -> target.removeAccount(accountId)));
+        }
+    }
+
+    private synchronized void apply(Long operationId, Consumer<ColumnarOperationStore> change) {
+        if (store != null) {
+            change.accept(store);
+        }
+        if (pending != null) {
+            if (operationId != null) {
+                pendingIds.add(operationId);
+            }
+            pending.add(change);
+        }
+    }
+
+    private ColumnarOperationStore built() {
+        ColumnarOperationStore built = store;
+        if (built == null) {
+            throw new IllegalStateException("Operation analytics store is not built");
+        }
+        return built;
+    }
+}
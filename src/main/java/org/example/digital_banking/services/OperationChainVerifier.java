@@ -0,0 +1,282 @@
+package org.example.digital_banking.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.digital_banking.dtos.OperationChainReportDTO;
+import org.example.digital_banking.enums.Operation_type;
+import org.example.digital_banking.exceptions.BankAccountNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.*;
+
+/**
+ * Checks the balance_after chain of operations: walking an account's operations in (date, id)
+ * order, every stamped balance must be the previous one plus or minus the amount. Operations
+ * without a stamp (hot accounts, older rows) carry the expected balance forward by their amount,
+ * and operations of the same millisecond are matched up by their balances, whatever their ids.
+ * A break explained by a balance an administrator set (a balance_checkpoint between the two
+ * operations) is not reported.
+ * <p>
+ * Checks are incremental: a window of dates is seeded with the last operation before it (one index
+ * seek per account), so the nightly run only reads the operations of the previous day.
+ */
+@Service
+public class OperationChainVerifier {
+
+    private static final Logger log = LoggerFactory.getLogger(OperationChainVerifier.class);
+    private static final int MAX_REPORTED_BREAKS = 100;
+    private static final String COLUMNS = "id, id_bank_account, operation_date, operation_type, amount, balance_after";
+    private static final RowMapper<Row> ROW_MAPPER = (rs, rowNum) -> row(rs);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final Counter breakCounter;
+    private final int chunkSize;
+
+    public OperationChainVerifier(JdbcTemplate jdbcTemplate,
+                                  @Qualifier("streamingJdbcTemplate") JdbcTemplate streamingJdbcTemplate,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${banking.chain.chunk-size:500}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.streamingJdbcTemplate = streamingJdbcTemplate;
+        this.breakCounter = Counter.builder("banking.operations.chain.breaks")
+                .description("Operations whose balance_after does not follow from the previous operation")
+                .register(meterRegistry);
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    private record Row(long id, long accountId, long date, long delta, Long balanceAfter) {
+    }
+
+    private record Break(long operationId, long accountId, long previousDate, long date, long delta, long balanceAfter) {
+    }
+
+    @Scheduled(cron = "${banking.chain.verify-cron:0 40 0 * * *}")
+    public void verifyYesterday() {
+        try {
+            ZoneId zone = ZoneId.systemDefault();
+            LocalDate today = LocalDate.now(zone);
+            verifyWindow(Date.from(today.minusDays(1).atStartOfDay(zone).toInstant()),
+                    Date.from(today.atStartOfDay(zone).toInstant()));
+        } catch (RuntimeException e) {
+            log.error("Operation chain verification failed", e);
+        }
+    }
+
+    /**
+     * Check the operations of every account dated in [from, to)
+     *
+     * @return Number of breaks found
+     */
+    public long verifyWindow(Date from, Date to) {
+        long started = System.currentTimeMillis();
+        Timestamp start = new Timestamp(from.getTime());
+        Timestamp end = new Timestamp(to.getTime());
+        long checked = 0;
+        long breaks = 0;
+        long after = 0;
+        while (true) {
+            List<Long> ids = jdbcTemplate.queryForList(
+                    "SELECT id_bank_account FROM bank_account WHERE id_bank_account > ? ORDER BY id_bank_account LIMIT ?",
+                    Long.class, after, chunkSize);
+            if (ids.isEmpty()) {
+                break;
+            }
+            // Range seeks on idx_operation_account_date_id, one per account of the chunk
+            List<Row> rows = jdbcTemplate.query("SELECT " + COLUMNS + " FROM operation WHERE id_bank_account IN (" +
+                            SqlArgs.placeholders(ids.size()) + ") AND operation_date >= ? AND operation_date < ? " +
+                            "ORDER BY id_bank_account, operation_date, id",
+                    ROW_MAPPER, SqlArgs.concat(ids, start, end));
+            if (!rows.isEmpty()) {
+                Map<Long, Row> seeds = lastBefore(rows.stream().map(Row::accountId).distinct().toList(), start);
+                List<Break> found = new ArrayList<>();
+                Chain chain = null;
+                for (Row row : rows) {
+                    if (chain == null || chain.accountId != row.accountId()) {
+                        if (chain != null) {
+                            chain.finish();
+                        }
+                        chain = new Chain(row.accountId(), seeds.get(row.accountId()), found);
+                    }
+                    chain.accept(row);
+                }
+                chain.finish();
+                checked += rows.size();
+                breaks += report(unexplained(found)).size();
+            }
+            after = ids.get(ids.size() - 1);
+            if (ids.size() < chunkSize) {
+                break;
+            }
+        }
+        log.info("Operation chain check of [{}, {}): {} operations, {} breaks in {} ms",
+                from, to, checked, breaks, System.currentTimeMillis() - started);
+        return breaks;
+    }
+
+    /**
+     * Check the operations of one account dated in [from, to), streamed in order
+     *
+     * @param from Null for the whole history
+     * @param to   Null for no upper bound
+     */
+    public OperationChainReportDTO verifyAccount(Long accountId, Date from, Date to) {
+        if (jdbcTemplate.queryForList("SELECT 1 FROM bank_account WHERE id_bank_account = ?", Integer.class, accountId).isEmpty()) {
+            throw new BankAccountNotFoundException("Account not found with id: " + accountId);
+        }
+        StringBuilder sql = new StringBuilder("SELECT " + COLUMNS + " FROM operation WHERE id_bank_account = ?");
+        List<Object> args = new ArrayList<>(List.of(accountId));
+        Row seed = null;
+        if (from != null) {
+            Timestamp start = new Timestamp(from.getTime());
+            seed = lastBefore(List.of(accountId), start).get(accountId);
+            sql.append(" AND operation_date >= ?");
+            args.add(start);
+        }
+        if (to != null) {
+            sql.append(" AND operation_date < ?");
+            args.add(new Timestamp(to.getTime()));
+        }
+
+        List<Break> found = new ArrayList<>();
+        Chain chain = new Chain(accountId, seed, found);
+        long[] checked = {0};
+        streamingJdbcTemplate.query(sql.append(" ORDER BY operation_date, id").toString(),
+                rs -> {
+                    chain.accept(row(rs));
+                    checked[0]++;
+                }, args.toArray());
+        chain.finish();
+
+        List<Break> breaks = report(unexplained(found));
+        return new OperationChainReportDTO(accountId, from, to, checked[0], breaks.size(),
+                breaks.stream().limit(MAX_REPORTED_BREAKS).map(Break::operationId).toList());
+    }
+
+    /**
+     * Last operation of each account dated before a date: one LIMIT 1 index seek per account
+     */
+    private Map<Long, Row> lastBefore(List<Long> accountIds, Timestamp date) {
+        StringJoiner sql = new StringJoiner(" UNION ALL ");
+        List<Object> args = new ArrayList<>(accountIds.size() * 2);
+        for (Long accountId : accountIds) {
+            sql.add("(SELECT " + COLUMNS + " FROM operation WHERE id_bank_account = ? AND operation_date < ? " +
+                    "ORDER BY operation_date DESC, id DESC LIMIT 1)");
+            args.add(accountId);
+            args.add(date);
+        }
+        Map<Long, Row> seeds = new HashMap<>();
+        for (Row row : jdbcTemplate.query(sql.toString(), ROW_MAPPER, args.toArray())) {
+            seeds.put(row.accountId(), row);
+        }
+        return seeds;
+    }
+
+    /**
+     * Drop the breaks that a balance set by an administrator explains
+     */
+    private List<Break> unexplained(List<Break> breaks) {
+        return breaks.stream().filter(found -> {
+            List<Long> set = jdbcTemplate.queryForList(
+                    "SELECT balance FROM balance_checkpoint WHERE account_id = ? AND as_of >= ? AND as_of <= ? " +
+                            "ORDER BY as_of DESC LIMIT 1",
+                    Long.class, found.accountId(), new Timestamp(found.previousDate()), new Timestamp(found.date()));
+            return set.isEmpty() || set.get(0) + found.delta() != found.balanceAfter();
+        }).toList();
+    }
+
+    private List<Break> report(List<Break> breaks) {
+        for (Break found : breaks) {
+            log.warn("Operation {} of account {} breaks the balance chain: balance after {} does not follow " +
+                    "from the previous operation", found.operationId(), found.accountId(), found.balanceAfter());
+        }
+        breakCounter.increment(breaks.size());
+        return breaks;
+    }
+
+    /**
+     * The operations of one account, fed in (date, id) order
+     */
+    private static final class Chain {
+        final long accountId;
+        final List<Break> breaks;
+        final List<Row> sameDate = new ArrayList<>();
+        // Balance before the next operation, null while unknown
+        Long expected;
+        long previousDate;
+
+        Chain(long accountId, Row seed, List<Break> breaks) {
+            this.accountId = accountId;
+            this.breaks = breaks;
+            if (seed != null) {
+                expected = seed.balanceAfter();
+                previousDate = seed.date();
+            }
+        }
+
+        void accept(Row row) {
+            if (!sameDate.isEmpty() && sameDate.get(0).date() != row.date()) {
+                finish();
+            }
+            sameDate.add(row);
+        }
+
+        void finish() {
+            while (!sameDate.isEmpty()) {
+                Row row = sameDate.remove(next());
+                if (row.balanceAfter() == null) {
+                    if (expected != null) {
+                        expected += row.delta();
+                    }
+                } else {
+                    if (expected != null && expected + row.delta() != row.balanceAfter()) {
+                        breaks.add(new Break(row.id(), accountId, previousDate, row.date(), row.delta(), row.balanceAfter()));
+                    }
+                    expected = row.balanceAfter();
+                }
+                previousDate = row.date();
+            }
+        }
+
+        /**
+         * Among operations of the same millisecond: one that continues the chain, else one without
+         * a stamp, else the lowest id
+         */
+        private int next() {
+            if (expected != null) {
+                for (int i = 0; i < sameDate.size(); i++) {
+                    Row row = sameDate.get(i);
+                    if (row.balanceAfter() != null && expected + row.delta() == row.balanceAfter()) {
+                        return i;
+                    }
+                }
+            }
+            for (int i = 0; i < sameDate.size(); i++) {
+                if (sameDate.get(i).balanceAfter() == null) {
+                    return i;
+                }
+            }
+            return 0;
+        }
+    }
+
+    private static Row row(ResultSet rs) throws SQLException {
+        long amount = rs.getLong(5);
+        long balanceAfter = rs.getLong(6);
+        Long stamped = rs.wasNull() ? null : balanceAfter;
+        return new Row(rs.getLong(1), rs.getLong(2), rs.getTimestamp(3).getTime(),
+                rs.getInt(4) == Operation_type.DEBIT.ordinal() ? -amount : amount, stamped);
+    }
+}
@@ -0,0 +1,77 @@
+package org.example.digital_banking.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.digital_banking.dtos.AccountOperationDTO;
+import org.example.digital_banking.enums.Operation_type;
+import org.example.digital_banking.money.Money;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.util.Date;
+
+/**
+ * Streams the operations of an account as newline-delimited JSON (one AccountOperationDTO per line,
+ * oldest first). Rows come from a forward-only JDBC result set read with a fetch size hint
+ * (Integer.MIN_VALUE makes MySQL Connector/J stream row by row) and go straight to the response
+ * through a Jackson generator, so an export never holds more than one row in memory.
+ */
+@Service
+public class OperationExportService {
+
+    private static final int FLUSH_EVERY = 1000;
+    private static final Operation_type[] TYPES = Operation_type.values();
+
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    public OperationExportService(@Qualifier("streamingJdbcTemplate") JdbcTemplate streamingJdbcTemplate,
+                                  ObjectMapper objectMapper) {
+        this.streamingJdbcTemplate = streamingJdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @return Number of operations written
+     */
+    public long streamOperations(Long accountId, OutputStream output) throws IOException {
+        long[] count = {0};
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(output)) {
+            // The servlet container owns the response stream
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            AccountOperationDTO row = new AccountOperationDTO();
+            streamingJdbcTemplate.query(
+                    "SELECT id, operation_date, amount, operation_type, description, balance_after FROM operation " +
+                            "WHERE id_bank_account = ? ORDER BY operation_date, id",
+                    rs -> {
+                        row.setId(rs.getLong(1));
+                        Timestamp date = rs.getTimestamp(2);
+                        row.setOperationDate(date != null ? new Date(date.getTime()) : null);
+                        row.setAmount(Money.ofMinor(rs.getLong(3)));
+                        int type = rs.getInt(4);
+                        row.setOperationType(rs.wasNull() ? null : TYPES[type]);
+                        row.setDescription(rs.getString(5));
+                        long balanceAfter = rs.getLong(6);
+                        row.setBalanceAfter(rs.wasNull() ? null : Money.ofMinor(balanceAfter));
+                        try {
+                            generator.writeObject(row);
+                            generator.writeRaw('\n');
+                            if (++count[0] % FLUSH_EVERY == 0) {
+                                generator.flush();
+                            }
+                        } catch (IOException e) {
+                            // Client went away: stop reading rows
+                            throw new UncheckedIOException(e);
+                        }
+                    },
+                    accountId);
+        }
+        return count[0];
+    }
+}
@@ -0,0 +1,161 @@
+package org.example.digital_banking.services;
+
+import org.example.digital_banking.enums.Operation_type;
+import org.example.digital_banking.repositories.DailyOperationTotals;
+import org.example.digital_banking.repositories.OperationRollupRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Maintains operation_rollup, the daily totals behind the transaction charts. A compactor
+ * rebuilds today and yesterday every interval (one DELETE and one INSERT ... SELECT GROUP BY over
+ * idx_operation_date_type_amount per run, at READ COMMITTED so that the scan does not lock the
+ * operations being inserted); older days are final, as operations are dated when they
+ * are written, except that deleting an account subtracts its operations in the same transaction.
+ * <p>
+ * At startup the days since the last final day rolled up (or since the first operation) are
+ * backfilled in chunks; until then, and for the days after {@link #completeBefore()}, charts
+ * aggregate the operations themselves.
+ */
+@Service
+public class OperationRollupService {
+
+    private static final Logger log = LoggerFactory.getLogger(OperationRollupService.class);
+
+    private final OperationRollupRepo rollupRepo;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int backfillDays;
+    // Days before this one are rolled up; null until the backfill is done
+    private volatile LocalDate completeBefore;
+
+    public OperationRollupService(OperationRollupRepo rollupRepo,
+                                  JdbcTemplate jdbcTemplate,
+                                  @Qualifier("readCommittedTransactionTemplate") TransactionTemplate transactionTemplate,
+                                  @Value("${banking.rollup.backfill-days:31}") int backfillDays) {
+        this.rollupRepo = rollupRepo;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.backfillDays = Math.max(1, backfillDays);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        CompletableFuture.runAsync(() -> {
+            try {
+                backfill();
+            } catch (RuntimeException e) {
+                log.error("Operation rollup backfill failed, charts aggregate the operations meanwhile", e);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${banking.rollup.interval-ms:60000}",
+            initialDelayString = "${banking.rollup.interval-ms:60000}")
+    public void compact() {
+        try {
+            if (completeBefore == null) {
+                backfill();
+            } else {
+                refreshRecent();
+            }
+        } catch (RuntimeException e) {
+            log.error("Operation rollup failed", e);
+        }
+    }
+
+    /**
+     * Roll up every day since the last final one, then the recent days
+     */
+    public synchronized void backfill() {
+        long started = System.currentTimeMillis();
+        LocalDate today = LocalDate.now(ZoneId.systemDefault());
+        LocalDate from = rollupRepo.findLastDayBefore(today.minusDays(1));
+        if (from == null) {
+            Timestamp first = jdbcTemplate.queryForObject("SELECT MIN(operation_date) FROM operation", Timestamp.class);
+            from = first != null ? first.toLocalDateTime().toLocalDate() : today;
+        }
+        long days = 0;
+        for (LocalDate day = from; day.isBefore(today); day = day.plusDays(backfillDays)) {
+            LocalDate to = day.plusDays(backfillDays).isBefore(today) ? day.plusDays(backfillDays) : today;
+            rollUp(day, to);
+            days += to.toEpochDay() - day.toEpochDay();
+        }
+        refreshRecent();
+        log.info("Operation rollup backfilled {} days from {} in {} ms", days, from, System.currentTimeMillis() - started);
+    }
+
+    /**
+     * Rebuild yesterday and today
+     */
+    public synchronized void refreshRecent() {
+        LocalDate today = LocalDate.now(ZoneId.systemDefault());
+        rollUp(today.minusDays(1), today.plusDays(1));
+        completeBefore = today;
+    }
+
+    /**
+     * Rebuild the rows of the days in [from, to)
+     */
+    public void rollUp(LocalDate from, LocalDate to) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                rollupRepo.deleteDays(from, to);
+                rollupRepo.insertDays(startOf(from), startOf(to));
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Another instance rebuilt the same days concurrently
+            log.debug("Operation rollup of [{}, {}) already rebuilt", from, to);
+        }
+    }
+
+    /**
+     * Subtract the operations of an account about to be deleted (caller's transaction)
+     */
+    public void forgetAccount(Long accountId) {
+        List<Object[]> rows = jdbcTemplate.query(
+                "SELECT COUNT(*), COALESCE(SUM(o.amount), 0), CAST(o.operation_date AS DATE), a.type, o.operation_type " +
+                        "FROM operation o JOIN bank_account a ON a.id_bank_account = o.id_bank_account " +
+                        "WHERE o.id_bank_account = ? " +
+                        "GROUP BY CAST(o.operation_date AS DATE), a.type, o.operation_type",
+                (rs, rowNum) -> new Object[]{rs.getLong(1), rs.getLong(2), rs.getDate(3), rs.getString(4), rs.getInt(5)},
+                accountId);
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE operation_rollup SET operations = operations - ?, amount = amount - ? " +
+                    "WHERE rollup_day = ? AND account_type = ? AND operation_type = ?", rows);
+        }
+    }
+
+    /**
+     * Days before which the rollup is complete, or null while it is being backfilled
+     */
+    public LocalDate completeBefore() {
+        return completeBefore;
+    }
+
+    /**
+     * Credits, debits and number of operations per day of [from, to), from the rollup rows
+     */
+    public List<DailyOperationTotals> dailyTotals(LocalDate from, LocalDate to) {
+        return rollupRepo.sumByDay(Operation_type.CREDIT.ordinal(), Operation_type.DEBIT.ordinal(), from, to);
+    }
+
+    static Timestamp startOf(LocalDate day) {
+        return Timestamp.from(day.atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+}
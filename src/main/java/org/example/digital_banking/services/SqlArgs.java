@@ -0,0 +1,30 @@
+package org.example.digital_banking.services;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Arguments of JDBC queries that select a list of ids with an IN (?, ?, ...) clause
+ */
+final class SqlArgs {
+
+    private SqlArgs() {
+    }
+
+    /**
+     * ?,?,? for count ids
+     */
+    static String placeholders(int count) {
+        return String.join(",", Collections.nCopies(count, "?"));
+    }
+
+    /**
+     * The ids followed by the other arguments of the query
+     */
+    static Object[] concat(List<Long> ids, Object... more) {
+        Object[] args = Arrays.copyOf(ids.toArray(), ids.size() + more.length);
+        System.arraycopy(more, 0, args, ids.size(), more.length);
+        return args;
+    }
+}
@@ -0,0 +1,122 @@
+package org.example.digital_banking.services;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.IsoFields;
+import java.util.Date;
+
+/**
+ * Consecutive time buckets (days, ISO weeks starting on Monday, or months) covering a range in one
+ * zone, with the credits and debits of each accumulated in primitive arrays. The bucket of a day
+ * is computed from its epoch day with integer arithmetic, so adding totals allocates nothing;
+ * buckets that receive nothing stay in the result as zeros, so charts have no gaps.
+ */
+final class TransactionBuckets {
+
+    // A daily chart of about 270 years
+    static final int MAX_BUCKETS = 100_000;
+
+    enum Interval {
+        DAILY, WEEKLY, MONTHLY;
+
+        static Interval of(String name) {
+            return switch (name.toLowerCase()) {
+                case "weekly" -> WEEKLY;
+                case "monthly" -> MONTHLY;
+                default -> DAILY;
+            };
+        }
+    }
+
+    private final Interval interval;
+    private final long firstDay;
+    private final long lastDay;
+    private final long firstBucket;
+    private final long[] credits;
+    private final long[] debits;
+
+    /**
+     * Buckets of the days of [start, end) in a zone
+     */
+    TransactionBuckets(Interval interval, ZoneId zone, Date start, Date end) {
+        this.interval = interval;
+        this.firstDay = epochDay(start.getTime(), zone);
+        this.lastDay = epochDay(end.getTime() - 1, zone);
+        this.firstBucket = bucket(firstDay);
+        long size = lastDay < firstDay ? 0 : bucket(lastDay) - firstBucket + 1;
+        if (size > MAX_BUCKETS) {
+            throw new IllegalArgumentException("Time range too long for a " + interval.name().toLowerCase() + " interval");
+        }
+        this.credits = new long[(int) size];
+        this.debits = new long[(int) size];
+    }
+
+    /**
+     * Add the totals of one day; days outside the range are ignored
+     */
+    void add(long epochDay, long credit, long debit) {
+        if (epochDay >= firstDay && epochDay <= lastDay) {
+            int index = (int) (bucket(epochDay) - firstBucket);
+            credits[index] += credit;
+            debits[index] += debit;
+        }
+    }
+
+    int size() {
+        return credits.length;
+    }
+
+    long credits(int index) {
+        return credits[index];
+    }
+
+    long debits(int index) {
+        return debits[index];
+    }
+
+    /**
+     * 2025-03-07, 2025-W10 (ISO week-based year) or 2025-03
+     */
+    String label(int index) {
+        long bucket = firstBucket + index;
+        return switch (interval) {
+            case DAILY -> LocalDate.ofEpochDay(bucket).toString();
+            case WEEKLY -> {
+                LocalDate monday = LocalDate.ofEpochDay(bucket * 7 - 3);
+                yield String.format("%d-W%02d", monday.get(IsoFields.WEEK_BASED_YEAR),
+                        monday.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR));
+            }
+            case MONTHLY -> String.format("%04d-%02d", Math.floorDiv(bucket, 12), Math.floorMod(bucket, 12) + 1);
+        };
+    }
+
+    private long bucket(long epochDay) {
+        return switch (interval) {
+            case DAILY -> epochDay;
+            // 1970-01-01 was a Thursday: weeks are counted from Monday 1969-12-29
+            case WEEKLY -> Math.floorDiv(epochDay + 3, 7);
+            case MONTHLY -> epochMonth(epochDay);
+        };
+    }
+
+    /**
+     * Months since year 0 of an epoch day (proleptic Gregorian, as java.time computes it)
+     */
+    static long epochMonth(long epochDay) {
+        // Days since 0000-03-01, in 400-year eras of 146097 days; years start in March
+        long days = epochDay + 719_468;
+        long era = Math.floorDiv(days, 146_097);
+        long dayOfEra = days - era * 146_097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1_460 + dayOfEra / 36_524 - dayOfEra / 146_096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long marchBasedMonth = (5 * dayOfYear + 2) / 153;
+        long month = marchBasedMonth < 10 ? marchBasedMonth + 3 : marchBasedMonth - 9;
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        return year * 12 + month - 1;
+    }
+
+    private static long epochDay(long epochMillis, ZoneId zone) {
+        return Instant.ofEpochMilli(epochMillis).atZone(zone).toLocalDate().toEpochDay();
+    }
+}
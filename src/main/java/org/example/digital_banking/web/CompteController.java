@@ -1,24 +1,46 @@
 package org.example.digital_banking.web;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.example.digital_banking.dtos.*;
 import org.example.digital_banking.exceptions.BankAccountNotFoundException;
 import org.example.digital_banking.exceptions.CustomerNotFoundException;
 import org.example.digital_banking.exceptions.InsufficientBalanceException;
-import org.example.digital_banking.services.CustomerService;
+import org.example.digital_banking.services.AccountStatusService;
+import org.example.digital_banking.services.BulkImportService;
+import org.example.digital_banking.services.CustomerServiceinterface;
+import org.example.digital_banking.services.HotAccountService;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 @CrossOrigin(origins = "http://localhost:4200")
 @RestController
 @RequestMapping("/comptes")
 public class CompteController {
 
-    private final CustomerService customerService;
+    private final CustomerServiceinterface customerService;
+    private final HotAccountService hotAccountService;
+    private final AccountStatusService accountStatusService;
+    private final BulkImportService bulkImportService;
+    private final ObjectMapper objectMapper;
 
-    public CompteController(CustomerService customerService) {
+    public CompteController(CustomerServiceinterface customerService,
+                            HotAccountService hotAccountService,
+                            AccountStatusService accountStatusService,
+                            BulkImportService bulkImportService,
+                            ObjectMapper objectMapper) {
         this.customerService = customerService;
+        this.hotAccountService = hotAccountService;
+        this.accountStatusService = accountStatusService;
+        this.bulkImportService = bulkImportService;
+        this.objectMapper = objectMapper;
     }
 
     // GET /comptes — lister tous les comptes
@@ -57,6 +79,30 @@ public class CompteController {
         }
     }
 
+    // POST /comptes/import — importer clients et comptes depuis un CSV (progression et erreurs en NDJSON)
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public ResponseEntity<StreamingResponseBody> importAccounts(@RequestParam("file") MultipartFile file) throws IOException {
+        // Opened now: the upload is spooled to disk and read from there while the response streams
+        InputStream input = file.getInputStream();
+        StreamingResponseBody body = output -> {
+            try (input) {
+                bulkImportService.importCsv(input, event -> {
+                    try {
+                        output.write(objectMapper.writeValueAsBytes(event));
+                        output.write('\n');
+                        output.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
     // PUT /comptes/{id} — modifier un compte
     @PutMapping("/{id}")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
@@ -71,6 +117,17 @@ public class CompteController {
         }
     }
 
+    // PUT /comptes/status — changer le statut de plusieurs comptes en une fois
+    @PutMapping("/status")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public ResponseEntity<AccountStatusChangeResultDTO> changeStatus(@RequestBody AccountStatusChangeDTO request) {
+        try {
+            return ResponseEntity.ok(accountStatusService.changeStatus(request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     // DELETE /comptes/{id} — supprimer un compte
     @DeleteMapping("/{id}")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
@@ -83,5 +140,19 @@ public class CompteController {
         }
     }
 
+    // PUT /comptes/{id}/hot?slots=16 — répartir le solde d'un compte très sollicité sur plusieurs sous-soldes (0 pour désactiver)
+    @PutMapping("/{id}/hot")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public ResponseEntity<BankAccountDTO> configureHotAccount(@PathVariable Long id, @RequestParam int slots) {
+        try {
+            hotAccountService.configure(id, slots);
+            return ResponseEntity.ok(customerService.getAccount(id));
+        } catch (BankAccountNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
 
 }
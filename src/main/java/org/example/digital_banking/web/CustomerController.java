@@ -1,8 +1,10 @@
 package org.example.digital_banking.web;
 
 import org.example.digital_banking.dtos.CustomerDTO;
+import org.example.digital_banking.dtos.CustomerSearchResultDTO;
 import org.example.digital_banking.exceptions.CustomerNotFoundException;
-import org.example.digital_banking.services.CustomerService;
+import org.example.digital_banking.services.CustomerSearchService;
+import org.example.digital_banking.services.CustomerServiceinterface;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -14,10 +16,13 @@ import java.util.List;
 @RequestMapping("/customers")
 public class CustomerController {
 
-    private final CustomerService customerService;
+    private final CustomerServiceinterface customerService;
+    private final CustomerSearchService customerSearchService;
 
-    public CustomerController(CustomerService customerService) {
+    public CustomerController(CustomerServiceinterface customerService,
+                              CustomerSearchService customerSearchService) {
         this.customerService = customerService;
+        this.customerSearchService = customerSearchService;
     }
 
     // GET /customers — lister tous les clients
@@ -28,6 +33,19 @@ public class CustomerController {
         return ResponseEntity.ok(customers);
     }
 
+    // GET /customers/search?q=...&limit=10 — rechercher des clients (nom, email, téléphone, ville)
+    @GetMapping("/search")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<List<CustomerSearchResultDTO>> searchCustomers(
+            @RequestParam("q") String query,
+            @RequestParam(defaultValue = "10") int limit) {
+        try {
+            return ResponseEntity.ok(customerSearchService.search(query, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     // GET /customers/{id} — afficher un client
     @GetMapping("/{id}")
     @PreAuthorize("isAuthenticated()")
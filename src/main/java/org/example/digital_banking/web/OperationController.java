@@ -3,61 +3,170 @@ package org.example.digital_banking.web;
 import org.example.digital_banking.dtos.*;
 import org.example.digital_banking.exceptions.BankAccountNotFoundException;
 import org.example.digital_banking.exceptions.InsufficientBalanceException;
-import org.example.digital_banking.services.CustomerService;
+import org.example.digital_banking.services.BalanceCheckpointService;
+import org.example.digital_banking.services.CustomerServiceinterface;
+import org.example.digital_banking.services.IdempotencyService;
+import org.example.digital_banking.services.OperationChainVerifier;
+import org.example.digital_banking.services.OperationExportService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.security.Principal;
+import java.util.Date;
 import java.util.List;
 @CrossOrigin(origins = "http://localhost:4200")
 @RestController
 @RequestMapping("/comptes")
 public class OperationController {
 
-    private final CustomerService customerService;
+    private final CustomerServiceinterface customerService;
+    private final IdempotencyService idempotencyService;
+    private final OperationExportService operationExportService;
+    private final BalanceCheckpointService balanceCheckpointService;
+    private final OperationChainVerifier operationChainVerifier;
 
-    public OperationController(CustomerService customerService) {
+    public OperationController(CustomerServiceinterface customerService,
+                               IdempotencyService idempotencyService,
+                               OperationExportService operationExportService,
+                               BalanceCheckpointService balanceCheckpointService,
+                               OperationChainVerifier operationChainVerifier) {
         this.customerService = customerService;
+        this.idempotencyService = idempotencyService;
+        this.operationExportService = operationExportService;
+        this.balanceCheckpointService = balanceCheckpointService;
+        this.operationChainVerifier = operationChainVerifier;
     }
 
     // POST /comptes/debit — effectuer un débit
     @PostMapping("/debit")
     @PreAuthorize("hasAnyRole('ROLE_USER', 'ROLE_ADMIN')")
-    public ResponseEntity<Void> debit(@RequestBody CreditDebitRequestDTO requestDTO) {
+    public ResponseEntity<Void> debit(
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            @RequestBody CreditDebitRequestDTO requestDTO,
+            Principal principal) {
+        String caller = principal != null ? principal.getName() : null;
+        return idempotencyService.execute(idempotencyKey, caller, "debit", requestDTO, () -> {
+            try {
+                customerService.debit(requestDTO.getAccountId(), requestDTO);
+                return ResponseEntity.ok().build();
+            } catch (BankAccountNotFoundException e) {
+                return ResponseEntity.notFound().build();
+            } catch (InsufficientBalanceException e) {
+                return ResponseEntity.badRequest().body(null);
+            }
+        });
+    }
+
+    // POST /comptes/credit — effectuer un crédit
+    @PostMapping("/credit")
+    @PreAuthorize("hasAnyRole('ROLE_USER', 'ROLE_ADMIN')")
+    public ResponseEntity<Void> credit(
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            @RequestBody CreditDebitRequestDTO requestDTO,
+            Principal principal) {
+        String caller = principal != null ? principal.getName() : null;
+        return idempotencyService.execute(idempotencyKey, caller, "credit", requestDTO, () -> {
+            try {
+                customerService.credit(requestDTO.getAccountId(), requestDTO);
+                return ResponseEntity.ok().build();
+            } catch (BankAccountNotFoundException e) {
+                return ResponseEntity.notFound().build();
+            }
+        });
+    }
+
+    // POST /comptes/transfer — effectuer un virement
+    @PostMapping("/transfer")
+    @PreAuthorize("hasAnyRole('ROLE_USER', 'ROLE_ADMIN')")
+    public ResponseEntity<Void> transfer(
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            @RequestBody TransferRequestDTO transferRequestDTO,
+            Principal principal) {
+        String caller = principal != null ? principal.getName() : null;
+        return idempotencyService.execute(idempotencyKey, caller, "transfer", transferRequestDTO, () -> {
+            try {
+                customerService.transfer(transferRequestDTO);
+                return ResponseEntity.ok().build();
+            } catch (BankAccountNotFoundException e) {
+                return ResponseEntity.notFound().build();
+            } catch (InsufficientBalanceException e) {
+                return ResponseEntity.badRequest().build();
+            }
+        });
+    }
+
+    // POST /comptes/transfers/batch — effectuer des virements en masse
+    @PostMapping("/transfers/batch")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public ResponseEntity<List<TransferResultDTO>> transferBatch(@RequestBody List<TransferRequestDTO> transferRequests) {
+        try {
+            return ResponseEntity.ok(customerService.transferBatch(transferRequests));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // GET /comptes/{accountId}/history?size=20&cursor=... — historique paginé (du plus récent au plus ancien)
+    @GetMapping("/{accountId}/history")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<AccountHistoryDTO> getAccountHistory(
+            @PathVariable Long accountId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
         try {
-            customerService.debit(requestDTO.getAccountId(), requestDTO);
-            return ResponseEntity.ok().build();
+            return ResponseEntity.ok(customerService.getAccountHistory(accountId, cursor, page, size));
         } catch (BankAccountNotFoundException e) {
             return ResponseEntity.notFound().build();
-        } catch (InsufficientBalanceException e) {
-            return ResponseEntity.badRequest().body(null);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         }
     }
 
-    // POST /comptes/credit — effectuer un crédit
-    @PostMapping("/credit")
-    @PreAuthorize("hasAnyRole('ROLE_USER', 'ROLE_ADMIN')")
-    public ResponseEntity<Void> credit(@RequestBody CreditDebitRequestDTO requestDTO) {
+    // GET /comptes/{accountId}/balance?at=2025-01-31T23:59:59Z — solde à une date donnée
+    @GetMapping("/{accountId}/balance")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<BalanceAsOfDTO> getBalanceAsOf(
+            @PathVariable Long accountId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date at) {
         try {
-            customerService.credit(requestDTO.getAccountId(), requestDTO);
-            return ResponseEntity.ok().build();
+            return ResponseEntity.ok(balanceCheckpointService.balanceAsOf(accountId, at));
         } catch (BankAccountNotFoundException e) {
             return ResponseEntity.notFound().build();
         }
     }
 
-    // POST /comptes/transfer — effectuer un virement
-    @PostMapping("/transfer")
-    @PreAuthorize("hasAnyRole('ROLE_USER', 'ROLE_ADMIN')")
-    public ResponseEntity<Void> transfer(@RequestBody TransferRequestDTO transferRequestDTO) {
+    // GET /comptes/{accountId}/operations/verify?from=...&to=... — vérifier la chaîne des soldes après opération
+    @GetMapping("/{accountId}/operations/verify")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public ResponseEntity<OperationChainReportDTO> verifyOperationChain(
+            @PathVariable Long accountId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date to) {
         try {
-            customerService.transfer(transferRequestDTO);
-            return ResponseEntity.ok().build();
+            return ResponseEntity.ok(operationChainVerifier.verifyAccount(accountId, from, to));
+        } catch (BankAccountNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    // GET /comptes/{accountId}/operations/stream — exporter toutes les opérations en NDJSON (flux continu)
+    @GetMapping("/{accountId}/operations/stream")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<StreamingResponseBody> streamAccountOperations(@PathVariable Long accountId) {
+        try {
+            customerService.getAccount(accountId);
         } catch (BankAccountNotFoundException e) {
             return ResponseEntity.notFound().build();
-        } catch (InsufficientBalanceException e) {
-            return ResponseEntity.badRequest().build();
         }
+        StreamingResponseBody body = output -> operationExportService.streamOperations(accountId, output);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
     }
 
     // GET /comptes/{accountId}/operations — afficher l'historique des opérations
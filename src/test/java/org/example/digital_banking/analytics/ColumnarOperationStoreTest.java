@@ -0,0 +1,90 @@
+package org.example.digital_banking.analytics;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+
+import static org.example.digital_banking.analytics.ColumnarOperationStore.CREDIT;
+import static org.example.digital_banking.analytics.ColumnarOperationStore.DEBIT;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnarOperationStoreTest {
+
+    private static final ZoneId PARIS = ZoneId.of("Europe/Paris");
+    private static final LocalDate MARCH_29 = LocalDate.of(2025, 3, 29);
+
+    private ColumnarOperationStore store;
+
+    @BeforeEach
+    void setUp() {
+        // Segments of 2 rows: whole, partial and skipped segments in every scan
+        store = new ColumnarOperationStore(2);
+        store.append(at(MARCH_29, 10), 1L, 1_000, CREDIT);
+        store.append(at(MARCH_29, 12), 2L, 400, DEBIT);
+        // Clocks go forward at 2:00 on March 30th
+        store.append(at(MARCH_29.plusDays(1), 1), 1L, 300, DEBIT);
+        store.append(at(MARCH_29.plusDays(1), 23), 2L, 2_000, CREDIT);
+        store.append(at(MARCH_29.plusDays(2), 0), 1L, 50, CREDIT);
+    }
+
+    @Test
+    void rangesAreExclusiveAtBothEnds() {
+        ColumnarOperationStore.Totals all = store.totals(0, Long.MAX_VALUE / 2, at(MARCH_29.plusDays(1), 12));
+        assertEquals(3_050, all.credits());
+        assertEquals(700, all.debits());
+        assertEquals(5, all.operations());
+        assertEquals(2, all.recent());
+
+        ColumnarOperationStore.Totals middle = store.totals(at(MARCH_29, 10), at(MARCH_29.plusDays(1), 23), 0);
+        assertEquals(0, middle.credits());
+        assertEquals(700, middle.debits());
+        assertEquals(2, middle.operations());
+    }
+
+    @Test
+    void dailyTotalsFollowTheZoneAcrossOffsetChanges() {
+        ColumnarOperationStore.DailyTotals days = store.dailyTotals(at(MARCH_29, 0) - 1, at(MARCH_29.plusDays(3), 0), PARIS);
+
+        assertEquals(MARCH_29.toEpochDay(), days.firstDay());
+        assertArrayEquals(new long[]{1_000, 2_000, 50}, days.credits());
+        assertArrayEquals(new long[]{400, 300, 0}, days.debits());
+        assertArrayEquals(new long[]{2, 2, 1}, days.operations());
+    }
+
+    @Test
+    void sealedSegmentsAreSortedByTimestamp() {
+        ColumnarOperationStore late = new ColumnarOperationStore(3);
+        late.append(30, 1L, 1, CREDIT);
+        late.append(10, 1L, 2, CREDIT);
+        late.append(20, 1L, 4, DEBIT);
+        late.append(15, 1L, 8, CREDIT);
+
+        ColumnarOperationStore.Totals middle = late.totals(10, 30, 17);
+        assertEquals(8, middle.credits());
+        assertEquals(4, middle.debits());
+        assertEquals(2, middle.operations());
+        assertEquals(1, middle.recent());
+        assertEquals(0, late.totals(30, 40, 0).operations());
+    }
+
+    @Test
+    void removedAccountsLeaveEveryRange() {
+        assertEquals(3, store.removeAccount(1L));
+
+        assertEquals(2, store.size());
+        ColumnarOperationStore.Totals all = store.totals(0, Long.MAX_VALUE / 2, 0);
+        assertEquals(2_000, all.credits());
+        assertEquals(400, all.debits());
+        assertEquals(2, all.operations());
+        assertArrayEquals(new long[]{0, 2_000, 0},
+                store.dailyTotals(at(MARCH_29, 0) - 1, at(MARCH_29.plusDays(3), 0), PARIS).credits());
+    }
+
+    private static long at(LocalDate day, int hour) {
+        return LocalDateTime.of(day, LocalTime.of(hour, 0)).atZone(PARIS).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,88 @@
+package org.example.digital_banking.concurrency;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountLockManagerTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private AccountLockManager lockManager;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        lockManager = new AccountLockManager(64, 5000, meterRegistry);
+    }
+
+    @Test
+    void stripeCountIsRoundedToPowerOfTwo() {
+        assertEquals(64, lockManager.getStripeCount());
+        assertEquals(128, new AccountLockManager(100, 5000, meterRegistry).getStripeCount());
+    }
+
+    @Test
+    void concurrentMutationsOnSameAccountAreSerialized() throws Exception {
+        long[] balance = {0};
+        int threads = 8;
+        int iterations = 5_000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+
+        for (int t = 0; t < threads; t++) {
+            pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < iterations; i++) {
+                    lockManager.withLock(42L, () -> {
+                        balance[0] = balance[0] + 1;
+                    });
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals((long) threads * iterations, balance[0]);
+        assertEquals((long) threads * iterations,
+                meterRegistry.get("banking.account.lock.wait").timer().count());
+    }
+
+    @Test
+    void opposingTransfersDoNotDeadlock() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        CountDownLatch start = new CountDownLatch(1);
+        int[] done = {0};
+
+        for (List<Long> ids : List.of(List.of(1L, 2L), List.of(2L, 1L))) {
+            pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < 10_000; i++) {
+                    lockManager.withLocks(ids, () -> {
+                        done[0]++;
+                    });
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS), "transfers deadlocked");
+        assertEquals(20_000, done[0]);
+    }
+
+    @Test
+    void sameAccountTwiceInTransferIsReentrant() {
+        assertEquals("ok", lockManager.withLocks(List.of(7L, 7L), () -> "ok"));
+    }
+}
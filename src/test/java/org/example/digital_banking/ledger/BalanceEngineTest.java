@@ -0,0 +1,119 @@
+package org.example.digital_banking.ledger;
+
+import org.example.digital_banking.exceptions.BankAccountNotFoundException;
+import org.example.digital_banking.exceptions.InsufficientBalanceException;
+import org.example.digital_banking.exceptions.LedgerUnavailableException;
+import org.example.digital_banking.services.HotAccountService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.AdditionalMatchers.not;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class BalanceEngineTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private LedgerPersister persister;
+    private BalanceEngine engine;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws Exception {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        persister = mock(LedgerPersister.class);
+        ResultSet row = mock(ResultSet.class);
+        when(row.getLong("balance")).thenReturn(10_000L);
+        when(row.getLong("overdraft")).thenReturn(0L);
+        when(row.getString("type")).thenReturn("SAV");
+        // Account 1 exists with a balance of 100.00, any other id is unknown
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq(1L)))
+                .thenAnswer(invocation -> List.of(((RowMapper<Object>) invocation.getArgument(1)).mapRow(row, 0)));
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), not(eq(1L))))
+                .thenReturn(Collections.emptyList());
+
+        engine = new BalanceEngine(jdbcTemplate, persister, mock(LedgerRecovery.class),
+                mock(HotAccountService.class), mock(ObjectProvider.class), 4, 1024, 1000);
+        engine.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        engine.stop();
+    }
+
+    @Test
+    void debitBeyondBalanceIsRejected() {
+        LedgerEntry entry = BalanceEngine.await(engine.debit(1L, 6_000, "first"));
+        assertEquals(4_000, entry.getBalanceAfter());
+
+        assertThrows(InsufficientBalanceException.class,
+                () -> BalanceEngine.await(engine.debit(1L, 6_000, "second")));
+        assertEquals(4_000L, engine.peekBalance(1L));
+        verify(persister, times(1)).enqueue(any(LedgerEntry.class));
+    }
+
+    @Test
+    void unknownAccountIsRejected() {
+        assertThrows(BankAccountNotFoundException.class,
+                () -> BalanceEngine.await(engine.credit(2L, 1_000, "credit")));
+        assertNull(engine.peekBalance(2L));
+    }
+
+    @Test
+    void concurrentCreditsAreAllApplied() throws Exception {
+        int threads = 8;
+        int iterations = 1_000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<CompletableFuture<LedgerEntry>> results = Collections.synchronizedList(new ArrayList<>());
+        for (int t = 0; t < threads; t++) {
+            pool.submit(() -> {
+                for (int i = 0; i < iterations; i++) {
+                    results.add(engine.credit(1L, 1, "credit"));
+                }
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+        results.forEach(BalanceEngine::await);
+
+        assertEquals(10_000L + threads * iterations, engine.peekBalance(1L));
+        verify(persister, times(threads * iterations)).enqueue(any(LedgerEntry.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void entryWhoseJournalFsyncFailsIsNotApplied() {
+        engine.stop();
+        OperationJournal journal = mock(OperationJournal.class);
+        doAnswer(invocation -> {
+            LedgerEntry entry = invocation.getArgument(0);
+            entry.setJournalSeq(1L);
+            entry.getJournaled().completeExceptionally(new LedgerUnavailableException("Journal fsync failed"));
+            return null;
+        }).when(journal).append(any(LedgerEntry.class));
+        ObjectProvider<OperationJournal> journalProvider = mock(ObjectProvider.class);
+        when(journalProvider.getIfAvailable()).thenReturn(journal);
+        engine = new BalanceEngine(jdbcTemplate, persister, mock(LedgerRecovery.class),
+                mock(HotAccountService.class), journalProvider, 4, 1024, 1000);
+        engine.start();
+
+        assertThrows(LedgerUnavailableException.class, () -> BalanceEngine.await(engine.debit(1L, 6_000, "debit")));
+        assertEquals(10_000L, engine.peekBalance(1L));
+        verify(persister, never()).enqueue(any(LedgerEntry.class));
+    }
+}
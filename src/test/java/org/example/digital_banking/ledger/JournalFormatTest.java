@@ -0,0 +1,55 @@
+package org.example.digital_banking.ledger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JournalFormatTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void segmentIsReadUpToTheFirstTornRecord() throws Exception {
+        ByteBuffer buffer = ByteBuffer.allocate(4 * JournalFormat.RECORD_SIZE);
+        for (long seq = 100; seq < 103; seq++) {
+            JournalFormat.write(buffer, (int) (seq - 100) * JournalFormat.RECORD_SIZE,
+                    new JournalFormat.Record(seq, 7L, JournalFormat.TYPE_CREDIT, 1_050, 1_000L + seq, 1_050 * (seq - 99)));
+        }
+        // Corrupt the amount of the third record
+        buffer.put(2 * JournalFormat.RECORD_SIZE + 21, (byte) 0x7F);
+        Path segment = JournalFormat.segmentPath(dir, 100);
+        Files.write(segment, buffer.array());
+
+        List<JournalFormat.Record> records = JournalFormat.readSegment(segment);
+
+        assertEquals(2, records.size());
+        assertEquals(new JournalFormat.Record(101, 7L, JournalFormat.TYPE_CREDIT, 1_050, 1_101L, 2_100), records.get(1));
+        assertEquals(100, JournalFormat.firstSeqOf(segment));
+    }
+
+    @Test
+    void latestValidSnapshotIsReturned() throws Exception {
+        JournalFormat.writeSnapshot(dir, new JournalFormat.Snapshot(10,
+                List.of(new JournalFormat.SnapshotEntry(1L, 9L, 5_000))));
+        Path newest = JournalFormat.writeSnapshot(dir, new JournalFormat.Snapshot(20,
+                List.of(new JournalFormat.SnapshotEntry(1L, 19L, 7_500), new JournalFormat.SnapshotEntry(2L, 0L, 500))));
+
+        assertEquals(20, JournalFormat.readLatestSnapshot(dir).coveredSeq());
+        assertEquals(2, JournalFormat.readLatestSnapshot(dir).entries().size());
+
+        // A truncated snapshot is skipped in favour of the previous one
+        byte[] bytes = Files.readAllBytes(newest);
+        Files.write(newest, Arrays.copyOf(bytes, bytes.length - 3));
+        JournalFormat.Snapshot snapshot = JournalFormat.readLatestSnapshot(dir);
+        assertEquals(10, snapshot.coveredSeq());
+        assertEquals(List.of(new JournalFormat.SnapshotEntry(1L, 9L, 5_000)), snapshot.entries());
+    }
+}
@@ -0,0 +1,53 @@
+package org.example.digital_banking.money;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import org.example.digital_banking.dtos.CreditDebitRequestDTO;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void sumsAreExact() {
+        Money total = Money.ZERO;
+        for (int i = 0; i < 1_000_000; i++) {
+            total = total.plus(Money.of("0.10"));
+        }
+        assertEquals(Money.ofUnits(100_000), total);
+        assertEquals("100000.00", total.toString());
+        assertEquals(Money.of("-0.30"), Money.of("0.10").minus(Money.of("0.40")));
+    }
+
+    @Test
+    void moreThanTwoDecimalsIsRejected() {
+        assertEquals(Money.ofMinor(1_250), Money.of(new BigDecimal("12.5")));
+        assertThrows(IllegalArgumentException.class, () -> Money.of("12.345"));
+        assertThrows(IllegalArgumentException.class, () -> Money.of("abc"));
+    }
+
+    @Test
+    void jsonUsesDecimalNumbers() throws Exception {
+        CreditDebitRequestDTO request = objectMapper.readValue(
+                "{\"accountId\":1,\"amount\":1500.75,\"description\":\"ATM\"}", CreditDebitRequestDTO.class);
+        assertEquals(Money.ofMinor(150_075), request.getAmount());
+        assertEquals(Money.ofUnits(20), objectMapper.readValue("\"20\"", Money.class));
+
+        assertTrue(objectMapper.writeValueAsString(request).contains("\"amount\":1500.75"));
+        assertThrows(InvalidFormatException.class, () -> objectMapper.readValue("0.001", Money.class));
+    }
+
+    @Test
+    void converterStoresMinorUnits() {
+        MoneyConverter converter = new MoneyConverter();
+        assertEquals(150_075L, converter.convertToDatabaseColumn(Money.of("1500.75")));
+        assertEquals(Money.of("1500.75"), converter.convertToEntityAttribute(150_075L));
+        assertNull(converter.convertToDatabaseColumn(null));
+        assertNull(converter.convertToEntityAttribute(null));
+    }
+}
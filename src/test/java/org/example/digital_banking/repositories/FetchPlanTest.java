@@ -0,0 +1,182 @@
+package org.example.digital_banking.repositories;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.example.digital_banking.entities.BankAccount;
+import org.example.digital_banking.entities.CurrentAccount;
+import org.example.digital_banking.entities.Customer;
+import org.example.digital_banking.entities.Operation;
+import org.example.digital_banking.entities.SavingAccount;
+import org.example.digital_banking.entities.security.Role;
+import org.example.digital_banking.entities.security.User;
+import org.example.digital_banking.enums.AccountStatus;
+import org.example.digital_banking.enums.Operation_type;
+import org.example.digital_banking.money.Money;
+import org.example.digital_banking.repositories.security.UserRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Each read path must cost exactly one statement, whatever it serializes afterwards
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class FetchPlanTest {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private BankAccountRepo bankAccountRepo;
+
+    @Autowired
+    private OperationRepo operationRepo;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Statistics statistics;
+    private Customer alice;
+    private Customer bob;
+
+    @BeforeEach
+    void setUp() {
+        Role role = new Role("USER", "Standard user");
+        entityManager.persist(role);
+        User user = User.builder().username("alice").email("alice@example.com").enabled(true)
+                .roles(new ArrayList<>(List.of(role))).build();
+        entityManager.persist(user);
+        alice = Customer.builder().name("Alice").email("alice@example.com").user(user).build();
+        bob = Customer.builder().name("Bob").email("bob@example.com").build();
+        entityManager.persist(alice);
+        entityManager.persist(bob);
+        entityManager.persist(account(new SavingAccount(), alice, 100));
+        entityManager.persist(account(new CurrentAccount(), alice, 200));
+        entityManager.persist(account(new CurrentAccount(), bob, 300));
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void allAccountsComeWithTheirOwnersInOneSelect() {
+        List<BankAccount> accounts = bankAccountRepo.findAllWithCustomer();
+
+        assertEquals(3, accounts.size());
+        accounts.forEach(account -> assertNotNull(account.getCustomer().getName()));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void accountsOfACustomerComeWithTheOwnerInOneSelect() {
+        List<BankAccount> accounts = bankAccountRepo.findAccountsByCustomerId(alice.getCustomer_id());
+
+        assertEquals(2, accounts.size());
+        accounts.forEach(account -> assertEquals("Alice", account.getCustomer().getName()));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void singleAccountComesWithItsOwnerInOneSelect() {
+        Long id = bankAccountRepo.findAccountsByCustomerId(bob.getCustomer_id()).get(0).getIdBankAccount();
+        entityManager.clear();
+        statistics.clear();
+
+        BankAccount account = bankAccountRepo.findWithCustomerById(id).orElseThrow();
+
+        assertEquals("Bob", account.getCustomer().getName());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void dashboardTotalsAreOneAggregateSelect() {
+        AccountTotals totals = bankAccountRepo.aggregateTotals(AccountStatus.ACTIVE.ordinal(), new Date(0));
+
+        assertEquals(3, totals.getAccounts());
+        assertEquals(3, totals.getActive());
+        assertEquals(3, totals.getCreated());
+        assertEquals(60_000, totals.getBalance());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void dashboardTypesAreOneGroupedSelect() {
+        List<AccountTypeTotals> types = bankAccountRepo.aggregateByType(new Date(0), new Date(System.currentTimeMillis() + 60_000));
+
+        Map<String, Long> balances = types.stream().collect(Collectors.toMap(AccountTypeTotals::getType, AccountTypeTotals::getBalance));
+        assertEquals(Map.of("SAV", 10_000L, "Cur", 50_000L), balances);
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void accountsCreatedPerDayAreOneGroupedSelect() {
+        List<DailyAccountCount> days = bankAccountRepo.countCreatedByDay(new Date(0));
+
+        assertEquals(1, days.size());
+        assertNotNull(days.get(0).getCreatedDay());
+        assertEquals(3, days.get(0).getAccounts());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void dashboardDaysAreOneGroupedSelect() {
+        BankAccount account = bankAccountRepo.findAccountsByCustomerId(bob.getCustomer_id()).get(0);
+        Date day = Date.from(Instant.parse("2025-03-01T12:00:00Z"));
+        entityManager.persist(new Operation(null, Operation_type.CREDIT, Money.ofMinor(500), day, "test", account, null, null));
+        entityManager.persist(new Operation(null, Operation_type.CREDIT, Money.ofMinor(250), day, "test", account, null, null));
+        entityManager.persist(new Operation(null, Operation_type.DEBIT, Money.ofMinor(100), day, "test", account, null, null));
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        List<DailyOperationTotals> days = operationRepo.aggregateByDay(Operation_type.CREDIT.ordinal(),
+                Operation_type.DEBIT.ordinal(), new Date(0), new Date());
+
+        assertEquals(1, days.size());
+        assertNotNull(days.get(0).getOperationDay());
+        assertEquals(750, days.get(0).getCredits());
+        assertEquals(100, days.get(0).getDebits());
+        assertEquals(3, days.get(0).getOperations());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void loginLoadsRolesAndProfileInOneSelect() {
+        User user = userRepository.findByUsername("alice").orElseThrow();
+
+        assertEquals(List.of("USER"), user.getRoles().stream().map(Role::getName).toList());
+        assertEquals("Alice", user.getCustomer().getName());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    private static BankAccount account(BankAccount account, Customer customer, long units) {
+        account.setBalance(Money.ofUnits(units));
+        account.setStatus(AccountStatus.ACTIVE);
+        account.setCreatedAt(new Date());
+        account.setCustomer(customer);
+        return account;
+    }
+}
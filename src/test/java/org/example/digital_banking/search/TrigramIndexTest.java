@@ -0,0 +1,76 @@
+package org.example.digital_banking.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrigramIndexTest {
+
+    private TrigramIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new TrigramIndex();
+        index.put(new TrigramIndex.Document(1L, "Amélie Dupont", "amelie.dupont@example.com", "+33 6 12 34 56 78", "Paris"));
+        index.put(new TrigramIndex.Document(2L, "Pierre Dupond", "pdupond@example.org", "06-98-76-54-32", "Lyon"));
+        index.put(new TrigramIndex.Document(3L, "Jean Martin", "jean.martin@example.net", null, "Marseille"));
+    }
+
+    @Test
+    void ranksFullMatchesFirstAndToleratesTypos() {
+        // Act
+        List<TrigramIndex.Hit> hits = index.search("dupont", 10, 0.6, 1000);
+
+        // Assert
+        assertEquals(List.of(1L, 2L), ids(hits));
+        assertEquals(1.0, hits.get(0).score());
+        assertTrue(hits.get(1).score() < 1.0);
+    }
+
+    @Test
+    void foldsAccentsAndMatchesPrefixesAndPhoneDigits() {
+        assertEquals(List.of(1L), ids(index.search("AMEL", 10, 1.0, 1000)));
+        assertEquals(List.of(3L), ids(index.search("marse", 10, 1.0, 1000)));
+        assertEquals(List.of(2L), ids(index.search("0698", 10, 1.0, 1000)));
+        assertEquals(List.of(1L), ids(index.search("33612", 10, 1.0, 1000)));
+    }
+
+    @Test
+    void replacedAndRemovedDocumentsDropOutOfResults() {
+        // Act
+        index.put(new TrigramIndex.Document(2L, "Pierre Lefebvre", "pdupond@example.org", null, "Lyon"));
+        index.remove(1L);
+
+        // Assert
+        assertEquals(List.of(2L), ids(index.search("pdupond", 10, 1.0, 1000)));
+        assertTrue(index.search("dupont", 10, 1.0, 1000).isEmpty());
+        assertEquals(2, index.size());
+        assertEquals(2, index.garbage());
+    }
+
+    @Test
+    void keepsTheTopResultsOnly() {
+        // Arrange
+        for (long id = 10; id < 1010; id++) {
+            index.put(new TrigramIndex.Document(id, "Client " + id, "client" + id + "@example.com", null, "Nantes"));
+        }
+
+        // Act
+        List<TrigramIndex.Hit> hits = index.search("nantes", 5, 1.0, 100_000);
+
+        // Assert
+        assertEquals(List.of(10L, 11L, 12L, 13L, 14L), ids(hits));
+    }
+
+    @Test
+    void refusesQueriesWithoutATrigram() {
+        assertThrows(IllegalArgumentException.class, () -> index.search("a -", 10, 0.6, 1000));
+    }
+
+    private static List<Long> ids(List<TrigramIndex.Hit> hits) {
+        return hits.stream().map(hit -> hit.document().id()).toList();
+    }
+}
@@ -0,0 +1,122 @@
+package org.example.digital_banking.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.digital_banking.dtos.BankAccountDTO;
+import org.example.digital_banking.dtos.CurrentAccountDTO;
+import org.example.digital_banking.dtos.CustomerDTO;
+import org.example.digital_banking.dtos.SavingAccountDTO;
+import org.example.digital_banking.money.Money;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private AccountCache accountCache;
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        accountCache = new AccountCache(meterRegistry, true, 100, 100, 60);
+    }
+
+    @Test
+    void customerAccountsSurviveAChangeToAnotherCustomerAndReloadOnTheirOwn() {
+        // Arrange
+        Function<Long, List<BankAccountDTO>> loader = customerId -> {
+            loads.incrementAndGet();
+            return List.of(account(1L, customerId, 100), account(2L, customerId, 200));
+        };
+        accountCache.customerAccounts(5L, loader);
+
+        // Act
+        accountCache.evictAccount(9L);
+        List<BankAccountDTO> cached = accountCache.customerAccounts(5L, loader);
+        accountCache.evictAccount(2L);
+        accountCache.customerAccounts(5L, loader);
+
+        // Assert
+        assertEquals(List.of(1L, 2L), cached.stream().map(BankAccountDTO::getId).toList());
+        assertInstanceOf(SavingAccountDTO.class, cached.get(0));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void invalidationInsideATransactionWaitsForTheCommit() {
+        // Arrange
+        accountCache.account(1L, this::load);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // Act
+            accountCache.evictAccount(1L);
+            accountCache.account(1L, this::load);
+            int beforeCommit = loads.get();
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            accountCache.account(1L, this::load);
+
+            // Assert
+            assertEquals(1, beforeCommit);
+            assertEquals(2, loads.get());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void customerChangeDropsTheAccountsThatEmbedIt() {
+        // Arrange
+        accountCache.account(1L, id -> account(id, 5L, 100));
+        accountCache.account(2L, id -> account(id, 6L, 100));
+        accountCache.customer(5L, id -> new CustomerDTO(id, "Alice", null, null, null, null, null));
+
+        // Act
+        accountCache.evictCustomer(5L);
+        accountCache.account(1L, this::load);
+        accountCache.account(2L, this::load);
+        accountCache.customer(5L, id -> {
+            loads.incrementAndGet();
+            return new CustomerDTO(id, "Alicia", null, null, null, null, null);
+        });
+
+        // Assert
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void callersGetCopiesAndHitsAreMetered() {
+        // Arrange
+        accountCache.account(1L, this::load).setBalance(Money.ZERO);
+
+        // Act
+        BankAccountDTO cached = accountCache.account(1L, this::load);
+
+        // Assert
+        assertEquals(Money.ofUnits(100), cached.getBalance());
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", "banking.accounts")
+                .tag("result", "hit").functionCounter().count());
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", "banking.accounts")
+                .tag("result", "miss").functionCounter().count());
+    }
+
+    private BankAccountDTO load(Long id) {
+        loads.incrementAndGet();
+        return account(id, 5L, 100);
+    }
+
+    private static BankAccountDTO account(Long id, Long customerId, long units) {
+        BankAccountDTO account = id % 2 == 1 ? new SavingAccountDTO() : new CurrentAccountDTO();
+        account.setId(id);
+        account.setBalance(Money.ofUnits(units));
+        account.setCustomerDTO(new CustomerDTO(customerId, "Alice", null, null, null, null, null));
+        return account;
+    }
+}
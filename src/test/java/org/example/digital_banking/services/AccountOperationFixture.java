@@ -0,0 +1,53 @@
+package org.example.digital_banking.services;
+
+import jakarta.persistence.EntityManager;
+import org.example.digital_banking.entities.BankAccount;
+import org.example.digital_banking.entities.Operation;
+import org.example.digital_banking.enums.AccountStatus;
+import org.example.digital_banking.enums.Operation_type;
+import org.example.digital_banking.money.Money;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Instant;
+import java.util.Date;
+
+/**
+ * H2 tables of the JDBC-based services (checkpoints, chain verification, rollup), with factories
+ * for the accounts and operations their tests persist
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+abstract class AccountOperationFixture {
+
+    @Autowired
+    protected EntityManager entityManager;
+
+    @Autowired
+    protected JdbcTemplate jdbcTemplate;
+
+    /**
+     * Persist an active account (a new SavingAccount or CurrentAccount)
+     */
+    protected <T extends BankAccount> T account(T account, Date createdAt, long balance) {
+        account.setBalance(Money.ofMinor(balance));
+        account.setCreatedAt(createdAt);
+        account.setStatus(AccountStatus.ACTIVE);
+        entityManager.persist(account);
+        return account;
+    }
+
+    /**
+     * @param balanceAfter Balance stamped on the operation, or null
+     */
+    protected Operation operation(BankAccount account, Operation_type type, long amount, Date date, Long balanceAfter) {
+        Operation operation = new Operation(null, type, Money.ofMinor(amount), date, "test", account, null,
+                balanceAfter != null ? Money.ofMinor(balanceAfter) : null);
+        entityManager.persist(operation);
+        return operation;
+    }
+
+    protected static Date at(String instant) {
+        return Date.from(Instant.parse(instant));
+    }
+}
@@ -0,0 +1,79 @@
+package org.example.digital_banking.services;
+
+import org.example.digital_banking.dtos.AccountStatusChangeDTO;
+import org.example.digital_banking.dtos.AccountStatusChangeResultDTO;
+import org.example.digital_banking.enums.AccountStatus;
+import org.example.digital_banking.repositories.BankAccountRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AccountStatusServiceTest {
+
+    @Mock
+    private BankAccountRepo bankAccountRepo;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private AccountStatusService accountStatusService;
+
+    @BeforeEach
+    void setUp() {
+        accountStatusService = new AccountStatusService(bankAccountRepo,
+                new TransactionTemplate(transactionManager), mock(AccountCache.class), 365, 2, 10);
+    }
+
+    @Test
+    void sweepRunsChunksUntilOneComesBackShort() {
+        // Arrange
+        when(bankAccountRepo.initLastActivity(2)).thenReturn(0);
+        when(bankAccountRepo.markDormant(eq(AccountStatus.ACTIVE.ordinal()), eq(AccountStatus.DORMANT.ordinal()),
+                any(), eq(2))).thenReturn(2, 2, 1);
+
+        // Act
+        int marked = accountStatusService.sweepDormant();
+
+        // Assert
+        assertEquals(5, marked);
+        verify(bankAccountRepo, times(3)).markDormant(anyInt(), anyInt(), any(), anyInt());
+    }
+
+    @Test
+    void bulkChangeIsOneStatementPerChunk() {
+        // Arrange
+        when(bankAccountRepo.updateStatus(anyCollection(), eq(AccountStatus.BLOCKED), eq(AccountStatus.ACTIVE)))
+                .thenReturn(2, 0);
+
+        // Act
+        AccountStatusChangeResultDTO result = accountStatusService.changeStatus(
+                new AccountStatusChangeDTO(List.of(1L, 2L, 3L, 3L), "BLOCKED", "ACTIVE"));
+
+        // Assert
+        assertEquals(4, result.getRequested());
+        assertEquals(2, result.getUpdated());
+        verify(bankAccountRepo).updateStatus(List.of(1L, 2L), AccountStatus.BLOCKED, AccountStatus.ACTIVE);
+        verify(bankAccountRepo).updateStatus(List.of(3L), AccountStatus.BLOCKED, AccountStatus.ACTIVE);
+    }
+
+    @Test
+    void bulkChangeRejectsOversizedRequests() {
+        List<Long> ids = LongStream.rangeClosed(1, 11).boxed().toList();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> accountStatusService.changeStatus(new AccountStatusChangeDTO(ids, "BLOCKED", null)));
+        verifyNoInteractions(bankAccountRepo);
+    }
+}
@@ -0,0 +1,125 @@
+package org.example.digital_banking.services;
+
+import org.example.digital_banking.dtos.BalanceAsOfDTO;
+import org.example.digital_banking.entities.BalanceCheckpoint;
+import org.example.digital_banking.entities.BankAccount;
+import org.example.digital_banking.entities.CurrentAccount;
+import org.example.digital_banking.enums.Operation_type;
+import org.example.digital_banking.exceptions.BankAccountNotFoundException;
+import org.example.digital_banking.money.Money;
+import org.example.digital_banking.repositories.BalanceCheckpointRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class BalanceCheckpointServiceTest extends AccountOperationFixture {
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private BalanceCheckpointRepo checkpointRepo;
+
+    private BalanceCheckpointService service;
+    private BankAccount account;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        // Chunks of one account, so that the chunking is exercised too
+        service = new BalanceCheckpointService(jdbcTemplate, transactionTemplate, checkpointRepo, mock(ObjectProvider.class), 1);
+
+        // Opened with 750.00, then +300 on the 7th, -100 and +50 on the 8th and 9th: 1000.00 now
+        account = account(new CurrentAccount(), at("2025-03-01T09:00:00Z"), 100_000);
+        operation(account, Operation_type.CREDIT, 30_000, at("2025-03-07T10:00:00Z"), null);
+        operation(account, Operation_type.DEBIT, 10_000, at("2025-03-08T12:00:00Z"), null);
+        operation(account, Operation_type.CREDIT, 5_000, at("2025-03-09T10:00:00Z"), null);
+        entityManager.flush();
+    }
+
+    @Test
+    void checkpointsChainFromTheAnchorAndSkipIdleAccounts() {
+        assertEquals(1, service.checkpoint(at("2025-03-08T00:00:00Z")));
+        assertEquals(1, service.checkpoint(at("2025-03-09T00:00:00Z")));
+        assertEquals(1, service.checkpoint(at("2025-03-10T00:00:00Z")));
+        // Nothing moved on the 10th, and a run that already happened writes nothing
+        assertEquals(0, service.checkpoint(at("2025-03-11T00:00:00Z")));
+        assertEquals(0, service.checkpoint(at("2025-03-09T00:00:00Z")));
+
+        assertEquals(Money.ofMinor(105_000), checkpointAt("2025-03-08T00:00:00Z"));
+        assertEquals(Money.ofMinor(95_000), checkpointAt("2025-03-09T00:00:00Z"));
+        assertEquals(Money.ofMinor(100_000), checkpointAt("2025-03-10T00:00:00Z"));
+    }
+
+    @Test
+    void accountsCreatedAfterTheBoundaryWaitForTheNextRun() {
+        account(new CurrentAccount(), at("2025-03-09T15:00:00Z"), 4_200);
+        entityManager.flush();
+
+        assertEquals(1, service.checkpoint(at("2025-03-09T00:00:00Z")));
+        assertEquals(2, service.checkpoint(at("2025-03-10T00:00:00Z")));
+    }
+
+    @Test
+    void balanceAsOfStartsFromTheNearestCheckpoint() {
+        service.checkpoint(at("2025-03-08T00:00:00Z"));
+        service.checkpoint(at("2025-03-09T00:00:00Z"));
+
+        BalanceAsOfDTO midDay = service.balanceAsOf(account.getIdBankAccount(), at("2025-03-08T13:00:00Z"));
+        assertEquals(Money.ofMinor(95_000), midDay.getBalance());
+        assertEquals(at("2025-03-08T00:00:00Z"), midDay.getCheckpoint());
+
+        // After the last checkpoint, and exactly on an operation (included)
+        assertEquals(Money.ofMinor(100_000),
+                service.balanceAsOf(account.getIdBankAccount(), at("2025-03-09T10:00:00Z")).getBalance());
+        // Before the first checkpoint: walked back from it
+        assertEquals(Money.ofMinor(75_000),
+                service.balanceAsOf(account.getIdBankAccount(), at("2025-03-05T00:00:00Z")).getBalance());
+        // Before the account existed
+        assertEquals(Money.ZERO,
+                service.balanceAsOf(account.getIdBankAccount(), at("2025-02-01T00:00:00Z")).getBalance());
+    }
+
+    @Test
+    void balanceAsOfWithoutCheckpointsWalksBackFromTheCurrentBalance() {
+        BalanceAsOfDTO balance = service.balanceAsOf(account.getIdBankAccount(), at("2025-03-08T13:00:00Z"));
+
+        assertEquals(Money.ofMinor(95_000), balance.getBalance());
+        assertNull(balance.getCheckpoint());
+    }
+
+    @Test
+    void recordedBalancesOverrideTheOperations() {
+        service.checkpoint(at("2025-03-08T00:00:00Z"));
+        // An administrator sets the balance to 20.00
+        entityManager.persist(new BalanceCheckpoint(null, account.getIdBankAccount(),
+                at("2025-03-09T12:00:00Z"), Money.ofMinor(2_000)));
+        entityManager.flush();
+
+        // No operation since the recorded balance: it stays the latest checkpoint
+        assertEquals(0, service.checkpoint(at("2025-03-10T00:00:00Z")));
+        assertEquals(Money.ofMinor(2_000),
+                service.balanceAsOf(account.getIdBankAccount(), at("2025-03-10T08:00:00Z")).getBalance());
+        assertEquals(Money.ofMinor(100_000),
+                service.balanceAsOf(account.getIdBankAccount(), at("2025-03-09T11:00:00Z")).getBalance());
+    }
+
+    @Test
+    void unknownAccountIsNotFound() {
+        assertThrows(BankAccountNotFoundException.class, () -> service.balanceAsOf(-1L, new Date()));
+    }
+
+    private Money checkpointAt(String date) {
+        return checkpointRepo.findFirstByAccountIdAndAsOfLessThanEqualOrderByAsOfDesc(account.getIdBankAccount(), at(date))
+                .filter(checkpoint -> checkpoint.getAsOf().getTime() == at(date).getTime())
+                .orElseThrow()
+                .getBalance();
+    }
+}
@@ -0,0 +1,115 @@
+package org.example.digital_banking.services;
+
+import jakarta.persistence.EntityManager;
+import org.example.digital_banking.dtos.ImportProgressDTO;
+import org.example.digital_banking.dtos.ImportRowErrorDTO;
+import org.example.digital_banking.entities.Customer;
+import org.example.digital_banking.entities.SavingAccount;
+import org.example.digital_banking.money.Money;
+import org.example.digital_banking.repositories.CustomerRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BulkImportServiceTest {
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private CustomerRepo customerRepo;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private BulkImportService bulkImportService;
+
+    @BeforeEach
+    void setUp() {
+        bulkImportService = new BulkImportService(entityManager, customerRepo,
+                new TransactionTemplate(transactionManager), mock(AccountCache.class), mock(CustomerSearchService.class), 2, 1000);
+    }
+
+    @Test
+    void importsValidRowsInChunksAndReportsRejectedOnes() {
+        // Arrange
+        Customer existing = Customer.builder().customer_id(1L).name("Alice").email("alice@bank.ma").build();
+        when(customerRepo.findByEmailIn(anyCollection())).thenReturn(List.of(existing), List.of());
+        String csv = """
+                customer_email,customer_name,account_type,initial_balance,interest_rate
+                ALICE@bank.ma,Alice,SAV,1500.50,2.5
+                bob@bank.ma,Bob,,,
+                not-an-email,Carl,CUR,10,
+                dina@bank.ma,Dina,CUR,1.234,
+                eve@bank.ma,Eve,CUR,20,
+                """;
+        List<Object> events = new ArrayList<>();
+
+        // Act
+        ImportProgressDTO progress = bulkImportService.importCsv(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), events::add);
+
+        // Assert
+        assertTrue(progress.isDone());
+        assertEquals(5, progress.getRows());
+        assertEquals(2, progress.getCustomersCreated());
+        assertEquals(2, progress.getAccountsCreated());
+        assertEquals(2, progress.getRejected());
+        List<Long> rejectedLines = events.stream()
+                .filter(ImportRowErrorDTO.class::isInstance)
+                .map(event -> ((ImportRowErrorDTO) event).getLine())
+                .toList();
+        assertEquals(List.of(4L, 5L), rejectedLines);
+
+        ArgumentCaptor<Object> persisted = ArgumentCaptor.forClass(Object.class);
+        verify(entityManager, times(4)).persist(persisted.capture());
+        SavingAccount saving = (SavingAccount) persisted.getAllValues().get(0);
+        assertSame(existing, saving.getCustomer());
+        assertEquals(Money.of("1500.50"), saving.getBalance());
+        verify(entityManager, times(2)).flush();
+    }
+
+    @Test
+    void missingRequiredColumnAbortsTheImport() {
+        List<Object> events = new ArrayList<>();
+
+        ImportProgressDTO progress = bulkImportService.importCsv(
+                new ByteArrayInputStream("email,name\nx@y.z,X\n".getBytes(StandardCharsets.UTF_8)), events::add);
+
+        assertFalse(progress.isDone());
+        assertEquals("Missing column customer_email", ((ImportRowErrorDTO) events.get(0)).getError());
+        assertEquals(1, ((ImportRowErrorDTO) events.get(0)).getLine());
+        verifyNoInteractions(customerRepo, entityManager);
+    }
+
+    @Test
+    void malformedRecordIsRejectedAtItsPhysicalLine() {
+        List<Object> events = new ArrayList<>();
+        String csv = "customer_email,customer_name\n\"a@b.c\",\"multi\nline\"\n\"x@y.z,unterminated\n\n";
+
+        ImportProgressDTO progress = bulkImportService.importCsv(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), events::add);
+
+        assertFalse(progress.isDone());
+        assertEquals(2, progress.getRows());
+        assertEquals(1, progress.getRejected());
+        ImportRowErrorDTO error = (ImportRowErrorDTO) events.get(events.size() - 2);
+        // The broken record starts on line 4, after a header and a record spanning two lines
+        assertEquals(4, error.getLine());
+    }
+}
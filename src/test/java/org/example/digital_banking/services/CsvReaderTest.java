@@ -0,0 +1,31 @@
+package org.example.digital_banking.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvReaderTest {
+
+    @Test
+    void readsQuotedFieldsAndTracksLines() throws IOException {
+        String csv = "a,b,c\r\n\"x, y\",\"say \"\"hi\"\"\",\n\n\"multi\nline\",2,3";
+        try (CsvReader reader = new CsvReader(new StringReader(csv), 1000)) {
+            assertEquals(List.of("a", "b", "c"), reader.next());
+            assertEquals(List.of("x, y", "say \"hi\"", ""), reader.next());
+            assertEquals(2, reader.recordLine());
+            assertEquals(List.of("multi\nline", "2", "3"), reader.next());
+            assertEquals(4, reader.recordLine());
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    void refusesOverlongAndUnterminatedRecords() {
+        assertThrows(IOException.class, () -> new CsvReader(new StringReader("abcdefghijk"), 10).next());
+        assertThrows(IOException.class, () -> new CsvReader(new StringReader("\"open,field"), 100).next());
+    }
+}
@@ -0,0 +1,53 @@
+package org.example.digital_banking.services;
+
+import org.example.digital_banking.config.JdbcConfig;
+import org.example.digital_banking.dtos.CustomerDTO;
+import org.example.digital_banking.dtos.CustomerSearchResultDTO;
+import org.example.digital_banking.exceptions.SearchIndexUnavailableException;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class CustomerSearchServiceTest {
+
+    @Test
+    void changesCommittedDuringABuildAreKept() throws Exception {
+        // Arrange
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        Statement statement = mock(Statement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenReturn(resultSet);
+        when(resultSet.getLong(1)).thenReturn(1L, 2L);
+        when(resultSet.getString(2)).thenReturn("Alice Martin", "Bob Martin");
+        CustomerSearchService service = new CustomerSearchService(
+                new JdbcConfig().streamingJdbcTemplate(dataSource, Integer.MIN_VALUE), 50, 0.6, 1000);
+        assertThrows(SearchIndexUnavailableException.class, () -> service.search("martin", 10));
+
+        // The build reads its two rows while another request deletes Bob and creates Carol
+        when(resultSet.next()).thenReturn(true).thenAnswer(invocation -> {
+            service.remove(2L);
+            service.index(new CustomerDTO(3L, "Carol Martin", null, null, null, null, null));
+            return true;
+        }).thenReturn(false);
+
+        // Act
+        service.rebuild();
+        List<CustomerSearchResultDTO> results = service.search("martin", 10);
+
+        // Assert
+        assertEquals(List.of(1L, 3L), results.stream().map(CustomerSearchResultDTO::getCustomer_id).sorted().toList());
+        verify(statement).setFetchSize(Integer.MIN_VALUE);
+        assertThrows(IllegalArgumentException.class, () -> service.search(" ", 10));
+    }
+}
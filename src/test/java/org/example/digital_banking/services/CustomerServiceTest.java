@@ -0,0 +1,319 @@
+package org.example.digital_banking.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.digital_banking.concurrency.AccountLockManager;
+import org.example.digital_banking.concurrency.OptimisticRetryExecutor;
+import org.example.digital_banking.dtos.AccountHistoryDTO;
+import org.example.digital_banking.dtos.BankAccountDTO;
+import org.example.digital_banking.dtos.CreditDebitRequestDTO;
+import org.example.digital_banking.dtos.SavingAccountDTO;
+import org.example.digital_banking.dtos.TransferRequestDTO;
+import org.example.digital_banking.dtos.TransferResultDTO;
+import org.example.digital_banking.entities.BalanceSlot;
+import org.example.digital_banking.entities.CurrentAccount;
+import org.example.digital_banking.entities.Operation;
+import org.example.digital_banking.entities.SavingAccount;
+import org.example.digital_banking.enums.Operation_type;
+import org.example.digital_banking.exceptions.BankAccountNotFoundException;
+import org.example.digital_banking.exceptions.InsufficientBalanceException;
+import org.example.digital_banking.mappers.BankAccountMapper;
+import org.example.digital_banking.money.Money;
+import org.example.digital_banking.repositories.BalanceSlotRepo;
+import org.example.digital_banking.repositories.BankAccountRepo;
+import org.example.digital_banking.repositories.CustomerRepo;
+import org.example.digital_banking.repositories.OperationRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerServiceTest {
+
+    @Mock
+    private CustomerRepo customerRepo;
+
+    @Mock
+    private BankAccountRepo bankAccountRepo;
+
+    @Mock
+    private OperationRepo operationRepo;
+
+    @Mock
+    private BankAccountMapper bankAccountMapper;
+
+    @Mock
+    private BalanceSlotRepo balanceSlotRepo;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private DashboardCounters dashboardCounters;
+
+    private HotAccountService hotAccountService;
+
+    private AccountCache accountCache;
+
+    private CustomerService customerService;
+
+    @BeforeEach
+    void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AccountLockManager lockManager = new AccountLockManager(16, 1000, meterRegistry);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        accountCache = new AccountCache(meterRegistry, true, 100, 100, 60);
+        hotAccountService = new HotAccountService(balanceSlotRepo, bankAccountRepo, lockManager,
+                transactionTemplate, accountCache, 64);
+        customerService = new CustomerService(
+                customerRepo,
+                bankAccountRepo,
+                operationRepo,
+                bankAccountMapper,
+                lockManager,
+                transactionTemplate,
+                new OptimisticRetryExecutor(meterRegistry, 3, 1, 2),
+                hotAccountService,
+                accountCache,
+                mock(CustomerSearchService.class),
+                mock(BalanceCheckpointService.class),
+                dashboardCounters,
+                mock(OperationRollupService.class),
+                mock(OperationAnalyticsService.class));
+    }
+
+    @Test
+    void debitUsesSingleGuardedUpdate() {
+        // Arrange
+        CurrentAccount account = new CurrentAccount();
+        when(bankAccountRepo.debitIfSufficient(1L, 30_000)).thenReturn(1);
+        when(bankAccountRepo.getReferenceById(1L)).thenReturn(account);
+        when(bankAccountRepo.findBalanceById(1L)).thenReturn(70_000L);
+
+        // Act
+        customerService.debit(1L, new CreditDebitRequestDTO(1L, Money.ofUnits(300), "ATM"));
+
+        // Assert
+        ArgumentCaptor<Operation> captor = ArgumentCaptor.forClass(Operation.class);
+        verify(operationRepo).save(captor.capture());
+        assertEquals(Operation_type.DEBIT, captor.getValue().getOperationType());
+        assertEquals(Money.ofUnits(300), captor.getValue().getAmount());
+        assertSame(account, captor.getValue().getBankAccount());
+        assertEquals(Money.ofUnits(700), captor.getValue().getBalanceAfter());
+        verify(dashboardCounters).debited(30_000, captor.getValue().getOperationDate());
+        verify(bankAccountRepo, never()).findById(any());
+        verify(bankAccountRepo, never()).save(any());
+    }
+
+    @Test
+    void refusedDebitReportsInsufficientBalance() {
+        // Arrange
+        when(bankAccountRepo.debitIfSufficient(2L, 30_000)).thenReturn(0);
+        when(bankAccountRepo.findById(2L)).thenReturn(Optional.of(new SavingAccount()));
+
+        // Act & Assert
+        InsufficientBalanceException ex = assertThrows(InsufficientBalanceException.class,
+                () -> customerService.debit(2L, new CreditDebitRequestDTO(2L, Money.ofUnits(300), "ATM")));
+        assertEquals("Insufficient balance", ex.getMessage());
+        verify(operationRepo, never()).save(any());
+    }
+
+    @Test
+    void refusedDebitOnMissingAccountReportsNotFound() {
+        // Arrange
+        when(bankAccountRepo.debitIfSufficient(3L, 30_000)).thenReturn(0);
+        when(bankAccountRepo.findById(3L)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThrows(BankAccountNotFoundException.class,
+                () -> customerService.debit(3L, new CreditDebitRequestDTO(3L, Money.ofUnits(300), "ATM")));
+    }
+
+    @Test
+    void transferBatchValidatesAgainstRunningBalancesAndNetsUpdates() {
+        // Arrange
+        SavingAccount payer = new SavingAccount();
+        payer.setIdBankAccount(10L);
+        payer.setBalance(Money.ofUnits(1000));
+        SavingAccount payee = new SavingAccount();
+        payee.setIdBankAccount(20L);
+        payee.setBalance(Money.ZERO);
+        when(bankAccountRepo.findAllById(any())).thenReturn(List.of(payer, payee));
+
+        List<TransferRequestDTO> batch = List.of(
+                new TransferRequestDTO("10", "20", Money.ofUnits(600), "salary"),
+                new TransferRequestDTO("10", "20", Money.ofUnits(600), "salary"),
+                new TransferRequestDTO("10", "99", Money.ofUnits(100), "unknown"),
+                new TransferRequestDTO("10", "20", Money.ofUnits(400), "bonus"));
+
+        // Act
+        List<TransferResultDTO> results = customerService.transferBatch(batch);
+
+        // Assert
+        assertEquals(List.of("ACCEPTED", "REJECTED", "REJECTED", "ACCEPTED"),
+                results.stream().map(TransferResultDTO::getStatus).toList());
+        assertEquals("Insufficient balance", results.get(1).getMessage());
+        assertEquals("Account not found with id: 99", results.get(2).getMessage());
+        assertEquals(Money.ZERO, payer.getBalance());
+        assertEquals(Money.ofUnits(1000), payee.getBalance());
+
+        ArgumentCaptor<List<Operation>> captor = ArgumentCaptor.forClass(List.class);
+        verify(operationRepo).saveAll(captor.capture());
+        assertEquals(4, captor.getValue().size());
+        // Each leg carries the running balance of its account
+        assertEquals(List.of(Money.ofUnits(400), Money.ofUnits(600), Money.ZERO, Money.ofUnits(1000)),
+                captor.getValue().stream().map(Operation::getBalanceAfter).toList());
+        verify(bankAccountRepo, times(1)).findAllById(any());
+    }
+
+    @Test
+    void transferBatchCommitsChunksOfBoundedAccounts() {
+        // Arrange
+        ReflectionTestUtils.setField(customerService, "maxChunkAccounts", 2);
+        SavingAccount first = new SavingAccount();
+        first.setIdBankAccount(10L);
+        first.setBalance(Money.ofUnits(100));
+        SavingAccount second = new SavingAccount();
+        second.setIdBankAccount(20L);
+        second.setBalance(Money.ZERO);
+        SavingAccount third = new SavingAccount();
+        third.setIdBankAccount(30L);
+        third.setBalance(Money.ofUnits(100));
+        SavingAccount fourth = new SavingAccount();
+        fourth.setIdBankAccount(40L);
+        fourth.setBalance(Money.ZERO);
+        when(bankAccountRepo.findAllById(any())).thenReturn(List.of(first, second), List.of(third, fourth));
+
+        List<TransferRequestDTO> batch = List.of(
+                new TransferRequestDTO("10", "20", Money.ofUnits(60), "rent"),
+                new TransferRequestDTO("20", "10", Money.ofUnits(10), "refund"),
+                new TransferRequestDTO("30", "40", Money.ofUnits(100), "rent"));
+
+        // Act
+        List<TransferResultDTO> results = customerService.transferBatch(batch);
+
+        // Assert
+        assertEquals(List.of(0, 1, 2), results.stream().map(TransferResultDTO::getIndex).toList());
+        assertEquals(List.of("ACCEPTED", "ACCEPTED", "ACCEPTED"),
+                results.stream().map(TransferResultDTO::getStatus).toList());
+        assertEquals(Money.ofUnits(50), first.getBalance());
+        assertEquals(Money.ofUnits(100), fourth.getBalance());
+        // One transaction per chunk: {10, 20} then {30, 40}
+        verify(bankAccountRepo, times(2)).findAllById(any());
+        verify(operationRepo, times(2)).saveAll(any());
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    @Test
+    void creditToHotAccountGoesToASlot() {
+        // Arrange
+        when(balanceSlotRepo.countSlotsByAccount()).thenReturn(List.<Object[]>of(new Object[]{5L, 8L}));
+        hotAccountService.loadRegistry();
+        when(balanceSlotRepo.credit(eq(5L), anyInt(), eq(30_000L))).thenReturn(1);
+
+        // Act
+        customerService.credit(5L, new CreditDebitRequestDTO(5L, Money.ofUnits(300), "sale"));
+
+        // Assert: concurrent slot credits have no single order, so no balance is stamped
+        ArgumentCaptor<Operation> captor = ArgumentCaptor.forClass(Operation.class);
+        verify(operationRepo).save(captor.capture());
+        assertNull(captor.getValue().getBalanceAfter());
+        verify(bankAccountRepo, never()).findById(any());
+        verify(bankAccountRepo, never()).save(any());
+    }
+
+    @Test
+    void debitOnHotAccountBorrowsFromSlots() {
+        // Arrange
+        when(balanceSlotRepo.countSlotsByAccount()).thenReturn(List.<Object[]>of(new Object[]{5L, 2L}));
+        hotAccountService.loadRegistry();
+        when(bankAccountRepo.debitIfSufficient(5L, 30_000)).thenReturn(0, 1);
+        BalanceSlot slot0 = new BalanceSlot(1L, 5L, 0, Money.ofUnits(200));
+        BalanceSlot slot1 = new BalanceSlot(2L, 5L, 1, Money.ofUnits(150));
+        when(balanceSlotRepo.lockByAccountId(5L)).thenReturn(List.of(slot0, slot1));
+
+        // Act
+        customerService.debit(5L, new CreditDebitRequestDTO(5L, Money.ofUnits(300), "refund"));
+
+        // Assert
+        verify(bankAccountRepo).addToBalance(5L, 35_000);
+        assertEquals(Money.ZERO, slot0.getBalance());
+        assertEquals(Money.ZERO, slot1.getBalance());
+        verify(operationRepo).save(any(Operation.class));
+    }
+
+    @Test
+    void historyPagesWithAKeysetCursor() {
+        // Arrange
+        SavingAccount account = new SavingAccount();
+        account.setIdBankAccount(7L);
+        account.setBalance(Money.ofUnits(50));
+        when(bankAccountRepo.findWithCustomerById(7L)).thenReturn(Optional.of(account));
+        SavingAccountDTO accountDTO = new SavingAccountDTO();
+        accountDTO.setId(7L);
+        accountDTO.setBalance(Money.ofUnits(50));
+        when(bankAccountMapper.fromSavingAccount(account)).thenReturn(accountDTO);
+        Operation newer = new Operation(30L, Operation_type.CREDIT, Money.ofUnits(1), new Date(3_000), "c", account, null, null);
+        Operation older = new Operation(20L, Operation_type.DEBIT, Money.ofUnits(2), new Date(2_000), "d", account, null, null);
+        Operation oldest = new Operation(10L, Operation_type.CREDIT, Money.ofUnits(3), new Date(1_000), "e", account, null, null);
+        when(operationRepo.findByAccountIdBefore(eq(7L), eq(new Date(4_000)), eq(40L), any()))
+                .thenReturn(List.of(newer, older, oldest));
+
+        // Act
+        AccountHistoryDTO history = customerService.getAccountHistory(7L, "4000:40", 1, 2);
+
+        // Assert
+        assertEquals(2, history.getAccountOperationDTOS().size());
+        assertEquals("2000:20", history.getNextCursor());
+        assertEquals(1, history.getCurrentPage());
+        assertNull(history.getTotalPages());
+        verify(operationRepo, never()).countByAccountId(any());
+        assertEquals(Money.ofUnits(50), history.getBalance());
+        verify(operationRepo, never()).findByBankAccountId(any());
+        assertThrows(IllegalArgumentException.class, () -> customerService.getAccountHistory(7L, "oops", 0, 2));
+
+        // The first page counts the operations
+        when(operationRepo.findLatestByAccountId(eq(7L), any())).thenReturn(List.of(newer, older, oldest));
+        when(operationRepo.countByAccountId(7L)).thenReturn(5L);
+        assertEquals(3, customerService.getAccountHistory(7L, null, 0, 2).getTotalPages());
+    }
+
+    @Test
+    void accountReadsAreCachedUntilABalanceChange() {
+        // Arrange
+        SavingAccount account = new SavingAccount();
+        account.setIdBankAccount(8L);
+        when(bankAccountRepo.findWithCustomerById(8L)).thenReturn(Optional.of(account));
+        SavingAccountDTO accountDTO = new SavingAccountDTO();
+        accountDTO.setId(8L);
+        accountDTO.setBalance(Money.ofUnits(10));
+        when(bankAccountMapper.fromSavingAccount(account)).thenReturn(accountDTO);
+        when(bankAccountRepo.debitIfSufficient(8L, 100)).thenReturn(1);
+
+        // Act
+        BankAccountDTO first = customerService.getAccount(8L);
+        first.setBalance(Money.ZERO);
+        BankAccountDTO second = customerService.getAccount(8L);
+        customerService.debit(8L, new CreditDebitRequestDTO(8L, Money.ofUnits(1), "ATM"));
+        customerService.getAccount(8L);
+
+        // Assert
+        assertEquals(Money.ofUnits(10), second.getBalance());
+        verify(bankAccountRepo, times(2)).findWithCustomerById(8L);
+    }
+}
@@ -0,0 +1,159 @@
+package org.example.digital_banking.services;
+
+import org.example.digital_banking.dtos.DashboardStatsDTO;
+import org.example.digital_banking.ledger.BalanceEngine;
+import org.example.digital_banking.money.Money;
+import org.example.digital_banking.repositories.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DashboardCountersTest {
+
+    @Mock
+    private BankAccountRepo bankAccountRepo;
+
+    @Mock
+    private OperationRepo operationRepo;
+
+    @Mock
+    private ObjectProvider<BalanceEngine> balanceEngine;
+
+    private DashboardCounters counters;
+    private LocalDate today;
+
+    @BeforeEach
+    void setUp() {
+        counters = new DashboardCounters(bankAccountRepo, operationRepo, balanceEngine);
+        today = LocalDate.now(ZoneId.systemDefault());
+    }
+
+    @Test
+    void seededFromTheDatabase() {
+        assertTrue(counters.snapshot().isEmpty());
+
+        database(3, 100_000, 50_000, 20_000,
+                List.of(createdOn(today, 1), createdOn(today.minusDays(29), 1)),
+                List.of(operationsOn(today.minusDays(6), 2), operationsOn(today, 1)));
+        counters.reconcile();
+
+        DashboardStatsDTO stats = counters.snapshot().orElseThrow();
+        assertEquals(Money.ofMinor(100_000), stats.getTotalBalance());
+        assertEquals(Money.ofMinor(30_000), stats.getBalanceChange());
+        assertEquals(3, stats.getActiveAccounts());
+        assertEquals(2, stats.getNewAccounts());
+        assertEquals(3, stats.getRecentTransactions());
+    }
+
+    @Test
+    void writesAdjustTheCounters() {
+        database(0, 0, 0, 0, List.of(), List.of());
+        counters.reconcile();
+
+        counters.accountCreated(new Date(), true, 10_000);
+        counters.credited(5_000, new Date());
+        counters.debited(2_000, new Date());
+        counters.accountUpdated(true, false, -3_000);
+        // Too old for the recent operations
+        counters.credited(1_000, at(today.minusDays(7)));
+
+        DashboardStatsDTO stats = counters.snapshot().orElseThrow();
+        assertEquals(Money.ofMinor(11_000), stats.getTotalBalance());
+        assertEquals(Money.ofMinor(4_000), stats.getBalanceChange());
+        assertEquals(0, stats.getActiveAccounts());
+        assertEquals(1, stats.getNewAccounts());
+        assertEquals(2, stats.getRecentTransactions());
+
+        counters.accountDeleted(new Date(), false, 11_000, List.of(
+                dailyTotals(today, 5_000, 2_000, 2), dailyTotals(today.minusDays(7), 1_000, 0, 1)));
+
+        stats = counters.snapshot().orElseThrow();
+        assertEquals(Money.ZERO, stats.getTotalBalance());
+        assertEquals(Money.ZERO, stats.getBalanceChange());
+        assertEquals(0, stats.getNewAccounts());
+        assertEquals(0, stats.getRecentTransactions());
+    }
+
+    @Test
+    void reconciliationRepairsDrift() {
+        database(1, 10_000, 10_000, 0, List.of(createdOn(today, 1)), List.of(operationsOn(today, 1)));
+        counters.reconcile();
+        // Written by another instance: only the database knows
+        database(2, 25_000, 25_000, 0, List.of(createdOn(today, 2)), List.of(operationsOn(today, 2)));
+        counters.reconcile();
+
+        DashboardStatsDTO stats = counters.snapshot().orElseThrow();
+        assertEquals(Money.ofMinor(25_000), stats.getTotalBalance());
+        assertEquals(2, stats.getActiveAccounts());
+        assertEquals(2, stats.getNewAccounts());
+        assertEquals(2, stats.getRecentTransactions());
+    }
+
+    @Test
+    void ledgerModeKeepsTheLiveBalance() {
+        when(balanceEngine.getIfAvailable()).thenReturn(mock(BalanceEngine.class));
+        database(1, 10_000, 10_000, 0, List.of(), List.of());
+        counters.reconcile();
+        counters.credited(5_000, new Date());
+
+        // The stored balance has not been checkpointed yet
+        counters.reconcile();
+
+        assertEquals(Money.ofMinor(15_000), counters.snapshot().orElseThrow().getTotalBalance());
+    }
+
+    private void database(long active, long balance, long credits, long debits,
+                          List<DailyAccountCount> created, List<DailyOperationTotals> recent) {
+        AccountTotals accountTotals = mock(AccountTotals.class);
+        lenient().when(accountTotals.getActive()).thenReturn(active);
+        lenient().when(accountTotals.getBalance()).thenReturn(balance);
+        OperationTotals operationTotals = mock(OperationTotals.class);
+        when(operationTotals.getCredits()).thenReturn(credits);
+        when(operationTotals.getDebits()).thenReturn(debits);
+        when(bankAccountRepo.aggregateTotals(anyInt(), any())).thenReturn(accountTotals);
+        when(operationRepo.aggregateTotals(anyInt(), anyInt(), any(), any(), any())).thenReturn(operationTotals);
+        when(bankAccountRepo.countCreatedByDay(any())).thenReturn(created);
+        when(operationRepo.aggregateByDay(anyInt(), anyInt(), any(), any())).thenReturn(recent);
+    }
+
+    private static DailyAccountCount createdOn(LocalDate day, long accounts) {
+        DailyAccountCount count = mock(DailyAccountCount.class);
+        when(count.getCreatedDay()).thenReturn(day);
+        when(count.getAccounts()).thenReturn(accounts);
+        return count;
+    }
+
+    private static DailyOperationTotals operationsOn(LocalDate day, long operations) {
+        DailyOperationTotals totals = mock(DailyOperationTotals.class);
+        when(totals.getOperationDay()).thenReturn(day);
+        when(totals.getOperations()).thenReturn(operations);
+        return totals;
+    }
+
+    private static DailyOperationTotals dailyTotals(LocalDate day, long credits, long debits, long operations) {
+        DailyOperationTotals totals = mock(DailyOperationTotals.class);
+        when(totals.getOperationDay()).thenReturn(day);
+        when(totals.getCredits()).thenReturn(credits);
+        when(totals.getDebits()).thenReturn(debits);
+        when(totals.getOperations()).thenReturn(operations);
+        return totals;
+    }
+
+    private static Date at(LocalDate day) {
+        return Date.from(day.atTime(12, 0).atZone(ZoneId.systemDefault()).toInstant());
+    }
+}
@@ -1,160 +1,247 @@
 package org.example.digital_banking.services;
 
+import org.example.digital_banking.analytics.ColumnarOperationStore;
 import org.example.digital_banking.dtos.AccountStatsDTO;
 import org.example.digital_banking.dtos.DashboardStatsDTO;
 import org.example.digital_banking.dtos.TimeRangeDTO;
 import org.example.digital_banking.dtos.TransactionStatsDTO;
-import org.example.digital_banking.entities.BankAccount;
-import org.example.digital_banking.entities.CurrentAccount;
-import org.example.digital_banking.entities.Customer;
-import org.example.digital_banking.entities.Operation;
 import org.example.digital_banking.enums.AccountStatus;
 import org.example.digital_banking.enums.Operation_type;
-import org.example.digital_banking.repositories.BankAccountRepo;
-import org.example.digital_banking.repositories.OperationRepo;
-import org.junit.jupiter.api.BeforeEach;
+import org.example.digital_banking.money.Money;
+import org.example.digital_banking.repositories.*;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
-import java.util.Arrays;
-import java.util.Calendar;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.Date;
 import java.util.List;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.Mockito.when;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class DashboardServiceImplTest {
 
+    private static final int CREDIT = Operation_type.CREDIT.ordinal();
+    private static final int DEBIT = Operation_type.DEBIT.ordinal();
+
     @Mock
     private BankAccountRepo bankAccountRepo;
 
     @Mock
     private OperationRepo operationRepo;
 
+    @Mock
+    private DashboardCounters dashboardCounters;
+
+    @Mock
+    private OperationRollupService operationRollupService;
+
+    @Mock
+    private OperationAnalyticsService operationAnalyticsService;
+
     @InjectMocks
     private DashboardServiceImpl dashboardService;
 
-    private Customer customer;
-    private BankAccount account1, account2;
-    private Operation operation1, operation2, operation3;
-    private Date now, oneMonthAgo, twoMonthsAgo;
-
-    @BeforeEach
-    void setUp() {
-        // Setup dates
-        Calendar cal = Calendar.getInstance();
-        now = cal.getTime();
-        
-        cal.add(Calendar.MONTH, -1);
-        oneMonthAgo = cal.getTime();
-        
-        cal.add(Calendar.MONTH, -1);
-        twoMonthsAgo = cal.getTime();
-
-        // Setup customer
-        customer = Customer.builder()
-                .customer_id(1L)
-                .name("Test Customer")
-                .email("test@example.com")
-                .build();
-
-        // Setup accounts
-        account1 = CurrentAccount.builder()
-                .idBankAccount(1L)
-                .balance(1000)
-                .status(AccountStatus.ACTIVE)
-                .currency("USD")
-                .createdAt(oneMonthAgo)
-                .customer(customer)
-                .overdraft(500)
-                .build();
-
-        account2 = CurrentAccount.builder()
-                .idBankAccount(2L)
-                .balance(2000)
-                .status(AccountStatus.ACTIVE)
-                .currency("USD")
-                .createdAt(twoMonthsAgo)
-                .customer(customer)
-                .overdraft(500)
-                .build();
-
-        // Setup operations
-        operation1 = new Operation(1L, Operation_type.CREDIT, 500, oneMonthAgo, "Deposit", account1);
-        operation2 = new Operation(2L, Operation_type.DEBIT, 200, now, "Withdrawal", account1);
-        operation3 = new Operation(3L, Operation_type.CREDIT, 1000, now, "Deposit", account2);
-    }
-
     @Test
     void getDashboardStats() {
         // Arrange
-        when(bankAccountRepo.findAll()).thenReturn(Arrays.asList(account1, account2));
-        when(operationRepo.findAll()).thenReturn(Arrays.asList(operation1, operation2, operation3));
+        AccountTotals accounts = accountTotals(2, 1, 300_000);
+        OperationTotals operations = operationTotals(150_000, 20_000, 2);
+        when(bankAccountRepo.aggregateTotals(eq(AccountStatus.ACTIVE.ordinal()), any())).thenReturn(accounts);
+        when(operationRepo.aggregateTotals(eq(CREDIT), eq(DEBIT), any(), any(), any())).thenReturn(operations);
 
         // Act
         DashboardStatsDTO stats = dashboardService.getDashboardStats(null);
 
         // Assert
-        assertEquals(3000, stats.getTotalBalance());
-        assertEquals(1300, stats.getBalanceChange());
+        assertEquals(Money.ofUnits(3000), stats.getTotalBalance());
+        assertEquals(Money.ofUnits(1300), stats.getBalanceChange());
         assertEquals(2, stats.getActiveAccounts());
         assertEquals(1, stats.getNewAccounts());
         assertEquals(2, stats.getRecentTransactions());
         assertEquals(0, stats.getPendingTransactions());
+
+        // Until the live counters are seeded, every operation is aggregated
+        ArgumentCaptor<Date> start = ArgumentCaptor.forClass(Date.class);
+        ArgumentCaptor<Date> end = ArgumentCaptor.forClass(Date.class);
+        verify(operationRepo).aggregateTotals(eq(CREDIT), eq(DEBIT), start.capture(), end.capture(), any());
+        assertEquals(0, start.getValue().getTime());
+        assertTrue(end.getValue().after(new Date()));
+        verify(operationRepo, never()).findAll();
+        verify(bankAccountRepo, never()).findAll();
+    }
+
+    @Test
+    void getDashboardStatsReadsTheLiveCountersWithoutATimeRange() {
+        // Arrange
+        DashboardStatsDTO live = new DashboardStatsDTO(Money.ofUnits(10), Money.ofUnits(5), 1, 1, 3, 0);
+        when(dashboardCounters.snapshot()).thenReturn(Optional.of(live));
+
+        // Act
+        DashboardStatsDTO stats = dashboardService.getDashboardStats(null);
+
+        // Assert
+        assertSame(live, stats);
+        verifyNoInteractions(bankAccountRepo, operationRepo);
+    }
+
+    @Test
+    void getDashboardStatsPassesTheTimeRange() {
+        // Arrange
+        Date from = new Date(1_000_000);
+        Date to = new Date(2_000_000);
+        AccountTotals accounts = accountTotals(0, 0, 0);
+        OperationTotals operations = operationTotals(0, 0, 0);
+        when(bankAccountRepo.aggregateTotals(anyInt(), any())).thenReturn(accounts);
+        when(operationRepo.aggregateTotals(anyInt(), anyInt(), any(), any(), any())).thenReturn(operations);
+
+        // Act
+        dashboardService.getDashboardStats(new TimeRangeDTO(from, to));
+
+        // Assert: new accounts are counted from the start of the range
+        verify(bankAccountRepo).aggregateTotals(AccountStatus.ACTIVE.ordinal(), from);
+        verify(operationRepo).aggregateTotals(eq(CREDIT), eq(DEBIT), eq(from), eq(to), any());
+        verify(dashboardCounters, never()).snapshot();
     }
 
     @Test
     void getAccountStats() {
         // Arrange
-        when(bankAccountRepo.findAll()).thenReturn(Arrays.asList(account1, account2));
+        AccountTypeTotals current = typeTotals("CUR", 2, 300_000);
+        AccountTypeTotals saving = typeTotals("SAV", 1, 5_000);
+        when(bankAccountRepo.aggregateByType(any(), any())).thenReturn(List.of(current, saving));
 
         // Act
         List<AccountStatsDTO> stats = dashboardService.getAccountStats(null);
 
         // Assert
-        assertEquals(1, stats.size());
-        AccountStatsDTO currentStats = stats.get(0);
-        assertEquals("Current", currentStats.getType());
-        assertEquals(2, currentStats.getCount());
-        assertEquals(3000, currentStats.getTotalBalance());
+        assertEquals(2, stats.size());
+        assertEquals(new AccountStatsDTO("Current", 2, Money.ofUnits(3000)), stats.get(0));
+        assertEquals(new AccountStatsDTO("Saving", 1, Money.ofUnits(50)), stats.get(1));
     }
 
     @Test
     void getTransactionStats() {
         // Arrange
-        when(operationRepo.findAll()).thenReturn(Arrays.asList(operation1, operation2, operation3));
-
-        // Create time range for the test
-        Calendar cal = Calendar.getInstance();
-        cal.add(Calendar.MONTH, -2);
-        Date start = cal.getTime();
-        
-        cal.add(Calendar.MONTH, 3);
-        Date end = cal.getTime();
-        
-        TimeRangeDTO timeRange = new TimeRangeDTO(start, end);
+        ZoneId zone = ZoneId.systemDefault();
+        TimeRangeDTO timeRange = new TimeRangeDTO(Date.from(LocalDate.of(2025, 1, 29).atStartOfDay(zone).toInstant()),
+                Date.from(LocalDate.of(2025, 2, 3).atStartOfDay(zone).toInstant()));
+        List<DailyOperationTotals> days = List.of(
+                dailyTotals(LocalDate.of(2025, 1, 30), 10_000, 2_000),
+                dailyTotals(LocalDate.of(2025, 1, 31), 5_000, 0),
+                dailyTotals(LocalDate.of(2025, 2, 1), 0, 7_000));
+        when(operationRepo.aggregateByDay(CREDIT, DEBIT, timeRange.getStart(), timeRange.getEnd())).thenReturn(days);
 
         // Act
-        TransactionStatsDTO stats = dashboardService.getTransactionStats(timeRange, "monthly");
+        TransactionStatsDTO monthly = dashboardService.getTransactionStats(timeRange, "monthly");
+        TransactionStatsDTO daily = dashboardService.getTransactionStats(timeRange, "daily");
+
+        // Assert: days are rolled up into months
+        assertEquals(List.of("2025-01", "2025-02"), monthly.getDates());
+        assertEquals(List.of(Money.ofUnits(150), Money.ZERO), monthly.getDeposits());
+        assertEquals(List.of(Money.ofUnits(20), Money.ofUnits(70)), monthly.getWithdrawals());
+        assertEquals(List.of(Money.ofUnits(130), Money.ofUnits(-70)), monthly.getNetChange());
+        // Days without operations are charted too
+        assertEquals(List.of("2025-01-29", "2025-01-30", "2025-01-31", "2025-02-01", "2025-02-02"), daily.getDates());
+        assertEquals(List.of(Money.ZERO, Money.ofUnits(100), Money.ofUnits(50), Money.ZERO, Money.ZERO), daily.getDeposits());
+    }
+
+    @Test
+    void getTransactionStatsReadsWholeDaysFromTheRollup() {
+        // Arrange: from the middle of Jan 30th to the middle of Feb 3rd, rolled up before Feb 2nd
+        ZoneId zone = ZoneId.systemDefault();
+        Date start = Date.from(LocalDate.of(2025, 1, 30).atTime(12, 0).atZone(zone).toInstant());
+        Date end = Date.from(LocalDate.of(2025, 2, 3).atTime(12, 0).atZone(zone).toInstant());
+        Date jan31 = Date.from(LocalDate.of(2025, 1, 31).atStartOfDay(zone).toInstant());
+        Date feb2 = Date.from(LocalDate.of(2025, 2, 2).atStartOfDay(zone).toInstant());
+        when(operationRollupService.completeBefore()).thenReturn(LocalDate.of(2025, 2, 2));
+        List<DailyOperationTotals> head = List.of(dailyTotals(LocalDate.of(2025, 1, 30), 1_000, 0));
+        List<DailyOperationTotals> rolledUp = List.of(dailyTotals(LocalDate.of(2025, 1, 31), 2_000, 0),
+                dailyTotals(LocalDate.of(2025, 2, 1), 4_000, 0));
+        List<DailyOperationTotals> tail = List.of(dailyTotals(LocalDate.of(2025, 2, 3), 8_000, 0));
+        when(operationRepo.aggregateByDay(CREDIT, DEBIT, start, jan31)).thenReturn(head);
+        when(operationRollupService.dailyTotals(LocalDate.of(2025, 1, 31), LocalDate.of(2025, 2, 2))).thenReturn(rolledUp);
+        when(operationRepo.aggregateByDay(CREDIT, DEBIT, new Date(feb2.getTime() - 1), end)).thenReturn(tail);
+
+        // Act
+        TransactionStatsDTO monthly = dashboardService.getTransactionStats(new TimeRangeDTO(start, end), "monthly");
 
         // Assert
-        assertNotNull(stats);
-        assertNotNull(stats.getDates());
-        assertNotNull(stats.getDeposits());
-        assertNotNull(stats.getWithdrawals());
-        assertNotNull(stats.getNetChange());
-        
-        // We should have at least one date entry
-        assertTrue(stats.getDates().size() > 0);
-        
-        // The number of entries in all lists should be the same
-        assertEquals(stats.getDates().size(), stats.getDeposits().size());
-        assertEquals(stats.getDates().size(), stats.getWithdrawals().size());
-        assertEquals(stats.getDates().size(), stats.getNetChange().size());
+        assertEquals(List.of("2025-01", "2025-02"), monthly.getDates());
+        assertEquals(List.of(Money.ofMinor(3_000), Money.ofMinor(12_000)), monthly.getDeposits());
+    }
+
+    @Test
+    void operationRangesAreScannedInMemoryOnceTheStoreIsBuilt() {
+        // Arrange
+        ZoneId zone = ZoneId.systemDefault();
+        TimeRangeDTO timeRange = new TimeRangeDTO(Date.from(LocalDate.of(2025, 1, 30).atStartOfDay(zone).toInstant()),
+                Date.from(LocalDate.of(2025, 2, 1).atStartOfDay(zone).toInstant()));
+        AccountTotals accounts = accountTotals(1, 0, 10_000);
+        when(bankAccountRepo.aggregateTotals(anyInt(), any())).thenReturn(accounts);
+        when(operationAnalyticsService.ready()).thenReturn(true);
+        when(operationAnalyticsService.totals(eq(timeRange.getStart()), eq(timeRange.getEnd()), any()))
+                .thenReturn(new ColumnarOperationStore.Totals(9_000, 4_000, 3, 1));
+        when(operationAnalyticsService.dailyTotals(timeRange.getStart(), timeRange.getEnd()))
+                .thenReturn(new ColumnarOperationStore.DailyTotals(LocalDate.of(2025, 1, 30).toEpochDay(),
+                        new long[]{0, 9_000}, new long[]{4_000, 0}, new long[]{2, 1}));
+
+        // Act
+        DashboardStatsDTO stats = dashboardService.getDashboardStats(timeRange);
+        TransactionStatsDTO daily = dashboardService.getTransactionStats(timeRange, "daily");
+
+        // Assert
+        assertEquals(Money.ofMinor(5_000), stats.getBalanceChange());
+        assertEquals(1, stats.getRecentTransactions());
+        assertEquals(List.of("2025-01-30", "2025-01-31"), daily.getDates());
+        assertEquals(List.of(Money.ofMinor(-4_000), Money.ofMinor(9_000)), daily.getNetChange());
+        verifyNoInteractions(operationRepo, operationRollupService);
+    }
+
+    @Test
+    void getTransactionStatsRequiresATimeRange() {
+        assertThrows(IllegalArgumentException.class,
+                () -> dashboardService.getTransactionStats(new TimeRangeDTO(new Date(), null), "daily"));
+    }
+
+    private static AccountTotals accountTotals(long active, long created, long balance) {
+        AccountTotals totals = mock(AccountTotals.class);
+        lenient().when(totals.getActive()).thenReturn(active);
+        lenient().when(totals.getCreated()).thenReturn(created);
+        lenient().when(totals.getBalance()).thenReturn(balance);
+        return totals;
+    }
+
+    private static OperationTotals operationTotals(long credits, long debits, long recent) {
+        OperationTotals totals = mock(OperationTotals.class);
+        lenient().when(totals.getCredits()).thenReturn(credits);
+        lenient().when(totals.getDebits()).thenReturn(debits);
+        lenient().when(totals.getRecent()).thenReturn(recent);
+        return totals;
+    }
+
+    private static AccountTypeTotals typeTotals(String type, long accounts, long balance) {
+        AccountTypeTotals totals = mock(AccountTypeTotals.class);
+        when(totals.getType()).thenReturn(type);
+        when(totals.getAccounts()).thenReturn(accounts);
+        when(totals.getBalance()).thenReturn(balance);
+        return totals;
+    }
+
+    private static DailyOperationTotals dailyTotals(LocalDate day, long credits, long debits) {
+        DailyOperationTotals totals = mock(DailyOperationTotals.class);
+        when(totals.getOperationDay()).thenReturn(day);
+        when(totals.getCredits()).thenReturn(credits);
+        when(totals.getDebits()).thenReturn(debits);
+        return totals;
     }
-}
\ No newline at end of file
+}
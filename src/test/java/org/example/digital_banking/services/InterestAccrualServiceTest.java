@@ -0,0 +1,37 @@
+package org.example.digital_banking.services;
+
+import org.example.digital_banking.entities.InterestAccrualPartition;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InterestAccrualServiceTest {
+
+    @Test
+    void dailyInterestIsRoundedHalfEvenInMinorUnits() {
+        // 10 000.00 at 3.65% over 365 days -> 1.00 per day
+        assertEquals(100, InterestAccrualService.dailyInterest(1_000_000, 3.65, 365));
+        // 1 234.56 at 2.5% -> 0.08456... -> 0.08
+        assertEquals(8, InterestAccrualService.dailyInterest(123_456, 2.5, 365));
+        // Ties go to the even neighbour: 730.00 at 1.25% -> 0.025 -> 0.02
+        assertEquals(2, InterestAccrualService.dailyInterest(73_000, 1.25, 365));
+        assertEquals(0, InterestAccrualService.dailyInterest(-50_000, 2.5, 365));
+        assertEquals(0, InterestAccrualService.dailyInterest(50_000, 0, 365));
+    }
+
+    @Test
+    void partitionsCoverTheIdRangeWithoutGaps() {
+        LocalDate date = LocalDate.of(2025, 1, 31);
+
+        List<InterestAccrualPartition> partitions = InterestAccrualService.plan(date, 7, 251, 100);
+
+        assertEquals(3, partitions.size());
+        assertEquals(List.of(7L, 107L, 207L), partitions.stream().map(InterestAccrualPartition::getFirstId).toList());
+        assertEquals(List.of(106L, 206L, 251L), partitions.stream().map(InterestAccrualPartition::getLastId).toList());
+        assertTrue(partitions.stream().allMatch(p -> p.getCursorId() == p.getFirstId() - 1 && !p.isCompleted()));
+        assertEquals(1, InterestAccrualService.plan(date, 5, 5, 100).size());
+    }
+}
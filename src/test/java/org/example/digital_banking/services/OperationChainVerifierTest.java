@@ -0,0 +1,98 @@
+package org.example.digital_banking.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.digital_banking.config.JdbcConfig;
+import org.example.digital_banking.dtos.OperationChainReportDTO;
+import org.example.digital_banking.entities.BalanceCheckpoint;
+import org.example.digital_banking.entities.BankAccount;
+import org.example.digital_banking.entities.CurrentAccount;
+import org.example.digital_banking.entities.Operation;
+import org.example.digital_banking.enums.Operation_type;
+import org.example.digital_banking.exceptions.BankAccountNotFoundException;
+import org.example.digital_banking.money.Money;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OperationChainVerifierTest extends AccountOperationFixture {
+
+    @Autowired
+    private DataSource dataSource;
+
+    private OperationChainVerifier verifier;
+    private BankAccount account;
+    private Operation corrupted;
+
+    @BeforeEach
+    void setUp() {
+        verifier = new OperationChainVerifier(jdbcTemplate, new JdbcConfig().streamingJdbcTemplate(dataSource, 100),
+                new SimpleMeterRegistry(), 1);
+
+        account = account(new CurrentAccount(), at("2025-03-01T00:00:00Z"), 0);
+        operation(account, Operation_type.CREDIT, 100, at("2025-03-01T10:00:00Z"), 100L);
+        operation(account, Operation_type.DEBIT, 30, at("2025-03-02T10:00:00Z"), 70L);
+        // Same millisecond, ids in the opposite order of the balances
+        operation(account, Operation_type.CREDIT, 50, at("2025-03-03T10:00:00Z"), 170L);
+        operation(account, Operation_type.CREDIT, 50, at("2025-03-03T10:00:00Z"), 120L);
+        // A slot credit of a hot account carries no balance
+        operation(account, Operation_type.CREDIT, 5, at("2025-03-04T10:00:00Z"), null);
+        operation(account, Operation_type.DEBIT, 25, at("2025-03-05T10:00:00Z"), 150L);
+        corrupted = operation(account, Operation_type.CREDIT, 10, at("2025-03-06T10:00:00Z"), 999L);
+        operation(account, Operation_type.DEBIT, 9, at("2025-03-07T10:00:00Z"), 990L);
+        entityManager.flush();
+    }
+
+    @Test
+    void wholeHistoryReportsTheBrokenLink() {
+        OperationChainReportDTO report = verifier.verifyAccount(account.getIdBankAccount(), null, null);
+
+        assertEquals(8, report.getOperationsChecked());
+        assertEquals(1, report.getBreaks());
+        assertEquals(List.of(corrupted.getId()), report.getBrokenOperationIds());
+    }
+
+    @Test
+    void windowIsSeededWithThePreviousOperation() {
+        OperationChainReportDTO clean = verifier.verifyAccount(account.getIdBankAccount(),
+                at("2025-03-02T00:00:00Z"), at("2025-03-06T00:00:00Z"));
+        assertEquals(5, clean.getOperationsChecked());
+        assertEquals(0, clean.getBreaks());
+
+        OperationChainReportDTO broken = verifier.verifyAccount(account.getIdBankAccount(),
+                at("2025-03-06T00:00:00Z"), null);
+        assertEquals(2, broken.getOperationsChecked());
+        assertEquals(List.of(corrupted.getId()), broken.getBrokenOperationIds());
+    }
+
+    @Test
+    void balanceSetByAnAdministratorIsNotABreak() {
+        BankAccount other = account(new CurrentAccount(), at("2025-03-01T00:00:00Z"), 0);
+        operation(other, Operation_type.CREDIT, 100, at("2025-03-01T10:00:00Z"), 100L);
+        entityManager.persist(new BalanceCheckpoint(null, other.getIdBankAccount(), at("2025-03-02T08:00:00Z"), Money.ofMinor(500)));
+        operation(other, Operation_type.CREDIT, 10, at("2025-03-03T10:00:00Z"), 510L);
+        entityManager.flush();
+
+        assertEquals(0, verifier.verifyAccount(other.getIdBankAccount(), null, null).getBreaks());
+    }
+
+    @Test
+    void nightlyWindowChecksEveryAccount() {
+        BankAccount other = account(new CurrentAccount(), at("2025-03-01T00:00:00Z"), 0);
+        operation(other, Operation_type.CREDIT, 40, at("2025-03-05T10:00:00Z"), 40L);
+        operation(other, Operation_type.DEBIT, 10, at("2025-03-06T11:00:00Z"), 30L);
+        entityManager.flush();
+
+        assertEquals(0, verifier.verifyWindow(at("2025-03-05T00:00:00Z"), at("2025-03-06T00:00:00Z")));
+        assertEquals(1, verifier.verifyWindow(at("2025-03-06T00:00:00Z"), at("2025-03-07T00:00:00Z")));
+    }
+
+    @Test
+    void unknownAccountIsNotFound() {
+        assertThrows(BankAccountNotFoundException.class, () -> verifier.verifyAccount(-1L, null, null));
+    }
+}
@@ -0,0 +1,56 @@
+package org.example.digital_banking.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.digital_banking.config.JdbcConfig;
+import org.example.digital_banking.enums.Operation_type;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class OperationExportServiceTest {
+
+    @Test
+    void streamsOneJsonObjectPerLineWithTheFetchSizeHint() throws Exception {
+        // Arrange
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true, true, false);
+        when(resultSet.getLong(1)).thenReturn(1L, 2L);
+        when(resultSet.getTimestamp(2)).thenReturn(new Timestamp(1_000), new Timestamp(2_000));
+        when(resultSet.getLong(3)).thenReturn(12_345L, 500L);
+        when(resultSet.getInt(4)).thenReturn(Operation_type.CREDIT.ordinal(), Operation_type.DEBIT.ordinal());
+        when(resultSet.getString(5)).thenReturn("salary", "coffee");
+        when(resultSet.getLong(6)).thenReturn(12_345L, 11_845L);
+
+        OperationExportService service = new OperationExportService(
+                new JdbcConfig().streamingJdbcTemplate(dataSource, Integer.MIN_VALUE), new ObjectMapper());
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // Act
+        long written = service.streamOperations(9L, output);
+
+        // Assert
+        assertEquals(2, written);
+        verify(statement).setFetchSize(Integer.MIN_VALUE);
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].contains("\"id\":1") && lines[0].contains("\"operationType\":\"CREDIT\""), lines[0]);
+        assertTrue(lines[1].contains("\"description\":\"coffee\""), lines[1]);
+        assertTrue(lines[1].contains("\"balanceAfter\":118.45"), lines[1]);
+    }
+}
@@ -0,0 +1,88 @@
+package org.example.digital_banking.services;
+
+import org.example.digital_banking.entities.BankAccount;
+import org.example.digital_banking.entities.CurrentAccount;
+import org.example.digital_banking.entities.SavingAccount;
+import org.example.digital_banking.enums.Operation_type;
+import org.example.digital_banking.repositories.DailyOperationTotals;
+import org.example.digital_banking.repositories.OperationRollupRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OperationRollupServiceTest extends AccountOperationFixture {
+
+    private static final LocalDate MARCH_1 = LocalDate.of(2025, 3, 1);
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private OperationRollupRepo rollupRepo;
+
+    private OperationRollupService service;
+    private BankAccount saving;
+
+    @BeforeEach
+    void setUp() {
+        service = new OperationRollupService(rollupRepo, jdbcTemplate, transactionTemplate, 1);
+
+        saving = account(new SavingAccount(), new Date(), 0);
+        BankAccount current = account(new CurrentAccount(), new Date(), 0);
+        operation(saving, Operation_type.CREDIT, 1_000, at(MARCH_1, 9), null);
+        operation(current, Operation_type.CREDIT, 500, at(MARCH_1, 10), null);
+        operation(current, Operation_type.DEBIT, 200, at(MARCH_1, 23), null);
+        operation(saving, Operation_type.DEBIT, 300, at(MARCH_1.plusDays(1), 0), null);
+        entityManager.flush();
+    }
+
+    @Test
+    void daysAreRolledUpPerAccountAndOperationType() {
+        service.rollUp(MARCH_1, MARCH_1.plusDays(2));
+        // Rebuilding is idempotent
+        service.rollUp(MARCH_1, MARCH_1.plusDays(1));
+
+        assertEquals(4, rollupRepo.count());
+        List<DailyOperationTotals> days = service.dailyTotals(MARCH_1, MARCH_1.plusDays(2));
+        assertEquals(2, days.size());
+        assertEquals(MARCH_1, days.get(0).getOperationDay());
+        assertEquals(1_500, days.get(0).getCredits());
+        assertEquals(200, days.get(0).getDebits());
+        assertEquals(3, days.get(0).getOperations());
+        assertEquals(300, days.get(1).getDebits());
+    }
+
+    @Test
+    void deletedAccountsAreSubtracted() {
+        service.rollUp(MARCH_1, MARCH_1.plusDays(2));
+
+        service.forgetAccount(saving.getIdBankAccount());
+
+        List<DailyOperationTotals> days = service.dailyTotals(MARCH_1, MARCH_1.plusDays(2));
+        assertEquals(500, days.get(0).getCredits());
+        assertEquals(2, days.get(0).getOperations());
+        assertEquals(0, days.get(1).getDebits());
+    }
+
+    @Test
+    void backfillCoversEveryDaySinceTheFirstOperation() {
+        assertNull(service.completeBefore());
+
+        service.backfill();
+
+        assertEquals(LocalDate.now(ZoneId.systemDefault()), service.completeBefore());
+        assertEquals(2, service.dailyTotals(MARCH_1.minusDays(1), service.completeBefore()).size());
+    }
+
+    private static Date at(LocalDate day, int hour) {
+        return Date.from(day.atTime(hour, 30).atZone(ZoneId.systemDefault()).toInstant());
+    }
+}
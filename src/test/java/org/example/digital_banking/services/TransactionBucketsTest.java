@@ -0,0 +1,82 @@
+package org.example.digital_banking.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionBucketsTest {
+
+    private static final ZoneId PARIS = ZoneId.of("Europe/Paris");
+
+    @Test
+    void epochMonthMatchesJavaTime() {
+        for (long day = -800_000; day <= 800_000; day += 13) {
+            LocalDate date = LocalDate.ofEpochDay(day);
+            assertEquals(date.getYear() * 12L + date.getMonthValue() - 1, TransactionBuckets.epochMonth(day), date.toString());
+        }
+    }
+
+    @Test
+    void weeksFollowTheIsoWeekBasedYear() {
+        TransactionBuckets buckets = buckets(TransactionBuckets.Interval.WEEKLY, "2024-12-23", "2025-01-13");
+        buckets.add(LocalDate.parse("2024-12-31").toEpochDay(), 100, 0);
+        buckets.add(LocalDate.parse("2025-01-05").toEpochDay(), 50, 0);
+        buckets.add(LocalDate.parse("2025-01-06").toEpochDay(), 0, 30);
+
+        assertEquals(List.of("2024-W52", "2025-W01", "2025-W02"), labels(buckets));
+        assertEquals(150, buckets.credits(1));
+        assertEquals(30, buckets.debits(2));
+    }
+
+    @Test
+    void emptyMonthsAreKeptAndOutsideDaysIgnored() {
+        TransactionBuckets buckets = buckets(TransactionBuckets.Interval.MONTHLY, "2024-11-15", "2025-02-10");
+        buckets.add(LocalDate.parse("2025-02-09").toEpochDay(), 7, 0);
+        buckets.add(LocalDate.parse("2025-02-10").toEpochDay(), 1_000, 0);
+        buckets.add(LocalDate.parse("2024-11-01").toEpochDay(), 1_000, 0);
+
+        assertEquals(List.of("2024-11", "2024-12", "2025-01", "2025-02"), labels(buckets));
+        assertEquals(0, buckets.credits(0));
+        assertEquals(7, buckets.credits(3));
+    }
+
+    @Test
+    void daysAreThoseOfTheZone() {
+        // 23:30 UTC on March 29th is already March 30th in Paris (and the day is 23 hours long)
+        TransactionBuckets buckets = new TransactionBuckets(TransactionBuckets.Interval.DAILY, PARIS,
+                Date.from(Instant.parse("2025-03-29T23:30:00Z")),
+                Date.from(Instant.parse("2025-03-30T22:00:00Z")));
+
+        assertEquals(List.of("2025-03-30"), labels(buckets));
+    }
+
+    @Test
+    void rangesTooLongAreRefused() {
+        assertThrows(IllegalArgumentException.class,
+                () -> buckets(TransactionBuckets.Interval.DAILY, "1700-01-01", "2025-01-01"));
+        assertEquals(0, buckets(TransactionBuckets.Interval.DAILY, "2025-01-01", "2025-01-01").size());
+    }
+
+    private static TransactionBuckets buckets(TransactionBuckets.Interval interval, String start, String end) {
+        return new TransactionBuckets(interval, PARIS, at(start), at(end));
+    }
+
+    private static Date at(String day) {
+        return Date.from(LocalDate.parse(day).atStartOfDay(PARIS).toInstant());
+    }
+
+    private static List<String> labels(TransactionBuckets buckets) {
+        List<String> labels = new ArrayList<>();
+        for (int i = 0; i < buckets.size(); i++) {
+            labels.add(buckets.label(i));
+        }
+        return labels;
+    }
+}
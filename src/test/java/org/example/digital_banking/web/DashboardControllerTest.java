@@ -4,6 +4,7 @@ import org.example.digital_banking.dtos.AccountStatsDTO;
 import org.example.digital_banking.dtos.DashboardStatsDTO;
 import org.example.digital_banking.dtos.TimeRangeDTO;
 import org.example.digital_banking.dtos.TransactionStatsDTO;
+import org.example.digital_banking.money.Money;
 import org.example.digital_banking.services.DashboardService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -49,8 +50,8 @@ class DashboardControllerTest {
     void getDashboardStats() throws Exception {
         // Arrange
         DashboardStatsDTO statsDTO = new DashboardStatsDTO(
-                5000.0,
-                1000.0,
+                Money.ofUnits(5000),
+                Money.ofUnits(1000),
                 10,
                 2,
                 15,
@@ -75,8 +76,8 @@ class DashboardControllerTest {
     void getDashboardStatsWithDateRange() throws Exception {
         // Arrange
         DashboardStatsDTO statsDTO = new DashboardStatsDTO(
-                3000.0,
-                500.0,
+                Money.ofUnits(3000),
+                Money.ofUnits(500),
                 5,
                 1,
                 10,
@@ -106,8 +107,8 @@ class DashboardControllerTest {
     void getAccountStats() throws Exception {
         // Arrange
         List<AccountStatsDTO> accountStats = Arrays.asList(
-                new AccountStatsDTO("Current", 5, 3000.0),
-                new AccountStatsDTO("Saving", 3, 2000.0)
+                new AccountStatsDTO("Current", 5, Money.ofUnits(3000)),
+                new AccountStatsDTO("Saving", 3, Money.ofUnits(2000))
         );
 
         when(dashboardService.getAccountStats(any())).thenReturn(accountStats);
@@ -130,9 +131,9 @@ class DashboardControllerTest {
         // Arrange
         TransactionStatsDTO transactionStats = new TransactionStatsDTO(
                 Arrays.asList("2023-01-01", "2023-01-02", "2023-01-03"),
-                Arrays.asList(1000.0, 1500.0, 2000.0),
-                Arrays.asList(500.0, 700.0, 900.0),
-                Arrays.asList(500.0, 800.0, 1100.0)
+                Arrays.asList(Money.ofUnits(1000), Money.ofUnits(1500), Money.ofUnits(2000)),
+                Arrays.asList(Money.ofUnits(500), Money.ofUnits(700), Money.ofUnits(900)),
+                Arrays.asList(Money.ofUnits(500), Money.ofUnits(800), Money.ofUnits(1100))
         );
 
         when(dashboardService.getTransactionStats(any(TimeRangeDTO.class), eq("daily"))).thenReturn(transactionStats);